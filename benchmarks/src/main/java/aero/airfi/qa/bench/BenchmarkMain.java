@@ -0,0 +1,30 @@
+package aero.airfi.qa.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Accepts the usual JMH command line and always adds the GC profiler,
+ * so every run reports allocation rate ({@code gc.alloc.rate.norm}) next to ops/s, and writes
+ * {@code jmh-result.json} unless another result file is given.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+        if (commandLine.getResult().hasValue() || commandLine.getResultFormat().hasValue()) {
+            new Runner(options.build()).run();
+            return;
+        }
+        new Runner(options.resultFormat(ResultFormatType.JSON).result("jmh-result.json").build()).run();
+    }
+}
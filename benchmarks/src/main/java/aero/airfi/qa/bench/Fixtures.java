@@ -0,0 +1,82 @@
+package aero.airfi.qa.bench;
+
+import aero.airfi.qa.controller.ControllerMapper;
+import aero.airfi.qa.dto.EnvironmentInfoDto;
+import aero.airfi.qa.dto.FailureDetailDto;
+import aero.airfi.qa.dto.TestMethodResultRequest;
+import aero.airfi.qa.model.TestMethodResult;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Representative payloads: a passing result with a few log lines, and a soft-assert failure carrying several
+ * failures with stack traces, which is where most of the bytes of a real run are.
+ */
+public final class Fixtures {
+
+    public static final String IATA = "BENCH";
+
+    private static final String STACK_TRACE = IntStream.range(0, 40)
+            .mapToObj(i -> "\tat aero.airfi.qa.tests.pax.SeatSelectionTest.step" + i + "(SeatSelectionTest.java:" + (100 + i) + ")")
+            .reduce("java.lang.AssertionError: expected [Seat 12A] but found [Seat 12B]", (a, b) -> a + "\n" + b);
+
+    private Fixtures() {}
+
+    public static TestMethodResultRequest passed(String runId, int index) {
+        Instant start = Instant.parse("2025-01-01T10:00:00Z").plusSeconds(index);
+        return TestMethodResultRequest.builder()
+                .runId(runId)
+                .suiteType(index % 2 == 0 ? "PAX1" : "CC")
+                .featureName("feature-" + index % 20)
+                .methodName("verifyScenario" + index)
+                .className("aero.airfi.qa.tests.pax.SeatSelectionTest")
+                .status("PASS")
+                .assertType("HARD")
+                .startTime(start)
+                .endTime(start.plusMillis(1500))
+                .durationMs(1500)
+                .jiraTestCases(List.of("TC-" + index, "TC-" + (index + 1)))
+                .environment(EnvironmentInfoDto.builder()
+                        .name("QA").browser("chrome").browserVersion("126.0").os("Linux").buildNumber("2025.1." + index % 7)
+                        .build())
+                .logs(List.of("Opened seat map", "Selected seat 12A", "Confirmed selection"))
+                .screenshotUrls(List.of("https://cdn.example.com/screens/" + runId + "/" + index + ".png"))
+                .build();
+    }
+
+    public static TestMethodResultRequest failed(String runId, int index) {
+        List<FailureDetailDto> failures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            failures.add(FailureDetailDto.builder()
+                    .errorMessage("expected [Seat 12A] but found [Seat 12B] (check " + i + ")")
+                    .stackTrace(STACK_TRACE)
+                    .screenshotUrl("https://cdn.example.com/screens/" + runId + "/" + index + "-" + i + ".png")
+                    .logs(List.of("Retry " + i, "Seat map reloaded"))
+                    .build());
+        }
+        TestMethodResultRequest request = passed(runId, index);
+        request.setStatus("FAIL");
+        request.setAssertType("SOFT");
+        request.setFailures(failures);
+        return request;
+    }
+
+    /**
+     * A run of {@code size} results in which every tenth one failed.
+     */
+    public static List<TestMethodResultRequest> run(String runId, int size) {
+        return IntStream.range(0, size)
+                .mapToObj(i -> i % 10 == 0 ? failed(runId, i) : passed(runId, i))
+                .toList();
+    }
+
+    /**
+     * The requests mapped to entities of {@link #IATA}, as the controller does before calling the service.
+     */
+    public static List<TestMethodResult> entities(List<TestMethodResultRequest> requests) {
+        return requests.stream().map(request -> ControllerMapper.toEntity(IATA, request)).toList();
+    }
+}
@@ -0,0 +1,172 @@
+package aero.airfi.qa.bench;
+
+import aero.airfi.qa.QaTestResultServiceApplication;
+import aero.airfi.qa.service.TestMethodResultService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load test comparing Tomcat on platform threads with {@code spring.threads.virtual.enabled=true}.
+ * For each mode the service is started in-process against the MongoDB given by the usual
+ * {@code -Dspring.data.mongodb.*} properties, a run is seeded, and {@code --clients} concurrent clients fetch it
+ * (result cache off, so every request reaches Mongo) for {@code --duration} seconds after a warm-up.
+ * Prints throughput and latency percentiles per mode.
+ * <p>
+ * Not a JMH benchmark: the unit of work is a whole HTTP exchange under contention. Run with
+ * {@code java -Dspring.data.mongodb.port=27018 -cp target/benchmarks.jar aero.airfi.qa.bench.ThreadModeLoadBenchmark --clients=1000}.
+ * Client and server share the machine, so compare modes with each other rather than reading absolute numbers.
+ */
+public final class ThreadModeLoadBenchmark {
+
+    private ThreadModeLoadBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        int clients = intArg(args, "clients", 1000);
+        int warmupSeconds = intArg(args, "warmup", 10);
+        int durationSeconds = intArg(args, "duration", 30);
+        int runSize = intArg(args, "run-size", 200);
+        List<String> modes = Arrays.asList(stringArg(args, "modes", "platform,virtual").split(","));
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-9s %8s %12s %10s %10s %10s %10s %8s",
+                "mode", "clients", "requests/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors"));
+        for (String mode : modes) {
+            Result result = runMode(mode.trim(), clients, warmupSeconds, durationSeconds, runSize);
+            report.add(String.format("%-9s %8d %12.1f %10.2f %10.2f %10.2f %10.2f %8d",
+                    mode.trim(), clients, result.throughput(), result.percentileMs(50), result.percentileMs(99),
+                    result.percentileMs(99.9), result.percentileMs(100), result.errors()));
+        }
+        report.forEach(System.out::println);
+    }
+
+    private static Result runMode(String mode, int clients, int warmupSeconds, int durationSeconds, int runSize) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QaTestResultServiceApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + "virtual".equals(mode),
+                        "spring.data.mongodb.database=qa_load",
+                        "qa.mongo.index-verification=off",
+                        "qa.run-catalog.backfill-on-startup=false",
+                        "qa.cache.results.enabled=false",
+                        "logging.level.root=WARN",
+                        "logging.level.aero.airfi.qa=WARN",
+                        "logging.level.org.springframework.data.mongodb=WARN")
+                .run();
+        try {
+            String runId = "load-" + UUID.randomUUID();
+            context.getBean(TestMethodResultService.class)
+                    .createTestResults(Fixtures.entities(Fixtures.run(runId, runSize)));
+            String port = context.getEnvironment().getProperty("local.server.port");
+            URI uri = URI.create("http://localhost:" + port + "/api/" + Fixtures.IATA + "/test-results/" + runId + "?view=summary");
+            return drive(uri, clients, warmupSeconds, durationSeconds);
+        } finally {
+            context.getBean(MongoTemplate.class).getDb().drop();
+            context.close();
+        }
+    }
+
+    private static Result drive(URI uri, int clients, int warmupSeconds, int durationSeconds) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+        long start = System.nanoTime();
+        long measureFrom = start + Duration.ofSeconds(warmupSeconds).toNanos();
+        long measureTo = measureFrom + Duration.ofSeconds(durationSeconds).toNanos();
+        LongAdder errors = new LongAdder();
+
+        List<Future<long[]>> futures = new ArrayList<>(clients);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < measureTo) {
+                        long sent = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (Exception ex) {
+                            ok = false;
+                        }
+                        long received = System.nanoTime();
+                        if (sent < measureFrom || received > measureTo) {
+                            continue;
+                        }
+                        if (!ok) {
+                            errors.increment();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = received - sent;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+
+        int total = 0;
+        List<long[]> perClient = new ArrayList<>(clients);
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            perClient.add(latencies);
+            total += latencies.length;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (long[] latencies : perClient) {
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+            offset += latencies.length;
+        }
+        Arrays.sort(all);
+        return new Result(all, errors.sum(), durationSeconds);
+    }
+
+    private static int intArg(String[] args, String name, int defaultValue) {
+        String value = stringArg(args, name, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static String stringArg(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
+        }
+        return defaultValue;
+    }
+
+    private record Result(long[] sortedLatenciesNanos, long errors, int durationSeconds) {
+
+        double throughput() {
+            return (double) sortedLatenciesNanos.length / durationSeconds;
+        }
+
+        double percentileMs(double percentile) {
+            if (sortedLatenciesNanos.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatenciesNanos.length) - 1;
+            return sortedLatenciesNanos[Math.max(0, Math.min(index, sortedLatenciesNanos.length - 1))] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package aero.airfi.qa.controller;
+
+import aero.airfi.qa.bench.Fixtures;
+import aero.airfi.qa.dto.ApiResponse;
+import aero.airfi.qa.dto.TestMethodResultResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Jackson serialization of the list endpoint body, {@code ApiResponse<List<TestMethodResultResponse>>}, for runs of
+ * 10 to 5000 results (every tenth a failure with stack traces), using an {@code ObjectMapper} configured the way
+ * Spring Boot configures the one behind the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    public int results;
+
+    private ObjectWriter writer;
+    private ApiResponse<List<TestMethodResultResponse>> body;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(new TypeReference<ApiResponse<List<TestMethodResultResponse>>>() {});
+        List<TestMethodResultResponse> data = Fixtures.run("run-1", results).stream()
+                .map(request -> ControllerMapper.toEntity(Fixtures.IATA, request))
+                .map(ControllerMapper::toResponse)
+                .toList();
+        body = ApiResponse.<List<TestMethodResultResponse>>builder()
+                .success(true)
+                .data(data)
+                .message("OK")
+                .timestamp(Instant.now())
+                .path("/api/BENCH/test-results/run-1")
+                .build();
+    }
+
+    /** Materializes the whole body, as a buffering message converter would. */
+    @Benchmark
+    public byte[] toBytes() throws IOException {
+        return writer.writeValueAsBytes(body);
+    }
+
+    /** Streams the body to a sink, as when writing straight to the servlet output stream. */
+    @Benchmark
+    public void toStream(Blackhole blackhole) throws IOException {
+        writer.writeValue(new BlackholeOutputStream(blackhole), body);
+    }
+
+    private static final class BlackholeOutputStream extends OutputStream {
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+            blackhole.consume(len);
+        }
+    }
+}
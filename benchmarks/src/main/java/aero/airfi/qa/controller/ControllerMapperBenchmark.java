@@ -0,0 +1,51 @@
+package aero.airfi.qa.controller;
+
+import aero.airfi.qa.bench.Fixtures;
+import aero.airfi.qa.dto.TestMethodResultRequest;
+import aero.airfi.qa.dto.TestMethodResultResponse;
+import aero.airfi.qa.model.TestMethodResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ControllerMapper} on a passing result and on a soft-assert failure with three stack traces.
+ * Lives in the controller package because the mapper is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerMapperBenchmark {
+
+    @Param({"PASS", "FAIL"})
+    public String status;
+
+    private TestMethodResultRequest request;
+    private TestMethodResult entity;
+
+    @Setup
+    public void setUp() {
+        request = "FAIL".equals(status) ? Fixtures.failed("run-1", 1) : Fixtures.passed("run-1", 1);
+        entity = ControllerMapper.toEntity(Fixtures.IATA, request);
+        entity.setId("65a1f0c2e4b0a1b2c3d4e5f6");
+    }
+
+    @Benchmark
+    public TestMethodResult toEntity() {
+        return ControllerMapper.toEntity(Fixtures.IATA, request);
+    }
+
+    @Benchmark
+    public TestMethodResultResponse toResponse() {
+        return ControllerMapper.toResponse(entity);
+    }
+}
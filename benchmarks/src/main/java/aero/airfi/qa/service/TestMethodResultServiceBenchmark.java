@@ -0,0 +1,130 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.QaTestResultServiceApplication;
+import aero.airfi.qa.bench.Fixtures;
+import aero.airfi.qa.controller.ControllerMapper;
+import aero.airfi.qa.dto.BatchItemResult;
+import aero.airfi.qa.dto.TestMethodResultRequest;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link TestMethodResultService} insert and query paths against a real MongoDB, through the service's own
+ * Spring context without the web layer. Point it at a throwaway server with
+ * {@code -Dspring.data.mongodb.host=... -Dspring.data.mongodb.port=...}; the {@code qa_bench} database is
+ * dropped after each trial. The result cache is disabled so queries measure the Mongo round trip, and the search
+ * index so inserts measure the write path alone.
+ * <p>
+ * Idempotency keys stay on, as in production, so every insert invocation gets a run id of its own: reposting the
+ * same fixtures would only measure the duplicate path, which {@link #insertDuplicateBatch} measures on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TestMethodResultServiceBenchmark {
+
+    @Param({"1000"})
+    public int runSize;
+
+    @Param({"100"})
+    public int batchSize;
+
+    @Param({"summary", "full"})
+    public String view;
+
+    private ConfigurableApplicationContext context;
+    private TestMethodResultService service;
+    private RunQuery seededRun;
+    private ResultView resultView;
+    private List<TestMethodResultRequest> batch;
+    private List<TestMethodResultRequest> duplicateBatch;
+    private TestMethodResultRequest single;
+    private final AtomicLong insertRuns = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void startService() {
+        context = new SpringApplicationBuilder(QaTestResultServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.data.mongodb.database=qa_bench",
+                        "qa.mongo.index-verification=off",
+                        "qa.run-catalog.backfill-on-startup=false",
+                        "qa.cache.results.enabled=false",
+                        "qa.search.enabled=false",
+                        "logging.level.root=WARN",
+                        "logging.level.aero.airfi.qa=WARN",
+                        "logging.level.org.springframework.data.mongodb=WARN")
+                .run();
+        service = context.getBean(TestMethodResultService.class);
+
+        String runId = "bench-" + UUID.randomUUID();
+        service.createTestResults(Fixtures.entities(Fixtures.run(runId, runSize)));
+        seededRun = RunQuery.builder().iata(Fixtures.IATA).runId(runId).build();
+        resultView = ResultView.of(view, null);
+        batch = Fixtures.run("bench-insert", batchSize);
+        duplicateBatch = Fixtures.run(runId, Math.min(batchSize, runSize));
+        single = Fixtures.passed("bench-insert", 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopService() {
+        context.getBean(MongoTemplate.class).getDb().drop();
+        context.close();
+    }
+
+    /** Reads the seeded run with the selected projection. */
+    @Benchmark
+    public List<TestMethodResult> queryRun() {
+        return service.getTestResults(seededRun, resultView);
+    }
+
+    /** One new result per round trip, as the single-result POST does. */
+    @Benchmark
+    public TestMethodResult insertOne() {
+        TestMethodResult result = ControllerMapper.toEntity(Fixtures.IATA, single);
+        result.setRunId(nextInsertRun());
+        return service.createTestResult(result);
+    }
+
+    /** One unordered bulk insert of {@code batchSize} new results, as the batch POST does. */
+    @Benchmark
+    public List<BatchItemResult> insertBatch() {
+        List<TestMethodResult> results = Fixtures.entities(batch);
+        String runId = nextInsertRun();
+        results.forEach(result -> result.setRunId(runId));
+        return service.createTestResults(results);
+    }
+
+    /** A retried batch POST: every result is already stored, so nothing is written. */
+    @Benchmark
+    public List<BatchItemResult> insertDuplicateBatch() {
+        return service.createTestResults(Fixtures.entities(duplicateBatch));
+    }
+
+    private String nextInsertRun() {
+        return "bench-insert-" + insertRuns.incrementAndGet();
+    }
+}
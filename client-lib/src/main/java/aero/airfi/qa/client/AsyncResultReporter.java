@@ -0,0 +1,323 @@
+package aero.airfi.qa.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+import aero.airfi.qa.client.model.TestMethodResult;
+
+/**
+ * Non-blocking reporter for test listeners. {@link #record} only puts the result in a bounded buffer; a background
+ * thread serializes, gzips and posts batches to {@code /api/{iata}/test-results/batch} over a pooled connection,
+ * retrying failed batches with jittered exponential backoff.
+ * <p>
+ * A recorded result must not be modified afterwards. When the buffer is full, results are dropped rather than
+ * blocking the test thread; {@link #getDropped()} reports how many. Call {@link #flush} at the end of a suite and
+ * {@link #close} when the JVM is done reporting.
+ */
+public class AsyncResultReporter implements AutoCloseable {
+    private static final System.Logger LOG = System.getLogger(AsyncResultReporter.class.getName());
+
+    private final ReporterConfig config;
+    private final String batchUrl;
+    private final CloseableHttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter batchWriter;
+    private final ArrayBlockingQueue<TestMethodResult> buffer;
+    private final Thread flusher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition();
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running = true;
+    private volatile boolean flushRequested;
+
+    public AsyncResultReporter(ReporterConfig config) {
+        this.config = config;
+        String baseUrl = config.getBaseUrl().endsWith("/") ? config.getBaseUrl().substring(0, config.getBaseUrl().length() - 1) : config.getBaseUrl();
+        this.batchUrl = baseUrl + "/api/" + URLEncoder.encode(config.getIata(), StandardCharsets.UTF_8) + "/test-results/batch";
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(config.getMaxConnections())
+                        .setMaxConnPerRoute(config.getMaxConnections())
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.ofMilliseconds(config.getConnectTimeoutMs()))
+                                .setSocketTimeout(Timeout.ofMilliseconds(config.getResponseTimeoutMs()))
+                                .build())
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(config.getConnectionRequestTimeoutMs()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(config.getResponseTimeoutMs()))
+                        .build())
+                .disableAutomaticRetries()
+                .build();
+        this.objectMapper = config.getWireFormat().objectMapper();
+        this.batchWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, TestMethodResult.class));
+        this.buffer = new ArrayBlockingQueue<>(config.getBufferCapacity());
+        this.flusher = new Thread(this::flushLoop, "qa-result-reporter");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Buffers the result for sending. Never blocks; returns {@code false} if the buffer is full or the reporter is closed.
+     */
+    public boolean record(TestMethodResult testMethodResult) {
+        if (!running || !buffer.offer(testMethodResult)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        recorded.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Sends everything recorded so far without waiting for the flush interval, and waits until it has been
+     * written or given up on. Returns {@code false} if that did not happen within the timeout.
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long target = recorded.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        lock.lock();
+        try {
+            flushRequested = true;
+            while (completed.get() < target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                progress.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@link #flush(long, TimeUnit)} with a timeout long enough for a batch to exhaust its retries. Use at the end of a suite.
+     */
+    public boolean flush() throws InterruptedException {
+        long worstCaseMs = config.getFlushIntervalMs() + (config.getMaxRetries() + 1L) * (config.getResponseTimeoutMs() + config.getRetryMaxDelayMs());
+        return flush(worstCaseMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Flushes, then stops the flusher and closes the connection pool. Results still buffered after the flush are counted as dropped.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(config.getResponseTimeoutMs());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        int lost = buffer.size();
+        if (lost > 0) {
+            dropped.addAndGet(lost);
+            LOG.log(System.Logger.Level.WARNING, "Closed with {0} unsent test results", lost);
+        }
+        httpClient.close();
+    }
+
+    /** Results accepted by the service. */
+    public long getSent() {
+        return sent.get();
+    }
+
+    /** Results rejected by the service or given up on after all retries. */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /** Results not buffered because the buffer was full or the reporter closed. */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void flushLoop() {
+        List<TestMethodResult> batch = new ArrayList<>(config.getBatchSize());
+        while (running) {
+            try {
+                TestMethodResult first = buffer.poll(flushRequested ? 10 : config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    flushRequested = false;
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs());
+                while (batch.size() < config.getBatchSize()) {
+                    buffer.drainTo(batch, config.getBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= config.getBatchSize() || remaining <= 0 || flushRequested) {
+                        break;
+                    }
+                    TestMethodResult next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                send(batch);
+            } catch (InterruptedException ex) {
+                if (running) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+            } finally {
+                complete(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void complete(int count) {
+        if (count == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            completed.addAndGet(count);
+            progress.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void send(List<TestMethodResult> batch) throws InterruptedException {
+        byte[] body;
+        try {
+            body = serialize(batch);
+        } catch (IOException ex) {
+            failed.addAndGet(batch.size());
+            LOG.log(System.Logger.Level.ERROR, "Could not serialize batch of " + batch.size() + " test results", ex);
+            return;
+        }
+        // one key per batch, so a retry after a timeout the server did process stores nothing twice
+        String idempotencyKey = UUID.randomUUID().toString();
+        for (int attempt = 0; ; attempt++) {
+            long retryAfterMs = -1;
+            try {
+                HttpPost post = new HttpPost(batchUrl);
+                post.setHeader(HttpHeaders.ACCEPT, config.getWireFormat().contentType().getMimeType());
+                post.setHeader("Idempotency-Key", idempotencyKey);
+                post.setEntity(new ByteArrayEntity(body, config.getWireFormat().contentType(), config.isGzip() ? "gzip" : null));
+                BatchOutcome outcome = httpClient.execute(post, response -> {
+                    Header retryAfter = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+                    JsonNode items = null;
+                    if (response.getCode() == 207 && response.getEntity() != null) {
+                        items = objectMapper.readTree(response.getEntity().getContent()).path("data");
+                    }
+                    return new BatchOutcome(response.getCode(), retryAfter == null ? null : retryAfter.getValue(), items);
+                });
+                if (outcome.status() >= 200 && outcome.status() < 300) {
+                    long rejected = countErrors(outcome.items());
+                    sent.addAndGet(batch.size() - rejected);
+                    failed.addAndGet(rejected);
+                    return;
+                }
+                if (!retryable(outcome.status())) {
+                    failed.addAndGet(batch.size());
+                    LOG.log(System.Logger.Level.ERROR, "Batch of {0} test results rejected with status {1}", batch.size(), outcome.status());
+                    return;
+                }
+                retryAfterMs = parseRetryAfter(outcome.retryAfter());
+                LOG.log(System.Logger.Level.WARNING, "Batch post returned {0}, attempt {1}", outcome.status(), attempt + 1);
+            } catch (IOException ex) {
+                LOG.log(System.Logger.Level.WARNING, "Batch post failed, attempt {0}: {1}", attempt + 1, ex.getMessage());
+            }
+            if (attempt >= config.getMaxRetries()) {
+                failed.addAndGet(batch.size());
+                LOG.log(System.Logger.Level.ERROR, "Giving up on batch of {0} test results after {1} attempts", batch.size(), attempt + 1);
+                return;
+            }
+            Thread.sleep(retryAfterMs >= 0 ? retryAfterMs : backoff(attempt));
+        }
+    }
+
+    private byte[] serialize(List<TestMethodResult> batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 512);
+        try (OutputStream out = config.isGzip() ? new GZIPOutputStream(bytes, 8192) : bytes) {
+            batchWriter.writeValue(out, batch);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Full jitter: a random delay between zero and the capped exponential backoff, so reporters on many
+     * agents do not retry in lockstep.
+     */
+    private long backoff(int attempt) {
+        long cap = Math.min(config.getRetryMaxDelayMs(), config.getRetryBaseDelayMs() << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private static boolean retryable(int status) {
+        return status == 408 || status == 429 || status >= 500;
+    }
+
+    private long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null) {
+            return -1;
+        }
+        try {
+            return Math.min(TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())), config.getRetryMaxDelayMs());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static long countErrors(JsonNode items) {
+        if (items == null || !items.isArray()) {
+            return 0;
+        }
+        long errors = 0;
+        for (JsonNode item : items) {
+            if (item.hasNonNull("error")) {
+                errors++;
+            }
+        }
+        return errors;
+    }
+
+    private record BatchOutcome(int status, String retryAfter, JsonNode items) {
+    }
+}
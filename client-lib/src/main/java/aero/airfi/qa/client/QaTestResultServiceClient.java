@@ -1,14 +1,13 @@
 package aero.airfi.qa.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
 import org.apache.hc.client5.http.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.ContentType;
-import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 
 import java.io.IOException;
@@ -17,25 +16,36 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 import aero.airfi.qa.client.model.TestMethodResult;
 
+/**
+ * Blocking client for the result API. Requests and responses use the given {@link WireFormat} (JSON by default);
+ * gzip and deflate responses are decompressed transparently by the HTTP client.
+ */
 public class QaTestResultServiceClient {
     private static final CloseableHttpClient HTTP_CLIENT = HttpClients.custom().build();
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
 
     private final String baseUrl;
+    private final WireFormat wireFormat;
+    private final ObjectMapper objectMapper;
 
     public QaTestResultServiceClient(String baseUrl) {
+        this(baseUrl, WireFormat.JSON);
+    }
+
+    public QaTestResultServiceClient(String baseUrl, WireFormat wireFormat) {
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.wireFormat = wireFormat;
+        this.objectMapper = wireFormat.objectMapper();
     }
 
     public String createTestResult(TestMethodResult testMethodResult) throws IOException {
         String url = baseUrl + "/api/test-results";
         HttpPost post = new HttpPost(url);
-        String json = OBJECT_MAPPER.writeValueAsString(testMethodResult);
-        post.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
+        post.setHeader(HttpHeaders.ACCEPT, wireFormat.contentType().getMimeType());
+        post.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(testMethodResult), wireFormat.contentType()));
         ClassicHttpResponse response = (ClassicHttpResponse) HTTP_CLIENT.executeOpen(null, post, null).getResult();
         int status = response.getCode();
         if (status >= 200 && status < 300) {
-            return OBJECT_MAPPER.readTree(response.getEntity().getContent()).get("data").asText();
+            return objectMapper.readTree(response.getEntity().getContent()).get("data").asText();
         }
         throw new IOException("Unexpected response status: " + status);
     }
@@ -59,12 +69,13 @@ public class QaTestResultServiceClient {
     }
 
     private <T> List<T> readList(HttpUriRequestBase request, Class<T> elementType) throws IOException {
+        request.setHeader(HttpHeaders.ACCEPT, wireFormat.contentType().getMimeType());
         ClassicHttpResponse response = (ClassicHttpResponse) HTTP_CLIENT.executeOpen(null, request, null).getResult();
         int status = response.getCode();
         if (status >= 200 && status < 300) {
-            var node = OBJECT_MAPPER.readTree(response.getEntity().getContent());
+            var node = objectMapper.readTree(response.getEntity().getContent());
             var dataNode = node.get("data");
-            return OBJECT_MAPPER.readerFor(OBJECT_MAPPER.getTypeFactory().constructCollectionType(List.class, elementType))
+            return objectMapper.readerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, elementType))
                     .readValue(dataNode);
         }
         throw new IOException("Unexpected response status: " + status);
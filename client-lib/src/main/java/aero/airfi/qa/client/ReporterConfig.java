@@ -0,0 +1,50 @@
+package aero.airfi.qa.client;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Settings for {@link AsyncResultReporter}. Only {@code baseUrl} and {@code iata} are required.
+ */
+@Value
+@Builder
+public class ReporterConfig {
+    String baseUrl;
+    String iata;
+
+    @Builder.Default
+    int bufferCapacity = 10_000; // Results held before record() starts dropping
+
+    @Builder.Default
+    int batchSize = 200; // Results per POST
+
+    @Builder.Default
+    long flushIntervalMs = 500; // Longest a recorded result waits before it is sent
+
+    @Builder.Default
+    boolean gzip = true; // Send batches with Content-Encoding: gzip
+
+    @Builder.Default
+    WireFormat wireFormat = WireFormat.JSON; // SMILE or CBOR for smaller bodies and cheaper parsing on the server
+
+    @Builder.Default
+    int maxConnections = 4;
+
+    @Builder.Default
+    long connectTimeoutMs = 2_000;
+
+    @Builder.Default
+    long responseTimeoutMs = 10_000;
+
+    @Builder.Default
+    long connectionRequestTimeoutMs = 2_000; // Wait for a pooled connection
+
+    @Builder.Default
+    int maxRetries = 5;
+
+    @Builder.Default
+    long retryBaseDelayMs = 200; // Backoff doubles per attempt, full jitter
+
+    @Builder.Default
+    long retryMaxDelayMs = 10_000;
+}
@@ -0,0 +1,34 @@
+package aero.airfi.qa.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.hc.core5.http.ContentType;
+
+/**
+ * Body encoding used by the client and the reporter. The service accepts and returns all three; the binary ones
+ * are smaller and cheaper to parse than JSON, especially for results with long logs.
+ */
+public enum WireFormat {
+    JSON(ContentType.APPLICATION_JSON, new JsonFactory()),
+    SMILE(ContentType.create("application/x-jackson-smile"), new SmileFactory()),
+    CBOR(ContentType.create("application/cbor"), new CBORFactory());
+
+    private final ContentType contentType;
+    private final ObjectMapper objectMapper;
+
+    WireFormat(ContentType contentType, JsonFactory factory) {
+        this.contentType = contentType;
+        this.objectMapper = new ObjectMapper(factory).registerModule(new JavaTimeModule());
+    }
+
+    public ContentType contentType() {
+        return contentType;
+    }
+
+    public ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+}
@@ -0,0 +1,15 @@
+package aero.airfi.qa.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+
+@SpringBootApplication
+@EntityScan("aero.airfi.qa.model")
+public class ReactiveQaTestResultServiceApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveQaTestResultServiceApplication.class, args);
+	}
+
+}
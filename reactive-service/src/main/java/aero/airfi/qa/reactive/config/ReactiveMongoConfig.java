@@ -0,0 +1,45 @@
+package aero.airfi.qa.reactive.config;
+
+import aero.airfi.qa.config.MongoPoolWaitListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool settings for the reactive client, matching the servlet service. Boot's auto-configuration builds the
+ * client from {@code spring.data.mongodb.*} and already registers the Micrometer command and pool listeners.
+ */
+@Configuration
+public class ReactiveMongoConfig {
+
+    @Value("${qa.mongo.pool.max-size:100}")
+    private int poolMaxSize;
+
+    @Value("${qa.mongo.pool.max-wait-ms:5000}")
+    private long poolMaxWaitMs;
+
+    @Value("${qa.mongo.pool.max-connecting:2}")
+    private int poolMaxConnecting;
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer poolSettingsCustomizer(MeterRegistry meterRegistry) {
+        return settings -> settings
+                .applyToConnectionPoolSettings(builder ->
+                    builder.maxSize(poolMaxSize)
+                           .minSize(5)
+                           .maxWaitTime(poolMaxWaitMs, TimeUnit.MILLISECONDS)
+                           .maxConnecting(poolMaxConnecting)
+                           .maxConnectionLifeTime(30, TimeUnit.MINUTES)
+                           .maxConnectionIdleTime(10, TimeUnit.MINUTES)
+                           .addConnectionPoolListener(new MongoPoolWaitListener(meterRegistry))
+                )
+                .applyToSocketSettings(builder ->
+                    builder.connectTimeout(5000, TimeUnit.MILLISECONDS)
+                           .readTimeout(30000, TimeUnit.MILLISECONDS)
+                );
+    }
+}
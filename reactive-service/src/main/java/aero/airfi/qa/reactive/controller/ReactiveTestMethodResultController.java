@@ -0,0 +1,189 @@
+package aero.airfi.qa.reactive.controller;
+
+import aero.airfi.qa.controller.ControllerMapper;
+import aero.airfi.qa.dto.ApiResponse;
+import aero.airfi.qa.dto.TestMethodResultResponse;
+import aero.airfi.qa.exception.ResourceNotFoundException;
+import aero.airfi.qa.reactive.service.ReactiveTestMethodResultService;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The read endpoints of {@code /api/{iata}/test-results} on WebFlux, with the servlet service's paths, parameters
+ * and {@link ApiResponse} bodies. NDJSON responses are written element by element as the client reads them.
+ */
+@RestController
+@RequestMapping("/api/{iata}/test-results")
+@Slf4j
+public class ReactiveTestMethodResultController {
+
+    private final ReactiveTestMethodResultService testMethodResultService;
+
+    @Value("${qa.run-catalog.page-size:10}")
+    private int defaultRunIdPageSize;
+
+    @Value("${qa.run-catalog.max-page-size:100}")
+    private int maxRunIdPageSize;
+
+    public ReactiveTestMethodResultController(ReactiveTestMethodResultService testMethodResultService) {
+        this.testMethodResultService = testMethodResultService;
+    }
+
+    @GetMapping("/{runId}")
+    public Mono<ResponseEntity<ApiResponse<List<TestMethodResultResponse>>>> getAllTestResults(
+            @PathVariable String iata,
+            @PathVariable String runId,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "view", required = false) String view,
+            @RequestParam(name = "fields", required = false) String fields,
+            ServerHttpRequest request) {
+        String normalizedStatus = normalizeStatus(status);
+        log.info("GET results by runId iata={} runId={}{}", iata, runId, normalizedStatus == null ? "" : ", status=" + normalizedStatus);
+        return toListResponse(RunQuery.builder().iata(iata).runId(runId).status(normalizedStatus).build(), ResultView.of(view, fields), request);
+    }
+
+    @GetMapping(value = "/{runId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TestMethodResultResponse> streamAllTestResults(
+            @PathVariable String iata,
+            @PathVariable String runId,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "view", required = false) String view,
+            @RequestParam(name = "fields", required = false) String fields) {
+        String normalizedStatus = normalizeStatus(status);
+        log.info("GET stream results by runId iata={} runId={}{}", iata, runId, normalizedStatus == null ? "" : ", status=" + normalizedStatus);
+        return testMethodResultService.streamTestResults(RunQuery.builder().iata(iata).runId(runId).status(normalizedStatus).build(), ResultView.of(view, fields))
+                .map(ControllerMapper::toResponse);
+    }
+
+    @GetMapping("/suite/{suiteType}")
+    public Mono<ResponseEntity<ApiResponse<List<TestMethodResultResponse>>>> getBySuiteType(
+            @PathVariable String iata,
+            @PathVariable String suiteType,
+            @RequestParam String runId,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "view", required = false) String view,
+            @RequestParam(name = "fields", required = false) String fields,
+            ServerHttpRequest request) {
+        String normalizedStatus = normalizeStatus(status);
+        log.info("GET results by suiteType iata={} runId={} suiteType={}{}", iata, runId, suiteType, normalizedStatus == null ? "" : ", status=" + normalizedStatus);
+        return toListResponse(RunQuery.builder().iata(iata).runId(runId).suiteType(suiteType).status(normalizedStatus).build(), ResultView.of(view, fields), request);
+    }
+
+    @GetMapping(value = "/suite/{suiteType}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TestMethodResultResponse> streamBySuiteType(
+            @PathVariable String iata,
+            @PathVariable String suiteType,
+            @RequestParam String runId,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "view", required = false) String view,
+            @RequestParam(name = "fields", required = false) String fields) {
+        String normalizedStatus = normalizeStatus(status);
+        log.info("GET stream results by suiteType iata={} runId={} suiteType={}{}", iata, runId, suiteType, normalizedStatus == null ? "" : ", status=" + normalizedStatus);
+        return testMethodResultService.streamTestResults(RunQuery.builder().iata(iata).runId(runId).suiteType(suiteType).status(normalizedStatus).build(), ResultView.of(view, fields))
+                .map(ControllerMapper::toResponse);
+    }
+
+    @GetMapping("/feature/{featureName}")
+    public Mono<ResponseEntity<ApiResponse<List<TestMethodResultResponse>>>> getByFeatureName(
+            @PathVariable String iata,
+            @PathVariable String featureName,
+            @RequestParam String runId,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "view", required = false) String view,
+            @RequestParam(name = "fields", required = false) String fields,
+            ServerHttpRequest request) {
+        String normalizedStatus = normalizeStatus(status);
+        log.info("GET results by feature iata={} runId={} feature={}{}", iata, runId, featureName, normalizedStatus == null ? "" : ", status=" + normalizedStatus);
+        return toListResponse(RunQuery.builder().iata(iata).runId(runId).featureName(featureName).status(normalizedStatus).build(), ResultView.of(view, fields), request);
+    }
+
+    @GetMapping(value = "/feature/{featureName}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TestMethodResultResponse> streamByFeatureName(
+            @PathVariable String iata,
+            @PathVariable String featureName,
+            @RequestParam String runId,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "view", required = false) String view,
+            @RequestParam(name = "fields", required = false) String fields) {
+        String normalizedStatus = normalizeStatus(status);
+        log.info("GET stream results by feature iata={} runId={} feature={}{}", iata, runId, featureName, normalizedStatus == null ? "" : ", status=" + normalizedStatus);
+        return testMethodResultService.streamTestResults(RunQuery.builder().iata(iata).runId(runId).featureName(featureName).status(normalizedStatus).build(), ResultView.of(view, fields))
+                .map(ControllerMapper::toResponse);
+    }
+
+    @GetMapping("/id/{id}")
+    public Mono<ResponseEntity<ApiResponse<TestMethodResultResponse>>> getTestResultById(
+            @PathVariable String iata,
+            @PathVariable String id,
+            ServerHttpRequest request) {
+        log.info("GET result by id iata={} id={}", iata, id);
+        return testMethodResultService.getTestResultById(iata, id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Test result not found with id: " + id + ", iata=" + iata)))
+                .map(result -> ResponseEntity.ok(ok(ControllerMapper.toResponse(result), request)));
+    }
+
+    @GetMapping("/run-ids")
+    public Mono<ResponseEntity<ApiResponse<Map<String, Object>>>> getRunIds(
+            @PathVariable String iata,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", required = false) Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            ServerHttpRequest request) {
+        int pageIndex = Math.max(page, 0);
+        int pageSize = size == null ? defaultRunIdPageSize : Math.min(Math.max(size, 1), maxRunIdPageSize);
+        Flux<String> runIds = cursor != null && !cursor.isBlank()
+                ? testMethodResultService.getRunIdsAfter(iata, cursor, pageSize)
+                : testMethodResultService.getRunIdsPage(iata, pageIndex, pageSize);
+        return runIds.collectList().map(ids -> {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("page", pageIndex);
+            payload.put("size", pageSize);
+            payload.put("runIds", ids);
+            payload.put("nextCursor", ids.size() == pageSize ? ids.get(ids.size() - 1) : null);
+            return ResponseEntity.ok(ok(payload, request));
+        });
+    }
+
+    private Mono<ResponseEntity<ApiResponse<List<TestMethodResultResponse>>>> toListResponse(RunQuery runQuery, ResultView view, ServerHttpRequest request) {
+        return testMethodResultService.getTestResults(runQuery, view)
+                .map(results -> ResponseEntity.ok(ok(results.stream().map(ControllerMapper::toResponse).toList(), request)));
+    }
+
+    private static <T> ApiResponse<T> ok(T data, ServerHttpRequest request) {
+        return ApiResponse.<T>builder()
+                .success(true)
+                .data(data)
+                .message("OK")
+                .timestamp(Instant.now())
+                .path(request.getPath().value())
+                .build();
+    }
+
+    private String normalizeStatus(String status) {
+        if (status == null || status.isBlank()) {
+            return null;
+        }
+        String normalizedStatus = status.trim().toUpperCase();
+        if (!("PASS".equals(normalizedStatus) || "FAIL".equals(normalizedStatus) || "SKIP".equals(normalizedStatus))) {
+            throw new IllegalArgumentException("Invalid value for query parameter 'status': '" + status + "'. Allowed values are PASS, FAIL, SKIP. Use ?status=PASS|FAIL|SKIP");
+        }
+        return normalizedStatus;
+    }
+}
@@ -0,0 +1,53 @@
+package aero.airfi.qa.reactive.exception;
+
+import aero.airfi.qa.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.MethodNotAllowedException;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.URI;
+import java.time.Instant;
+
+/**
+ * The servlet service's {@code GlobalExceptionHandler} for WebFlux, so both deployments answer with the same problem details.
+ */
+@RestControllerAdvice
+@Slf4j
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<ProblemDetail> handleResourceNotFound(ResourceNotFoundException ex, ServerWebExchange exchange) {
+        log.warn("Resource not found path={} message={}", path(exchange), ex.getMessage());
+        return problem(HttpStatus.NOT_FOUND, "Resource Not Found", ex.getMessage(), exchange);
+    }
+
+    @ExceptionHandler(MethodNotAllowedException.class)
+    public ResponseEntity<ProblemDetail> handleMethodNotSupported(MethodNotAllowedException ex, ServerWebExchange exchange) {
+        log.warn("Method not allowed path={} method={} supported={}", path(exchange), ex.getHttpMethod(), ex.getSupportedMethods());
+        return problem(HttpStatus.METHOD_NOT_ALLOWED, "Method Not Allowed", ex.getReason(), exchange);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ProblemDetail> handleIllegalArgument(IllegalArgumentException ex, ServerWebExchange exchange) {
+        log.warn("Bad request path={} message={}", path(exchange), ex.getMessage());
+        return problem(HttpStatus.BAD_REQUEST, "Invalid Request Parameter", ex.getMessage(), exchange);
+    }
+
+    private static ResponseEntity<ProblemDetail> problem(HttpStatus status, String title, String detail, ServerWebExchange exchange) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(status, detail);
+        problem.setTitle(title);
+        problem.setType(URI.create("about:blank"));
+        problem.setProperty("timestamp", Instant.now());
+        problem.setProperty("path", path(exchange));
+        return ResponseEntity.status(status).body(problem);
+    }
+
+    private static String path(ServerWebExchange exchange) {
+        return exchange.getRequest().getPath().value();
+    }
+}
@@ -0,0 +1,26 @@
+package aero.airfi.qa.reactive.repository;
+
+import aero.airfi.qa.model.TestMethodResult;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A collection holding test method results, with the reactive template of the database it lives in. Resolved per
+ * IATA by the {@link ReactiveTenantRouter}.
+ */
+public record ReactiveResultCollection(ReactiveMongoTemplate template, String name) {
+
+    public Flux<TestMethodResult> find(Query query) {
+        return template.find(query, TestMethodResult.class, name);
+    }
+
+    public Mono<TestMethodResult> findOne(Query query) {
+        return template.findOne(query, TestMethodResult.class, name);
+    }
+
+    public Mono<Boolean> exists(Query query) {
+        return template.exists(query, TestMethodResult.class, name);
+    }
+}
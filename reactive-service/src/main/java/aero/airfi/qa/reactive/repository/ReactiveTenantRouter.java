@@ -0,0 +1,98 @@
+package aero.airfi.qa.reactive.repository;
+
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.TenantRouter;
+import com.mongodb.reactivestreams.client.MongoClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The reactive side of {@link TenantRouter}: resolves the collections holding an IATA's results from the same
+ * {@code qa.tenancy.routes} and {@code qa.tenancy.isolation}. Migration is done by the servlet service, so a routed
+ * IATA reads its tenant collection and then the shared one until this instance sees no result of the IATA left in
+ * the shared collection.
+ */
+@Component
+@Slf4j
+public class ReactiveTenantRouter {
+
+    private final MongoClient mongoClient;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final String database;
+    private final String collection;
+    private final boolean databaseIsolation;
+    private final Map<String, String> tenantsByIata;
+    private final ReactiveResultCollection shared;
+    private final Set<String> migrated = ConcurrentHashMap.newKeySet();
+    private final Map<String, ReactiveMongoTemplate> templates = new ConcurrentHashMap<>();
+
+    public ReactiveTenantRouter(MongoClient mongoClient, ReactiveMongoTemplate reactiveMongoTemplate, MongoProperties mongoProperties,
+                                @Value("${qa.tenancy.routes:}") String routes,
+                                @Value("${qa.tenancy.isolation:collection}") String isolation) {
+        this.mongoClient = mongoClient;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.database = mongoProperties.getMongoClientDatabase();
+        this.collection = reactiveMongoTemplate.getCollectionName(TestMethodResult.class);
+        this.databaseIsolation = "database".equalsIgnoreCase(isolation.trim());
+        if (!databaseIsolation && !"collection".equalsIgnoreCase(isolation.trim())) {
+            throw new IllegalArgumentException("Unknown qa.tenancy.isolation: " + isolation + ", expected collection or database");
+        }
+        this.tenantsByIata = TenantRouter.parseRoutes(routes);
+        this.shared = new ReactiveResultCollection(reactiveMongoTemplate, collection);
+        if (!tenantsByIata.isEmpty()) {
+            log.info("Tenant routing by {} for {}", databaseIsolation ? "database" : "collection", tenantsByIata);
+        }
+    }
+
+    /**
+     * The collection new results of the IATA are written to by the servlet service.
+     */
+    public ReactiveResultCollection route(String iata) {
+        String tenant = tenantsByIata.get(iata);
+        if (tenant == null) {
+            return shared;
+        }
+        return databaseIsolation
+                ? new ReactiveResultCollection(template(database + "_" + tenant), collection)
+                : new ReactiveResultCollection(reactiveMongoTemplate, collection + "_" + tenant);
+    }
+
+    /**
+     * Every collection that may hold results of the IATA: its route, then the shared collection while it still
+     * holds results of the IATA.
+     */
+    public Mono<List<ReactiveResultCollection>> readRoutes(String iata) {
+        ReactiveResultCollection route = route(iata);
+        if (route.equals(shared) || migrated.contains(iata)) {
+            return Mono.just(List.of(route));
+        }
+        return shared.exists(new Query(Criteria.where("iata").is(iata))).map(pending -> {
+            if (pending) {
+                return List.of(route, shared);
+            }
+            migrated.add(iata);
+            return List.of(route);
+        });
+    }
+
+    public ReactiveResultCollection shared() {
+        return shared;
+    }
+
+    private ReactiveMongoTemplate template(String databaseName) {
+        return templates.computeIfAbsent(databaseName, name ->
+                new ReactiveMongoTemplate(new SimpleReactiveMongoDatabaseFactory(mongoClient, name), reactiveMongoTemplate.getConverter()));
+    }
+}
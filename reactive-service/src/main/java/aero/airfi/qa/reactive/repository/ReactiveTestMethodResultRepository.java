@@ -0,0 +1,9 @@
+package aero.airfi.qa.reactive.repository;
+
+import aero.airfi.qa.model.TestMethodResult;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveTestMethodResultRepository extends ReactiveMongoRepository<TestMethodResult, String>, ReactiveTestMethodResultRepositoryCustom {
+}
@@ -0,0 +1,21 @@
+package aero.airfi.qa.reactive.repository;
+
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveTestMethodResultRepositoryCustom {
+
+    /**
+     * Streams the results of a run from a server-side cursor, reading only the fields of the given view.
+     * Batches are requested from the server as the subscriber demands them.
+     */
+    Flux<TestMethodResult> findRun(RunQuery runQuery, ResultView view);
+
+    /**
+     * The result with the given id among the IATA's results, looked up in every collection that may hold them.
+     */
+    Mono<TestMethodResult> findInTenant(String iata, String id);
+}
@@ -0,0 +1,51 @@
+package aero.airfi.qa.reactive.repository;
+
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashSet;
+import java.util.Set;
+
+class ReactiveTestMethodResultRepositoryCustomImpl implements ReactiveTestMethodResultRepositoryCustom {
+
+    private final ReactiveTenantRouter tenantRouter;
+    private final int cursorBatchSize;
+
+    ReactiveTestMethodResultRepositoryCustomImpl(ReactiveTenantRouter tenantRouter,
+                                                 @Value("${qa.query.cursor-batch-size:500}") int cursorBatchSize) {
+        this.tenantRouter = tenantRouter;
+        this.cursorBatchSize = cursorBatchSize;
+    }
+
+    /**
+     * While the IATA is being migrated its tenant collection is read first and the shared one second, the first copy
+     * of an id winning; a result being migrated can briefly be in both.
+     */
+    @Override
+    public Flux<TestMethodResult> findRun(RunQuery runQuery, ResultView view) {
+        Query query = runQuery.toQuery(view).cursorBatchSize(cursorBatchSize);
+        return tenantRouter.readRoutes(runQuery.getIata()).flatMapMany(routes -> {
+            if (routes.size() == 1) {
+                return routes.get(0).find(query);
+            }
+            Set<String> seen = new HashSet<>();
+            return Flux.fromIterable(routes)
+                    .concatMap(route -> route.find(query))
+                    .filter(result -> seen.add(result.getId()));
+        });
+    }
+
+    @Override
+    public Mono<TestMethodResult> findInTenant(String iata, String id) {
+        Query query = new Query(Criteria.where("_id").is(id).and("iata").is(iata));
+        return tenantRouter.readRoutes(iata).flatMap(routes -> Flux.fromIterable(routes)
+                .concatMap(route -> route.findOne(query))
+                .next());
+    }
+}
@@ -0,0 +1,58 @@
+package aero.airfi.qa.reactive.service;
+
+import aero.airfi.qa.model.ArchivedRun;
+import aero.airfi.qa.model.RunCatalogEntry;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import aero.airfi.qa.service.RunArchive;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Reads the cold tier written by the servlet service's {@link RunArchive}: the {@code archivedRuns} index from
+ * Mongo and the segments from {@code qa.retention.archive-dir}, which must be the servlet service's archive directory.
+ * Segments are read on the bounded elastic scheduler, as file reads block.
+ */
+@Component
+public class ReactiveRunArchive {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final Path directory;
+
+    public ReactiveRunArchive(ReactiveMongoTemplate reactiveMongoTemplate,
+                              @Value("${qa.retention.archive-dir:archive}") String directory) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+    }
+
+    public Mono<ArchivedRun> find(String iata, String runId) {
+        return reactiveMongoTemplate.findById(ArchivedRun.key(iata, runId), ArchivedRun.class);
+    }
+
+    /**
+     * Whether the run's hot results were all deleted after archiving; see {@link RunArchive#hotResultsDeleted}.
+     */
+    public Mono<Boolean> hotResultsDeleted(String iata, String runId) {
+        return reactiveMongoTemplate.exists(new Query(Criteria.where("iata").is(iata).and("runId").is(runId).and("archivedAt").exists(true)),
+                RunCatalogEntry.class);
+    }
+
+    /**
+     * Streams the archived results matching the query in (className, methodName) order.
+     */
+    public Flux<TestMethodResult> streamRun(ArchivedRun archived, RunQuery runQuery, ResultView view) {
+        return Flux.using(() -> RunArchive.readRun(directory.resolve(archived.getSegment()), runQuery, view), Flux::fromStream, Stream::close)
+                .map(document -> reactiveMongoTemplate.getConverter().read(TestMethodResult.class, document))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
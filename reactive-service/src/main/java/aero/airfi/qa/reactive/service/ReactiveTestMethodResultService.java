@@ -0,0 +1,162 @@
+package aero.airfi.qa.reactive.service;
+
+import aero.airfi.qa.exception.ResourceNotFoundException;
+import aero.airfi.qa.model.FailureSignature;
+import aero.airfi.qa.model.PayloadBlob;
+import aero.airfi.qa.model.PayloadRef;
+import aero.airfi.qa.model.RunCatalogEntry;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.reactive.repository.ReactiveTestMethodResultRepository;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import aero.airfi.qa.service.FailureSignatureService;
+import aero.airfi.qa.service.PayloadCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read side of the result API on the reactive driver. Writes, and the summary, catalog and cache they maintain,
+ * stay with the servlet service; this one reads the same collections.
+ */
+@Service
+@Slf4j
+public class ReactiveTestMethodResultService {
+
+    private final ReactiveTestMethodResultRepository testMethodResultRepository;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ReactiveRunArchive runArchive;
+    private final int hydrateBatchSize;
+
+    public ReactiveTestMethodResultService(ReactiveTestMethodResultRepository testMethodResultRepository,
+                                           ReactiveMongoTemplate reactiveMongoTemplate, ReactiveRunArchive runArchive,
+                                           @Value("${qa.reactive.hydrate-batch-size:100}") int hydrateBatchSize) {
+        this.testMethodResultRepository = testMethodResultRepository;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.runArchive = runArchive;
+        this.hydrateBatchSize = Math.max(hydrateBatchSize, 1);
+    }
+
+    /**
+     * Streams the matching results as the subscriber requests them. Unlike {@link #getTestResults} an unknown
+     * run completes empty. Offloaded payloads are restored per batch of {@code qa.reactive.hydrate-batch-size}.
+     * Archived runs stream their segment; while the run still has hot results, those come first and only their ids
+     * are kept to skip their archived copies.
+     */
+    public Flux<TestMethodResult> streamTestResults(RunQuery runQuery, ResultView view) {
+        log.debug("Streaming results {} view={}", runQuery, view.isFull() ? "full" : view.getFields());
+        Flux<TestMethodResult> results = runArchive.find(runQuery.getIata(), runQuery.getRunId())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMapMany(archived -> {
+                    if (archived.isEmpty()) {
+                        return testMethodResultRepository.findRun(runQuery, view);
+                    }
+                    return runArchive.hotResultsDeleted(runQuery.getIata(), runQuery.getRunId()).flatMapMany(hotDeleted -> {
+                        if (hotDeleted) {
+                            return runArchive.streamRun(archived.get(), runQuery, view);
+                        }
+                        Set<String> hotIds = ConcurrentHashMap.newKeySet();
+                        return testMethodResultRepository.findRun(runQuery, view)
+                                .doOnNext(result -> hotIds.add(result.getId()))
+                                .concatWith(Flux.defer(() -> runArchive.streamRun(archived.get(), runQuery, view)
+                                        .filter(result -> !hotIds.contains(result.getId()))));
+                    });
+                });
+        if (!view.readsPayloads()) {
+            return results;
+        }
+        return results.buffer(hydrateBatchSize).concatMap(this::hydrate);
+    }
+
+    /**
+     * Collects the matching results; an empty result is reported as not found unless a status filter was applied.
+     */
+    public Mono<List<TestMethodResult>> getTestResults(RunQuery runQuery, ResultView view) {
+        return streamTestResults(runQuery, view)
+                .collectList()
+                .flatMap(results -> results.isEmpty() && runQuery.getStatus() == null
+                        ? Mono.error(new ResourceNotFoundException(runQuery.notFoundMessage()))
+                        : Mono.just(results));
+    }
+
+    public Mono<TestMethodResult> getTestResultById(String iata, String id) {
+        return testMethodResultRepository.findInTenant(iata, id).flatMap(result -> hydrate(List.of(result)).next());
+    }
+
+    /**
+     * Keyset page of the run catalog, newest runId first; see {@code RunCatalogService#getRunIdsAfter}.
+     */
+    public Flux<String> getRunIdsAfter(String iata, String cursor, int size) {
+        Criteria criteria = Criteria.where("iata").is(iata);
+        if (cursor != null) {
+            criteria.and("runId").lt(cursor);
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "runId")).limit(Math.max(size, 1));
+        query.fields().include("runId");
+        return reactiveMongoTemplate.find(query, RunCatalogEntry.class).map(RunCatalogEntry::getRunId);
+    }
+
+    public Flux<String> getRunIdsPage(String iata, int page, int size) {
+        Query query = new Query(Criteria.where("iata").is(iata))
+                .with(Sort.by(Sort.Direction.DESC, "runId"))
+                .skip((long) Math.max(page, 0) * Math.max(size, 1))
+                .limit(Math.max(size, 1));
+        query.fields().include("runId");
+        return reactiveMongoTemplate.find(query, RunCatalogEntry.class).map(RunCatalogEntry::getRunId);
+    }
+
+    /**
+     * Restores the offloaded payloads of a batch with one blob query, like {@code PayloadStore#hydrate}, then the
+     * de-duplicated stack traces with one signature query.
+     */
+    private Flux<TestMethodResult> hydrate(List<TestMethodResult> results) {
+        return restorePayloads(results).flatMapMany(this::restoreStackTraces);
+    }
+
+    private Mono<List<TestMethodResult>> restorePayloads(List<TestMethodResult> results) {
+        List<String> blobIds = results.stream().flatMap(result -> PayloadCodec.refs(result).stream()).map(PayloadRef::getBlobId).distinct().toList();
+        if (blobIds.isEmpty()) {
+            return Mono.just(results);
+        }
+        return reactiveMongoTemplate.find(new Query(Criteria.where("_id").in(blobIds)), PayloadBlob.class)
+                .collectMap(PayloadBlob::getId, PayloadCodec::inflate)
+                .map(payloads -> {
+                    if (payloads.size() < blobIds.size()) {
+                        log.warn("{} of {} referenced payload blobs are missing", blobIds.size() - payloads.size(), blobIds.size());
+                    }
+                    return results.stream().map(result -> PayloadCodec.refs(result).isEmpty()
+                            ? result
+                            : PayloadCodec.restore(result, ref -> payloads.get(ref.getBlobId()))).toList();
+                });
+    }
+
+    private Flux<TestMethodResult> restoreStackTraces(List<TestMethodResult> results) {
+        List<String> keys = results.stream().flatMap(result -> FailureSignatureService.missingTraceKeys(result).stream()).distinct().toList();
+        if (keys.isEmpty()) {
+            return Flux.fromIterable(results);
+        }
+        Query query = new Query(Criteria.where("_id").in(keys));
+        query.fields().include("sampleStackTrace");
+        return reactiveMongoTemplate.find(query, FailureSignature.class)
+                .filter(signature -> signature.getSampleStackTrace() != null)
+                .collectMap(FailureSignature::getId, FailureSignature::getSampleStackTrace)
+                .flatMapMany(traces -> Flux.fromIterable(results).map(result -> restore(result, traces)));
+    }
+
+    private static TestMethodResult restore(TestMethodResult result, Map<String, String> traces) {
+        return FailureSignatureService.missingTraceKeys(result).isEmpty() ? result : FailureSignatureService.restoreStackTraces(result, traces);
+    }
+}
@@ -0,0 +1,13 @@
+package aero.airfi.qa.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class ReactiveQaTestResultServiceApplicationTests {
+
+	@Test
+	void contextLoads() {
+	}
+
+}
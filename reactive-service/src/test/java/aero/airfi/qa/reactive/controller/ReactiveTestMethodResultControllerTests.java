@@ -0,0 +1,119 @@
+package aero.airfi.qa.reactive.controller;
+
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.reactive.service.ReactiveTestMethodResultService;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(ReactiveTestMethodResultController.class)
+class ReactiveTestMethodResultControllerTests {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@MockitoBean
+	private ReactiveTestMethodResultService testMethodResultService;
+
+	@Test
+	void runResultsAreWrappedInAnApiResponse() {
+		when(testMethodResultService.getTestResults(any(RunQuery.class), any(ResultView.class))).thenReturn(Mono.just(List.of(result("r1"), result("r2"))));
+
+		webTestClient.get().uri("/api/DXB/test-results/run-1?status=fail")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.success").isEqualTo(true)
+				.jsonPath("$.path").isEqualTo("/api/DXB/test-results/run-1")
+				.jsonPath("$.data.length()").isEqualTo(2)
+				.jsonPath("$.data[0].id").isEqualTo("r1");
+
+		ArgumentCaptor<RunQuery> query = ArgumentCaptor.forClass(RunQuery.class);
+		verify(testMethodResultService).getTestResults(query.capture(), any(ResultView.class));
+		assertThat(query.getValue().getIata()).isEqualTo("DXB");
+		assertThat(query.getValue().getRunId()).isEqualTo("run-1");
+		assertThat(query.getValue().getStatus()).isEqualTo("FAIL");
+	}
+
+	@Test
+	void ndjsonStreamsOneResultPerLine() {
+		when(testMethodResultService.streamTestResults(any(RunQuery.class), any(ResultView.class))).thenReturn(Flux.just(result("r1"), result("r2")));
+
+		String body = webTestClient.get().uri("/api/DXB/test-results/feature/Seats?runId=run-1")
+				.accept(MediaType.APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+				.expectBody(String.class)
+				.returnResult()
+				.getResponseBody();
+
+		assertThat(body.lines().toList()).hasSize(2).satisfiesExactly(
+				line -> assertThat(line).contains("\"id\":\"r1\""),
+				line -> assertThat(line).contains("\"id\":\"r2\""));
+	}
+
+	@Test
+	void invalidStatusIsABadRequest() {
+		webTestClient.get().uri("/api/DXB/test-results/run-1?status=broken")
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("$.title").isEqualTo("Invalid Request Parameter")
+				.jsonPath("$.path").isEqualTo("/api/DXB/test-results/run-1");
+
+		verifyNoInteractions(testMethodResultService);
+	}
+
+	@Test
+	void unknownIdIsNotFound() {
+		when(testMethodResultService.getTestResultById("DXB", "missing")).thenReturn(Mono.empty());
+
+		webTestClient.get().uri("/api/DXB/test-results/id/missing")
+				.exchange()
+				.expectStatus().isNotFound()
+				.expectBody()
+				.jsonPath("$.title").isEqualTo("Resource Not Found");
+	}
+
+	@Test
+	void fullRunIdPageHasANextCursor() {
+		when(testMethodResultService.getRunIdsAfter("DXB", "run-9", 2)).thenReturn(Flux.just("run-8", "run-7"));
+
+		webTestClient.get().uri("/api/DXB/test-results/run-ids?size=2&cursor=run-9")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.data.runIds[1]").isEqualTo("run-7")
+				.jsonPath("$.data.nextCursor").isEqualTo("run-7");
+	}
+
+	private static TestMethodResult result(String id) {
+		return TestMethodResult.builder()
+				.id(id)
+				.iata("DXB")
+				.runId("run-1")
+				.className("a.A")
+				.methodName("m")
+				.status("FAIL")
+				.build();
+	}
+
+}
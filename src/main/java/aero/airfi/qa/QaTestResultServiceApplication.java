@@ -2,8 +2,10 @@ package aero.airfi.qa;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class QaTestResultServiceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,66 @@
+package aero.airfi.qa.config;
+
+import aero.airfi.qa.model.RunCatalogEntry;
+import aero.airfi.qa.repository.TenantRouter;
+import com.mongodb.MongoException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The IATAs metrics are tagged with: those listed in {@code qa.metrics.iatas}, the tenant routes, and those with runs
+ * in the run catalog, re-read every {@code qa.metrics.iatas-refresh-ms}. Requests for any other IATA are tagged
+ * {@code OTHER}, so a path variable sent by a client cannot create time series; an IATA's first run shows up under
+ * its own tag after the next refresh.
+ */
+@Component
+@Slf4j
+public class KnownIatas {
+
+    private final MongoTemplate readTemplate;
+    private final Set<String> fixed;
+    private volatile Set<String> known;
+
+    public KnownIatas(@Qualifier("readTemplate") MongoTemplate readTemplate, TenantRouter tenantRouter,
+                      @Value("${qa.metrics.iatas:}") String iatas) {
+        this.readTemplate = readTemplate;
+        Set<String> fixed = new HashSet<>();
+        Arrays.stream(iatas.split(",")).map(String::trim).filter(iata -> !iata.isEmpty()).map(KnownIatas::normalize).forEach(fixed::add);
+        tenantRouter.routedIatas().stream().map(KnownIatas::normalize).forEach(fixed::add);
+        this.fixed = Set.copyOf(fixed);
+        this.known = this.fixed;
+    }
+
+    public boolean contains(String iata) {
+        return known.contains(iata);
+    }
+
+    @Scheduled(fixedDelayString = "${qa.metrics.iatas-refresh-ms:300000}")
+    public void refresh() {
+        try {
+            Set<String> refreshed = new HashSet<>(fixed);
+            readTemplate.findDistinct(new Query(), "iata", RunCatalogEntry.class, String.class).stream()
+                    .filter(Objects::nonNull)
+                    .map(KnownIatas::normalize)
+                    .forEach(refreshed::add);
+            known = Set.copyOf(refreshed);
+        } catch (MongoException | DataAccessException ex) {
+            log.warn("Failed to refresh the IATAs tagged in metrics: {}", ex.getMessage());
+        }
+    }
+
+    static String normalize(String iata) {
+        return iata.trim().toUpperCase(Locale.ROOT);
+    }
+}
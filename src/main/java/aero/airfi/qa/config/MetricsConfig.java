@@ -0,0 +1,29 @@
+package aero.airfi.qa.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+
+/**
+ * Adds {@code iata} and {@code shape} tags to {@code http.server.requests}, so latency can be broken down per
+ * airline and per query variant. Histogram buckets are enabled in {@code application.properties}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public ServerRequestObservationConvention serverRequestObservationConvention(KnownIatas knownIatas) {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context).and(
+                        KeyValue.of("iata", RequestTags.iata(context.getCarrier(), knownIatas)),
+                        KeyValue.of("shape", RequestTags.shape(context.getCarrier())));
+            }
+        };
+    }
+}
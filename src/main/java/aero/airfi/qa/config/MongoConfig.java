@@ -4,9 +4,13 @@ import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
@@ -26,6 +30,23 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
     @Value("${spring.data.mongodb.port}")
     private int port;
 
+    @Value("${qa.mongo.pool.max-size:100}")
+    private int poolMaxSize;
+
+    @Value("${qa.mongo.pool.max-wait-ms:5000}")
+    private long poolMaxWaitMs;
+
+    @Value("${qa.mongo.pool.max-connecting:2}")
+    private int poolMaxConnecting;
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<MongoClientSettingsBuilderCustomizer> settingsCustomizers;
+
+    public MongoConfig(MeterRegistry meterRegistry, ObjectProvider<MongoClientSettingsBuilderCustomizer> settingsCustomizers) {
+        this.meterRegistry = meterRegistry;
+        this.settingsCustomizers = settingsCustomizers;
+    }
+
     @Override
     protected String getDatabaseName() {
         return databaseName;
@@ -38,14 +59,16 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
                 String.format("mongodb://%s:%d/%s", host, port, databaseName)
         );
 
-        MongoClientSettings mongoClientSettings = MongoClientSettings.builder()
+        MongoClientSettings.Builder mongoClientSettings = MongoClientSettings.builder()
                 .applyConnectionString(connectionString)
                 .applyToConnectionPoolSettings(builder -> 
-                    builder.maxSize(100)
+                    builder.maxSize(poolMaxSize)
                            .minSize(5)
-                           .maxWaitTime(5000, TimeUnit.MILLISECONDS)
+                           .maxWaitTime(poolMaxWaitMs, TimeUnit.MILLISECONDS)
+                           .maxConnecting(poolMaxConnecting)
                            .maxConnectionLifeTime(30, TimeUnit.MINUTES)
                            .maxConnectionIdleTime(10, TimeUnit.MINUTES)
+                           .addConnectionPoolListener(new MongoPoolWaitListener(meterRegistry))
                 )
                 .applyToSocketSettings(builder -> 
                     builder.connectTimeout(5000, TimeUnit.MILLISECONDS)
@@ -54,14 +77,25 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
                 .applyToServerSettings(builder -> 
                     builder.heartbeatFrequency(10000, TimeUnit.MILLISECONDS)
                            .minHeartbeatFrequency(500, TimeUnit.MILLISECONDS)
-                )
-                .build();
+                );
+        // the actuator's customizers add the mongodb.driver.commands timer and the mongodb.driver.pool.* gauges
+        settingsCustomizers.orderedStream().forEach(customizer -> customizer.customize(mongoClientSettings));
 
-        return MongoClients.create(mongoClientSettings);
+        return MongoClients.create(mongoClientSettings.build());
     }
 
     @Bean
+    @Primary
     public MongoTemplate mongoTemplate() throws Exception {
         return new MongoTemplate(mongoClient(), getDatabaseName());
     }
+
+    /**
+     * Template of the query endpoints, reading with {@code qa.mongo.read.*} so dashboards can be served by
+     * secondaries while ingestion writes to the primary. Inject with {@code @Qualifier("readTemplate")}.
+     */
+    @Bean
+    public MongoTemplate readTemplate(MongoReadSettings readSettings) throws Exception {
+        return readSettings.template(mongoClient(), getDatabaseName(), mongoTemplate().getConverter());
+    }
 }
@@ -0,0 +1,192 @@
+package aero.airfi.qa.config;
+
+import aero.airfi.qa.model.MethodHistory;
+import aero.airfi.qa.model.RunCatalogEntry;
+import aero.airfi.qa.model.RunSummary;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultCollection;
+import aero.airfi.qa.repository.TenantRouter;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.MongoException;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the declared indexes at startup and checks, with {@code explain}, that every query shape the
+ * service issues is answered by an index. Result query shapes are checked against every result collection,
+ * tenant collections included. A shape whose winning plan is a COLLSCAN or needs an in-memory SORT is logged,
+ * or aborts startup when {@code qa.mongo.index-verification=fail}.
+ */
+@Component
+@Slf4j
+public class MongoIndexVerifier {
+
+    private static final List<Class<?>> INDEXED_ENTITIES = List.of(TestMethodResult.class, RunSummary.class, RunCatalogEntry.class, MethodHistory.class);
+
+    private static final String SAMPLE = "__index_verification__";
+
+    private final MongoTemplate mongoTemplate;
+    private final TenantRouter tenantRouter;
+
+    @Value("${spring.data.mongodb.auto-index-creation:false}")
+    private boolean autoIndexCreation;
+
+    @Value("${qa.mongo.index-verification:warn}")
+    private String verificationMode;
+
+    public MongoIndexVerifier(MongoTemplate mongoTemplate, TenantRouter tenantRouter) {
+        this.mongoTemplate = mongoTemplate;
+        this.tenantRouter = tenantRouter;
+    }
+
+    /**
+     * Runs ahead of other ready listeners so indexes they rely on, such as the unique key a {@code $merge} targets, exist.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void verifyIndexes() {
+        String mode = verificationMode.trim().toLowerCase();
+        try {
+            if (autoIndexCreation) {
+                ensureIndexes();
+            }
+            if ("off".equals(mode)) {
+                return;
+            }
+            List<QueryShape> shapes = queryShapes();
+            List<ResultCollection> resultCollections = tenantRouter.all();
+            List<String> problems = new ArrayList<>();
+            for (QueryShape shape : shapes) {
+                if (shape.entity() == TestMethodResult.class) {
+                    for (ResultCollection route : resultCollections) {
+                        problems.addAll(shape.check(route.template(), route.name()));
+                    }
+                } else {
+                    problems.addAll(shape.check(mongoTemplate, mongoTemplate.getCollectionName(shape.entity())));
+                }
+            }
+            if (problems.isEmpty()) {
+                log.info("Index verification passed for {} query shapes on {} result collections", shapes.size(), resultCollections.size());
+            } else if ("fail".equals(mode)) {
+                throw new IllegalStateException("Index verification failed: " + String.join("; ", problems));
+            } else {
+                problems.forEach(problem -> log.warn("Index verification: {}", problem));
+            }
+        } catch (MongoException | DataAccessException ex) {
+            log.warn("Skipping index verification, MongoDB is not reachable: {}", ex.getMessage());
+        }
+    }
+
+    private void ensureIndexes() {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            IndexOperations indexOps = mongoTemplate.indexOps(entity);
+            for (IndexDefinition index : resolver.resolveIndexFor(entity)) {
+                try {
+                    indexOps.createIndex(index);
+                } catch (DataAccessException ex) {
+                    if (ex.getCause() instanceof MongoException mongoEx && mongoEx.getCode() > 0) {
+                        log.warn("Could not create index {} on {}: {}", index.getIndexKeys(), mongoTemplate.getCollectionName(entity), mongoEx.getMessage());
+                    } else {
+                        throw ex;
+                    }
+                }
+            }
+        }
+    }
+
+    private List<QueryShape> queryShapes() {
+        return List.of(
+                QueryShape.find("run",
+                        new Document("runId", SAMPLE).append("iata", SAMPLE)),
+                QueryShape.find("run+status",
+                        new Document("runId", SAMPLE).append("status", SAMPLE).append("iata", SAMPLE)),
+                QueryShape.find("run+suiteType",
+                        new Document("runId", SAMPLE).append("suiteType", SAMPLE).append("iata", SAMPLE)),
+                QueryShape.find("run+suiteType+status",
+                        new Document("runId", SAMPLE).append("suiteType", SAMPLE).append("status", SAMPLE).append("iata", SAMPLE)),
+                QueryShape.find("run+featureName",
+                        new Document("runId", SAMPLE).append("featureName", SAMPLE).append("iata", SAMPLE)),
+                QueryShape.find("run+featureName+status",
+                        new Document("runId", SAMPLE).append("featureName", SAMPLE).append("status", SAMPLE).append("iata", SAMPLE)),
+                QueryShape.find("run by method", TestMethodResult.class,
+                        new Document("iata", SAMPLE).append("runId", SAMPLE), new Document("className", 1).append("methodName", 1)),
+                QueryShape.find("run catalog page", RunCatalogEntry.class,
+                        new Document("iata", SAMPLE), new Document("runId", -1)),
+                QueryShape.find("run catalog keyset", RunCatalogEntry.class,
+                        new Document("iata", SAMPLE).append("runId", new Document("$lt", SAMPLE)), new Document("runId", -1)),
+                QueryShape.find("retention candidates", RunCatalogEntry.class,
+                        new Document("iata", SAMPLE).append("lastSeen", new Document("$lt", new Date(0))).append("archivedAt", new Document("$exists", false)),
+                        new Document("lastSeen", 1)),
+                QueryShape.find("run summary", RunSummary.class,
+                        new Document("iata", SAMPLE).append("runId", SAMPLE)),
+                QueryShape.find("flaky candidates", MethodHistory.class,
+                        new Document("iata", SAMPLE).append("entries.status", new Document("$all", List.of("PASS", "FAIL"))))
+        );
+    }
+
+    /**
+     * A find the service issues, with an optional sort.
+     */
+    private record QueryShape(String name, Class<?> entity, Document filter, Document sort) {
+
+        static QueryShape find(String name, Document filter) {
+            return find(name, TestMethodResult.class, filter);
+        }
+
+        static QueryShape find(String name, Class<?> entity, Document filter) {
+            return find(name, entity, filter, null);
+        }
+
+        static QueryShape find(String name, Class<?> entity, Document filter, Document sort) {
+            return new QueryShape(name, entity, filter, sort);
+        }
+
+        List<String> check(MongoTemplate template, String collectionName) {
+            Document explain = template.getCollection(collectionName).find(filter).sort(sort).explain(ExplainVerbosity.QUERY_PLANNER);
+            List<String> stages = new ArrayList<>();
+            collectWinningStages(explain, false, stages);
+            String target = template.getDb().getName() + "." + collectionName;
+            List<String> problems = new ArrayList<>();
+            if (stages.contains("COLLSCAN")) {
+                problems.add(name + " uses a COLLSCAN on " + target);
+            }
+            if (stages.contains("SORT")) {
+                problems.add(name + " needs an in-memory SORT on " + target);
+            }
+            return problems;
+        }
+
+        private static void collectWinningStages(Object node, boolean inWinningPlan, List<String> stages) {
+            if (node instanceof Map<?, ?> map) {
+                if (inWinningPlan && map.get("stage") instanceof String stage) {
+                    stages.add(stage);
+                }
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    if ("rejectedPlans".equals(entry.getKey())) {
+                        continue;
+                    }
+                    collectWinningStages(entry.getValue(), inWinningPlan || "winningPlan".equals(entry.getKey()), stages);
+                }
+            } else if (node instanceof List<?> list) {
+                list.forEach(item -> collectWinningStages(item, inWinningPlan, stages));
+            }
+        }
+    }
+}
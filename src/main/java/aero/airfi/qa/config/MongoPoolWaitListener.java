@@ -0,0 +1,51 @@
+package aero.airfi.qa.config;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complements Micrometer's pool size/checked-out gauges with how long operations wait for a connection
+ * ({@code qa.mongo.pool.wait}) and how often they give up ({@code qa.mongo.pool.checkout.failed}); a
+ * {@code reason=timeout} failure means the pool was exhausted for {@code maxWaitTime}.
+ */
+public class MongoPoolWaitListener implements ConnectionPoolListener {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer waitTimer;
+
+    public MongoPoolWaitListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.waitTimer = Timer.builder("qa.mongo.pool.wait")
+                .description("Time spent waiting to check a connection out of the pool")
+                .tag("outcome", "success")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        waitTimer.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        String reason = event.getReason().name().toLowerCase();
+        Timer.builder("qa.mongo.pool.wait")
+                .description("Time spent waiting to check a connection out of the pool")
+                .tag("outcome", reason)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        Counter.builder("qa.mongo.pool.checkout.failed")
+                .description("Connection check-outs that failed; reason=timeout means the pool was exhausted")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,66 @@
+package aero.airfi.qa.config;
+
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadConcernLevel;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read preference and read concern of the query endpoints, applied by {@link #template} to the templates they read
+ * through. Writes, and reads of runs this instance has just written, keep using the primary.
+ */
+@Component
+public class MongoReadSettings {
+
+    private final ReadPreference readPreference;
+    private final ReadConcern readConcern;
+
+    public MongoReadSettings(@Value("${qa.mongo.read.preference:primary}") String preference,
+                             @Value("${qa.mongo.read.max-staleness-seconds:0}") long maxStalenessSeconds,
+                             @Value("${qa.mongo.read.concern:}") String concern) {
+        this.readPreference = readPreference(preference.trim(), maxStalenessSeconds);
+        this.readConcern = concern.isBlank() ? ReadConcern.DEFAULT : new ReadConcern(ReadConcernLevel.fromString(concern.trim()));
+    }
+
+    public ReadPreference getReadPreference() {
+        return readPreference;
+    }
+
+    public ReadConcern getReadConcern() {
+        return readConcern;
+    }
+
+    /**
+     * A template on the given database that reads with these settings. It shares the client, and so the pool, of
+     * the primary template.
+     */
+    public MongoTemplate template(MongoClient mongoClient, String database, MongoConverter converter) {
+        MongoTemplate template = new MongoTemplate(new SimpleMongoClientDatabaseFactory(mongoClient, database) {
+            @Override
+            protected MongoDatabase doGetMongoDatabase(String dbName) {
+                return super.doGetMongoDatabase(dbName).withReadPreference(readPreference).withReadConcern(readConcern);
+            }
+        }, converter);
+        template.setReadPreference(readPreference);
+        return template;
+    }
+
+    /**
+     * The driver rejects a max staleness on {@code primary} and below 90 seconds; 0 means no limit.
+     */
+    private static ReadPreference readPreference(String name, long maxStalenessSeconds) {
+        if (maxStalenessSeconds <= 0 || ReadPreference.primary().getName().equalsIgnoreCase(name)) {
+            return ReadPreference.valueOf(name);
+        }
+        return ReadPreference.valueOf(name, List.of(), maxStalenessSeconds, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,67 @@
+package aero.airfi.qa.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Low-cardinality tags derived from a request: the IATA path variable, limited to the {@link KnownIatas}, and the query
+ * shape, i.e. which optional filters, projections, paging and formats were used, which has a small, fixed set of values.
+ */
+final class RequestTags {
+
+    static final String NONE = "none";
+
+    private RequestTags() {}
+
+    /**
+     * The {@code {iata}} path variable, upper-cased; an IATA that is not known is reported as {@code OTHER} so
+     * arbitrary input cannot create new time series.
+     */
+    static String iata(HttpServletRequest request, KnownIatas knownIatas) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (!(variables instanceof Map<?, ?> map) || !(map.get("iata") instanceof String iata)) {
+            return NONE;
+        }
+        String normalized = KnownIatas.normalize(iata);
+        return knownIatas.contains(normalized) ? normalized : "OTHER";
+    }
+
+    /**
+     * e.g. {@code status+summary}, {@code ndjson}, {@code cursor}, or {@code default} when no optional parameter was given.
+     */
+    static String shape(HttpServletRequest request) {
+        List<String> parts = new ArrayList<>(4);
+        if (hasText(request.getParameter("status"))) {
+            parts.add("status");
+        }
+        if (hasText(request.getParameter("fields"))) {
+            parts.add("fields");
+        } else if ("summary".equalsIgnoreCase(trim(request.getParameter("view")))) {
+            parts.add("summary");
+        }
+        if (hasText(request.getParameter("cursor"))) {
+            parts.add("cursor");
+        } else if (hasText(request.getParameter("page"))) {
+            parts.add("page");
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE)) {
+            parts.add("ndjson");
+        }
+        return parts.isEmpty() ? "default" : String.join("+", parts);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+}
@@ -0,0 +1,66 @@
+package aero.airfi.qa.controller;
+
+import aero.airfi.qa.dto.ApiResponse;
+import aero.airfi.qa.dto.FlakyTestResponse;
+import aero.airfi.qa.service.MethodHistoryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/{iata}/analytics")
+@Tag(name = "Analytics Service", description = "Cross-run views maintained as results are ingested")
+@Slf4j
+public class AnalyticsController {
+
+    @Autowired
+    private MethodHistoryService methodHistoryService;
+
+    @Value("${qa.flaky.default-runs:20}")
+    private int defaultRuns;
+
+    @Value("${qa.flaky.min-runs:5}")
+    private int defaultMinRuns;
+
+    @Value("${qa.flaky.default-limit:50}")
+    private int defaultLimit;
+
+    @Value("${qa.flaky.max-limit:500}")
+    private int maxLimit;
+
+    @GetMapping("/flaky")
+    @Operation(summary = "Rank flaky tests", description = "Ranks test methods by how often they flip between PASS and FAIL over their last N runs (?runs=, capped at qa.method-history.ring-size), from the per-method history ring. The ring counts results, not runs: a method executed several times per run covers fewer runs. Methods with fewer than ?minRuns= passing or failing runs are left out. Limit via ?limit=")
+    public ResponseEntity<ApiResponse<List<FlakyTestResponse>>> getFlakyTests(
+            @PathVariable String iata,
+            @RequestParam(name = "runs", required = false) Integer runs,
+            @RequestParam(name = "minRuns", required = false) Integer minRuns,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        int effectiveRuns = Math.min(Math.max(runs == null ? defaultRuns : runs, 2), methodHistoryService.getRingSize());
+        int effectiveMinRuns = minRuns == null ? defaultMinRuns : minRuns;
+        int effectiveLimit = limit == null ? defaultLimit : Math.min(Math.max(limit, 1), maxLimit);
+        log.info("GET flaky tests iata={} runs={} minRuns={} limit={}", iata, effectiveRuns, effectiveMinRuns, effectiveLimit);
+        List<FlakyTestResponse> flaky = methodHistoryService.getFlakyMethods(iata, effectiveRuns, effectiveMinRuns, effectiveLimit).stream()
+                .map(ControllerMapper::toFlakyTestResponse)
+                .toList();
+        ApiResponse<List<FlakyTestResponse>> body = ApiResponse.<List<FlakyTestResponse>>builder()
+                .success(true)
+                .data(flaky)
+                .message("OK")
+                .timestamp(Instant.now())
+                .path(ServletUriComponentsBuilder.fromCurrentRequestUri().build().getPath())
+                .build();
+        return ResponseEntity.ok(body);
+    }
+}
@@ -1,21 +1,43 @@
 package aero.airfi.qa.controller;
 
+import aero.airfi.qa.dto.DiffSectionDto;
 import aero.airfi.qa.dto.EnvironmentInfoDto;
 import aero.airfi.qa.dto.FailureDetailDto;
+import aero.airfi.qa.dto.FailureSignatureResponse;
+import aero.airfi.qa.dto.FlakyTestResponse;
+import aero.airfi.qa.dto.MethodDiffDto;
+import aero.airfi.qa.dto.RunDiffResponse;
+import aero.airfi.qa.dto.RunSummaryResponse;
+import aero.airfi.qa.dto.SearchHitDto;
+import aero.airfi.qa.dto.SearchResponse;
 import aero.airfi.qa.dto.TestMethodResultRequest;
 import aero.airfi.qa.dto.TestMethodResultResponse;
 import aero.airfi.qa.model.EnvironmentInfo;
 import aero.airfi.qa.model.FailureDetail;
+import aero.airfi.qa.model.FailureSignature;
+import aero.airfi.qa.model.MethodHistory;
+import aero.airfi.qa.model.RunSummary;
 import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.service.FailureSignatureService;
+import aero.airfi.qa.service.IdempotencyKeys;
+import aero.airfi.qa.service.MethodHistoryService;
+import aero.airfi.qa.service.ResultSearchIndex;
+import aero.airfi.qa.service.RunDiffService;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
-final class ControllerMapper {
+/**
+ * Maps between API DTOs and entities. Public so the reactive module serves the same response shape.
+ */
+public final class ControllerMapper {
 
     private ControllerMapper() {}
 
-    static TestMethodResult toEntity(String iata, TestMethodResultRequest request) {
+    public static TestMethodResult toEntity(String iata, TestMethodResultRequest request) {
         return TestMethodResult.builder()
                 .runId(request.getRunId())
                 .iata(iata)
@@ -33,10 +55,11 @@ final class ControllerMapper {
                 .logs(request.getLogs())
                 .screenshotUrls(request.getScreenshotUrls())
                 .failures(toFailures(request.getFailures()))
+                .idempotencyKey(IdempotencyKeys.clientKey(request.getIdempotencyKey()))
                 .build();
     }
 
-    static TestMethodResultResponse toResponse(TestMethodResult entity) {
+    public static TestMethodResultResponse toResponse(TestMethodResult entity) {
         return TestMethodResultResponse.builder()
                 .id(entity.getId())
                 .runId(entity.getRunId())
@@ -58,6 +81,139 @@ final class ControllerMapper {
                 .build();
     }
 
+    public static RunSummaryResponse toSummaryResponse(RunSummary summary) {
+        return RunSummaryResponse.builder()
+                .iata(summary.getIata())
+                .runId(summary.getRunId())
+                .total(summary.getTotal())
+                .statusCounts(unescapeKeys(summary.getStatusCounts()))
+                .suiteTypeCounts(unescapeNestedKeys(summary.getSuiteTypeCounts()))
+                .featureCounts(unescapeNestedKeys(summary.getFeatureCounts()))
+                .totalDurationMs(summary.getTotalDurationMs())
+                .maxDurationMs(summary.getMaxDurationMs())
+                .startTime(summary.getStartTime())
+                .endTime(summary.getEndTime())
+                .build();
+    }
+
+    public static FailureSignatureResponse toFailureSignatureResponse(FailureSignatureService.RunFailureSignature runSignature) {
+        FailureSignature signature = runSignature.signature();
+        return FailureSignatureResponse.builder()
+                .signatureId(signature.getSignatureId())
+                .exceptionType(signature.getExceptionType())
+                .topFrame(signature.getTopFrame())
+                .sampleMessage(signature.getSampleMessage())
+                .runCount(runSignature.count())
+                .totalCount(signature.getCount())
+                .firstSeen(signature.getFirstSeen())
+                .lastSeen(signature.getLastSeen())
+                .build();
+    }
+
+    public static FlakyTestResponse toFlakyTestResponse(MethodHistoryService.FlakyMethod method) {
+        MethodHistory history = method.history();
+        List<String> statuses = method.statuses();
+        return FlakyTestResponse.builder()
+                .className(history.getClassName())
+                .methodName(history.getMethodName())
+                .featureName(history.getFeatureName())
+                .runs(method.runs())
+                .passCount(method.passCount())
+                .failCount(method.failCount())
+                .flips(method.flips())
+                .flipRate(method.flipRate())
+                .avgDurationMs(method.avgDurationMs())
+                .lastStatus(statuses.isEmpty() ? null : statuses.get(statuses.size() - 1))
+                .recentStatuses(statuses)
+                .lastSeen(history.getLastSeen())
+                .build();
+    }
+
+    public static RunDiffResponse toRunDiffResponse(RunDiffService.RunDiff diff) {
+        return RunDiffResponse.builder()
+                .iata(diff.iata())
+                .runId(diff.runId())
+                .baselineRunId(diff.baselineRunId())
+                .methods(diff.methods())
+                .baselineMethods(diff.baselineMethods())
+                .newlyFailing(toDiffSection(diff.newlyFailing()))
+                .newlyPassing(toDiffSection(diff.newlyPassing()))
+                .added(toDiffSection(diff.added()))
+                .removed(toDiffSection(diff.removed()))
+                .slower(toDiffSection(diff.slower()))
+                .build();
+    }
+
+    public static SearchResponse toSearchResponse(String query, int page, int size, ResultSearchIndex.SearchPage result) {
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        result.facets().forEach((dim, counts) -> {
+            Map<String, Long> values = new LinkedHashMap<>();
+            counts.forEach(count -> values.put(count.value(), count.count()));
+            facets.put(dim, values);
+        });
+        return SearchResponse.builder()
+                .query(query)
+                .total(result.total())
+                .page(page)
+                .size(size)
+                .hits(result.hits().stream().map(ControllerMapper::toSearchHit).toList())
+                .facets(facets)
+                .build();
+    }
+
+    private static SearchHitDto toSearchHit(ResultSearchIndex.Hit hit) {
+        return SearchHitDto.builder()
+                .id(hit.id())
+                .runId(hit.runId())
+                .status(hit.status())
+                .featureName(hit.featureName())
+                .className(hit.className())
+                .methodName(hit.methodName())
+                .startTime(hit.startTime())
+                .errorMessage(hit.errorMessage())
+                .score(hit.score())
+                .build();
+    }
+
+    private static DiffSectionDto toDiffSection(RunDiffService.Category category) {
+        return DiffSectionDto.builder()
+                .count(category.getCount())
+                .truncated(category.isTruncated())
+                .methods(category.getChanges().stream().map(ControllerMapper::toMethodDiff).toList())
+                .build();
+    }
+
+    private static MethodDiffDto toMethodDiff(RunDiffService.MethodChange change) {
+        RunDiffService.MethodOutcome candidate = change.candidate();
+        RunDiffService.MethodOutcome baseline = change.baseline();
+        RunDiffService.MethodOutcome either = candidate != null ? candidate : baseline;
+        return MethodDiffDto.builder()
+                .className(either.className())
+                .methodName(either.methodName())
+                .featureName(either.featureName())
+                .status(candidate == null ? null : candidate.status())
+                .baselineStatus(baseline == null ? null : baseline.status())
+                .durationMs(candidate == null ? null : candidate.durationMs())
+                .baselineDurationMs(baseline == null ? null : baseline.durationMs())
+                .build();
+    }
+
+    private static Map<String, Long> unescapeKeys(Map<String, Long> counts) {
+        Map<String, Long> result = new TreeMap<>();
+        if (counts != null) {
+            counts.forEach((key, count) -> result.put(RunSummary.fromKey(key), count));
+        }
+        return result;
+    }
+
+    private static Map<String, Map<String, Long>> unescapeNestedKeys(Map<String, Map<String, Long>> counts) {
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        if (counts != null) {
+            new TreeMap<>(counts).forEach((key, nested) -> result.put(RunSummary.fromKey(key), unescapeKeys(nested)));
+        }
+        return result;
+    }
+
     private static EnvironmentInfo toEnvironment(EnvironmentInfoDto dto) {
         if (dto == null) return null;
         return EnvironmentInfo.builder()
@@ -100,6 +256,7 @@ final class ControllerMapper {
                         .stackTrace(e.getStackTrace())
                         .screenshotUrl(e.getScreenshotUrl())
                         .logs(e.getLogs())
+                        .signatureId(e.getSignatureId())
                         .build())
                 .collect(Collectors.toList());
     }
@@ -0,0 +1,154 @@
+package aero.airfi.qa.controller;
+
+import aero.airfi.qa.dto.ApiResponse;
+import aero.airfi.qa.dto.FailureSignatureResponse;
+import aero.airfi.qa.dto.RunDiffResponse;
+import aero.airfi.qa.dto.RunSummaryResponse;
+import aero.airfi.qa.model.RunSummary;
+import aero.airfi.qa.service.FailureSignatureService;
+import aero.airfi.qa.service.RunDiffService;
+import aero.airfi.qa.service.RunEventBroadcaster;
+import aero.airfi.qa.service.RunExporter;
+import aero.airfi.qa.service.RunSummaryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/{iata}/runs")
+@Tag(name = "Run Service", description = "Run-level views maintained as results are ingested")
+@Slf4j
+public class RunController {
+
+    @Autowired
+    private RunSummaryService runSummaryService;
+
+    @Autowired
+    private FailureSignatureService failureSignatureService;
+
+    @Autowired
+    private RunDiffService runDiffService;
+
+    @Autowired
+    private RunEventBroadcaster runEventBroadcaster;
+
+    @Autowired
+    private RunExporter runExporter;
+
+    @Value("${qa.failure-signatures.default-limit:20}")
+    private int defaultSignatureLimit;
+
+    @Value("${qa.failure-signatures.max-limit:100}")
+    private int maxSignatureLimit;
+
+    @GetMapping("/{runId}/summary")
+    @Operation(summary = "Get run summary", description = "Returns pass/fail/skip totals by status, suite type and feature, plus duration and start/end times, from the incrementally maintained run rollup")
+    public ResponseEntity<ApiResponse<RunSummaryResponse>> getRunSummary(
+            @PathVariable String iata,
+            @PathVariable String runId) {
+        log.info("GET run summary iata={} runId={}", iata, runId);
+        RunSummaryResponse summary = ControllerMapper.toSummaryResponse(runSummaryService.getRunSummary(iata, runId));
+        ApiResponse<RunSummaryResponse> body = ApiResponse.<RunSummaryResponse>builder()
+                .success(true)
+                .data(summary)
+                .message("OK")
+                .timestamp(Instant.now())
+                .path(ServletUriComponentsBuilder.fromCurrentRequestUri().build().getPath())
+                .build();
+        return ResponseEntity.ok(body);
+    }
+
+    @GetMapping("/{runId}/failure-signatures")
+    @Operation(summary = "Get top failure signatures of a run", description = "Returns the run's failures clustered by normalized stack trace, most frequent first, from the run rollup and the failureSignatures collection. Limit via ?limit=")
+    public ResponseEntity<ApiResponse<List<FailureSignatureResponse>>> getFailureSignatures(
+            @PathVariable String iata,
+            @PathVariable String runId,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        int effectiveLimit = limit == null ? defaultSignatureLimit : Math.min(Math.max(limit, 1), maxSignatureLimit);
+        log.info("GET failure signatures iata={} runId={} limit={}", iata, runId, effectiveLimit);
+        List<FailureSignatureResponse> signatures = failureSignatureService.getTopSignatures(iata, runId, effectiveLimit).stream()
+                .map(ControllerMapper::toFailureSignatureResponse)
+                .toList();
+        ApiResponse<List<FailureSignatureResponse>> body = ApiResponse.<List<FailureSignatureResponse>>builder()
+                .success(true)
+                .data(signatures)
+                .message("OK")
+                .timestamp(Instant.now())
+                .path(ServletUriComponentsBuilder.fromCurrentRequestUri().build().getPath())
+                .build();
+        return ResponseEntity.ok(body);
+    }
+
+    @GetMapping("/{runId}/diff")
+    @Operation(summary = "Diff a run against a baseline run", description = "Merge-joins both runs in (className, methodName) order on the server and returns only newly failing, newly passing, added, removed and significantly slower methods. Slower means at least qa.diff.slower-ratio times and qa.diff.slower-min-delta-ms slower than the baseline")
+    public ResponseEntity<ApiResponse<RunDiffResponse>> getRunDiff(
+            @PathVariable String iata,
+            @PathVariable String runId,
+            @RequestParam(name = "baseline") String baseline) {
+        log.info("GET run diff iata={} runId={} baseline={}", iata, runId, baseline);
+        RunDiffResponse diff = ControllerMapper.toRunDiffResponse(runDiffService.diff(iata, runId, baseline));
+        ApiResponse<RunDiffResponse> body = ApiResponse.<RunDiffResponse>builder()
+                .success(true)
+                .data(diff)
+                .message("OK")
+                .timestamp(Instant.now())
+                .path(ServletUriComponentsBuilder.fromCurrentRequestUri().build().getPath())
+                .build();
+        return ResponseEntity.ok(body);
+    }
+
+    @GetMapping(value = "/{runId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream run progress", description = "Server-Sent Events of the run's results as they are stored: a compact result event per stored result and removed per deleted or replaced one. Reconnects with Last-Event-ID resume after that event; when events were missed a reset event is sent first and the run should be reloaded")
+    public SseEmitter streamRunEvents(
+            @PathVariable String iata,
+            @PathVariable String runId,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        log.info("GET run events iata={} runId={} lastEventId={}", iata, runId, lastEventId);
+        return runEventBroadcaster.subscribe(iata, runId, lastEventId);
+    }
+
+    @GetMapping("/{runId}/export")
+    @Operation(summary = "Export a run", description = "Downloads the whole run as JUnit XML (?format=junit), CSV (?format=csv) or a zip of Allure result files (?format=allure), written from a database cursor as it is read. ?gzip=true compresses the download into a .gz file")
+    public ResponseEntity<StreamingResponseBody> exportRun(
+            @PathVariable String iata,
+            @PathVariable String runId,
+            @RequestParam(name = "format", defaultValue = "junit") String format,
+            @RequestParam(name = "gzip", defaultValue = "false") boolean gzip) {
+        RunExporter.Format exportFormat = RunExporter.Format.of(format);
+        log.info("GET run export iata={} runId={} format={} gzip={}", iata, runId, exportFormat, gzip);
+        RunSummary summary = runExporter.checkRun(iata, runId);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                runExporter.export(summary, exportFormat, compressed);
+                compressed.finish();
+            } else {
+                runExporter.export(summary, exportFormat, out);
+            }
+        };
+        String filename = iata + "-" + runId + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
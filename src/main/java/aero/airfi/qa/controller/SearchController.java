@@ -0,0 +1,83 @@
+package aero.airfi.qa.controller;
+
+import aero.airfi.qa.dto.ApiResponse;
+import aero.airfi.qa.dto.SearchResponse;
+import aero.airfi.qa.service.ResultSearchIndex;
+import aero.airfi.qa.service.RunCatalogService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/{iata}/search")
+@Tag(name = "Search Service", description = "Full-text search over failure messages, stack traces and logs")
+@Slf4j
+public class SearchController {
+
+    @Autowired
+    private ResultSearchIndex resultSearchIndex;
+
+    @Autowired
+    private RunCatalogService runCatalogService;
+
+    @Value("${qa.search.default-size:20}")
+    private int defaultSize;
+
+    @Value("${qa.search.max-size:100}")
+    private int maxSize;
+
+    @Value("${qa.search.max-runs:1000}")
+    private int maxRuns;
+
+    @Value("${qa.search.facet-limit:10}")
+    private int facetLimit;
+
+    @GetMapping
+    @Operation(summary = "Search results", description = "Searches errorMessage, stackTrace and logs with Lucene query syntax (?q=, terms are ANDed; quote phrases). Narrow with ?status=, ?feature=, ?runId= or the latest N runs via ?runs=. Sort by relevance or ?sort=recent; page via ?page= and ?size=. Facets count status, featureName and runId over all matches")
+    public ResponseEntity<ApiResponse<SearchResponse>> search(
+            @PathVariable String iata,
+            @RequestParam(name = "q") String q,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "feature", required = false) String feature,
+            @RequestParam(name = "runId", required = false) String runId,
+            @RequestParam(name = "runs", required = false) Integer runs,
+            @RequestParam(name = "sort", defaultValue = "relevance") String sort,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", required = false) Integer size) {
+        if (!"relevance".equalsIgnoreCase(sort) && !"recent".equalsIgnoreCase(sort)) {
+            throw new IllegalArgumentException("Unknown sort: " + sort + ", expected relevance or recent");
+        }
+        int effectivePage = Math.max(page, 0);
+        int effectiveSize = size == null ? defaultSize : Math.min(Math.max(size, 1), maxSize);
+        List<String> runIds = null;
+        if (runId != null && !runId.isBlank()) {
+            runIds = List.of(runId.trim());
+        } else if (runs != null) {
+            runIds = runCatalogService.getRunIdsAfter(iata, null, Math.min(Math.max(runs, 1), maxRuns));
+        }
+        log.info("GET search iata={} q={} status={} feature={} runId={} runs={} sort={} page={} size={}",
+                iata, q, status, feature, runId, runs, sort, effectivePage, effectiveSize);
+        ResultSearchIndex.SearchPage result = resultSearchIndex.search(iata, q, status, feature, runIds,
+                "recent".equalsIgnoreCase(sort), effectivePage, effectiveSize, facetLimit);
+        ApiResponse<SearchResponse> body = ApiResponse.<SearchResponse>builder()
+                .success(true)
+                .data(ControllerMapper.toSearchResponse(q, effectivePage, effectiveSize, result))
+                .message("OK")
+                .timestamp(Instant.now())
+                .path(ServletUriComponentsBuilder.fromCurrentRequestUri().build().getPath())
+                .build();
+        return ResponseEntity.ok(body);
+    }
+}
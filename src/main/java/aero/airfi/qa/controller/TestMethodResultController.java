@@ -1,24 +1,46 @@
 package aero.airfi.qa.controller;
 
+import aero.airfi.qa.dto.BatchItemResult;
 import aero.airfi.qa.dto.TestMethodResultRequest;
 import aero.airfi.qa.dto.TestMethodResultResponse;
 import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.exception.ResourceNotFoundException;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import aero.airfi.qa.service.IdempotencyKeys;
 import aero.airfi.qa.service.TestMethodResultService;
+import aero.airfi.qa.service.WriteBehindIngestor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import aero.airfi.qa.dto.ApiResponse;
 import java.time.Instant;
@@ -32,48 +54,134 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Slf4j
 public class TestMethodResultController {
 
+    private static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     @Autowired
     private TestMethodResultService testMethodResultService;
+
+    @Autowired
+    private WriteBehindIngestor writeBehindIngestor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${qa.ingest.batch.max-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${qa.run-catalog.page-size:10}")
+    private int defaultRunIdPageSize;
+
+    @Value("${qa.run-catalog.max-page-size:100}")
+    private int maxRunIdPageSize;
  
 
     @PostMapping
-    @Operation(summary = "Create a test result", description = "Stores a new test method result and returns its id")
-    public ResponseEntity<ApiResponse<String>> createTestResult(@PathVariable String iata, @RequestBody TestMethodResultRequest request) {
+    @Operation(summary = "Create a test result", description = "Stores a new test method result and returns its id. A retry with the same Idempotency-Key header, or the same runId, className, methodName and startTime, returns the original id with 200 and stores nothing")
+    public ResponseEntity<ApiResponse<String>> createTestResult(@PathVariable String iata,
+                                                                @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                                @RequestBody TestMethodResultRequest request) {
         log.info("POST createTestResult iata={} runId={} feature={} status={}", iata, request.getRunId(), request.getFeatureName(), request.getStatus());
         TestMethodResult toSave = ControllerMapper.toEntity(iata, request);
-        TestMethodResult saved = testMethodResultService.createTestResult(toSave);
+        if (idempotencyKey != null) {
+            toSave.setIdempotencyKey(IdempotencyKeys.clientKey(idempotencyKey));
+        }
+        boolean queued = writeBehindIngestor.isEnabled();
+        String id;
+        boolean duplicate;
+        if (queued) {
+            BatchItemResult result = writeBehindIngestor.enqueue(List.of(toSave)).get(0);
+            id = result.getId();
+            duplicate = result.isDuplicate();
+        } else {
+            TestMethodResultService.StoredResult stored = testMethodResultService.storeTestResult(toSave);
+            id = stored.result().getId();
+            duplicate = stored.duplicate();
+        }
         URI location = ServletUriComponentsBuilder
                 .fromCurrentRequest()
-                .path("/{id}")
-                .buildAndExpand(saved.getId())
+                .path("/id/{id}")
+                .buildAndExpand(id)
                 .toUri();
         ApiResponse<String> body = ApiResponse.<String>builder()
                 .success(true)
-                .data(saved.getId())
-                .message("Created")
+                .data(id)
+                .message(duplicate ? "Duplicate" : queued ? "Accepted" : "Created")
                 .timestamp(Instant.now())
                 .path(location.getPath())
                 .build();
+        if (duplicate) {
+            return ResponseEntity.ok().location(location).body(body);
+        }
+        if (queued) {
+            return ResponseEntity.accepted().location(location).body(body);
+        }
         return ResponseEntity.created(location).body(body);
     }
 
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @Operation(summary = "Create test results in bulk", description = "Stores an array of test method results (JSON, Smile or CBOR) with one unordered bulk write and reports an id or error per item. Items already stored, by idempotencyKey or Idempotency-Key header plus position, are reported with duplicate=true and their original id")
+    public ResponseEntity<ApiResponse<List<BatchItemResult>>> createTestResults(@PathVariable String iata,
+                                                                                @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                                                @RequestBody List<TestMethodResultRequest> requests) {
+        checkBatchSize(requests.size());
+        log.info("POST createTestResults iata={} items={}", iata, requests.size());
+        List<TestMethodResult> toSave = requests.stream().map(request -> ControllerMapper.toEntity(iata, request)).toList();
+        applyBatchKey(idempotencyKey, toSave, null);
+        return toBatchResponse(saveBatch(toSave));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Create test results in bulk from NDJSON", description = "Stores newline-delimited test method results with one unordered bulk write. Lines that cannot be parsed are reported as failed items")
+    public ResponseEntity<ApiResponse<List<BatchItemResult>>> createTestResultsNdjson(@PathVariable String iata,
+                                                                                     @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                                                     InputStream body) throws IOException {
+        List<BatchItemResult> parseErrors = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        List<TestMethodResult> toSave = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int index = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (line.isBlank()) {
+                continue;
+            }
+            checkBatchSize(index + 1);
+            try {
+                TestMethodResultRequest request = objectMapper.readValue(line, TestMethodResultRequest.class);
+                toSave.add(ControllerMapper.toEntity(iata, request));
+                positions.add(index);
+            } catch (JsonProcessingException ex) {
+                parseErrors.add(BatchItemResult.builder().index(index).error("Malformed JSON: " + ex.getOriginalMessage()).build());
+            }
+            index++;
+        }
+        checkBatchSize(index);
+        log.info("POST createTestResults (ndjson) iata={} items={} malformed={}", iata, index, parseErrors.size());
+        applyBatchKey(idempotencyKey, toSave, positions);
+        List<BatchItemResult> results = new ArrayList<>(parseErrors);
+        if (!toSave.isEmpty()) {
+            for (BatchItemResult result : saveBatch(toSave)) {
+                result.setIndex(positions.get(result.getIndex()));
+                results.add(result);
+            }
+        }
+        results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return toBatchResponse(results);
+    }
+
     @GetMapping("/{runId}")
-    @Operation(summary = "List results by run id", description = "Returns all test method results for the provided run id. Optionally filter by status using ?status=PASS|FAIL|SKIP")
+    @Operation(summary = "List results by run id", description = "Returns all test method results for the provided run id. Optionally filter by status using ?status=PASS|FAIL|SKIP and trim the payload with ?view=summary or ?fields=a,b")
     public ResponseEntity<ApiResponse<List<TestMethodResultResponse>>> getAllTestResults(
             @PathVariable String iata,
             @PathVariable String runId,
-            @RequestParam(name = "status", required = false) String status) {
-        String normalizedStatus = null;
-        if (status != null && !status.isBlank()) {
-            normalizedStatus = status.trim().toUpperCase();
-            if (!("PASS".equals(normalizedStatus) || "FAIL".equals(normalizedStatus) || "SKIP".equals(normalizedStatus))) {
-                throw new IllegalArgumentException("Invalid value for query parameter 'status': '" + status + "'. Allowed values are PASS, FAIL, SKIP. Use ?status=PASS|FAIL|SKIP");
-            }
-        }
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "view", required = false) String view,
+            @RequestParam(name = "fields", required = false) String fields) {
+        String normalizedStatus = normalizeStatus(status);
         log.info("GET results by runId iata={} runId={}{}", iata, runId, normalizedStatus == null ? "" : ", status=" + normalizedStatus);
-        List<TestMethodResult> testMethodResults = normalizedStatus == null
-                ? testMethodResultService.getTestResultsByRunId(runId, iata)
-                : testMethodResultService.getTestResultsByRunIdAndStatus(runId, normalizedStatus, iata);
+        List<TestMethodResult> testMethodResults = testMethodResultService.getTestResults(
+                RunQuery.builder().iata(iata).runId(runId).status(normalizedStatus).build(), ResultView.of(view, fields));
         List<TestMethodResultResponse> dto = testMethodResults.stream().map(ControllerMapper::toResponse).toList();
         ApiResponse<List<TestMethodResultResponse>> body = ApiResponse.<List<TestMethodResultResponse>>builder()
                 .success(true)
@@ -85,24 +193,32 @@ public class TestMethodResultController {
         return ResponseEntity.ok(body);
     }
 
+    @GetMapping(value = "/{runId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream results by run id", description = "Same as the run id listing but written as NDJSON straight from a database cursor. Selected with Accept: application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllTestResults(
+            @PathVariable String iata,
+            @PathVariable String runId,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "view", required = false) String view,
+            @RequestParam(name = "fields", required = false) String fields) {
+        String normalizedStatus = normalizeStatus(status);
+        log.info("GET stream results by runId iata={} runId={}{}", iata, runId, normalizedStatus == null ? "" : ", status=" + normalizedStatus);
+        return toNdjsonResponse(RunQuery.builder().iata(iata).runId(runId).status(normalizedStatus).build(), ResultView.of(view, fields));
+    }
+
     @GetMapping("/suite/{suiteType}")
-    @Operation(summary = "List results by run id and suite type", description = "Returns all results for a given run id filtered by suite type. Optionally filter by status using ?status=PASS|FAIL|SKIP")
+    @Operation(summary = "List results by run id and suite type", description = "Returns all results for a given run id filtered by suite type. Optionally filter by status using ?status=PASS|FAIL|SKIP and trim the payload with ?view=summary or ?fields=a,b")
     public ResponseEntity<ApiResponse<List<TestMethodResultResponse>>> getBySuiteType(
             @PathVariable String iata,
             @PathVariable String suiteType,
             @RequestParam String runId,
-            @RequestParam(name = "status", required = false) String status) {
-        String normalizedStatus = null;
-        if (status != null && !status.isBlank()) {
-            normalizedStatus = status.trim().toUpperCase();
-            if (!("PASS".equals(normalizedStatus) || "FAIL".equals(normalizedStatus) || "SKIP".equals(normalizedStatus))) {
-                throw new IllegalArgumentException("Invalid value for query parameter 'status': '" + status + "'. Allowed values are PASS, FAIL, SKIP. Use ?status=PASS|FAIL|SKIP");
-            }
-        }
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "view", required = false) String view,
+            @RequestParam(name = "fields", required = false) String fields) {
+        String normalizedStatus = normalizeStatus(status);
         log.info("GET results by suiteType iata={} runId={} suiteType={}{}", iata, runId, suiteType, normalizedStatus == null ? "" : ", status=" + normalizedStatus);
-        List<TestMethodResult> results = normalizedStatus == null
-                ? testMethodResultService.getTestResultsByRunIdAndSuiteType(runId, suiteType, iata)
-                : testMethodResultService.getTestResultsByRunIdAndSuiteTypeAndStatus(runId, suiteType, normalizedStatus, iata);
+        List<TestMethodResult> results = testMethodResultService.getTestResults(
+                RunQuery.builder().iata(iata).runId(runId).suiteType(suiteType).status(normalizedStatus).build(), ResultView.of(view, fields));
         List<TestMethodResultResponse> dto = results.stream().map(ControllerMapper::toResponse).toList();
         ApiResponse<List<TestMethodResultResponse>> body = ApiResponse.<List<TestMethodResultResponse>>builder()
                 .success(true)
@@ -114,24 +230,33 @@ public class TestMethodResultController {
         return ResponseEntity.ok(body);
     }
 
+    @GetMapping(value = "/suite/{suiteType}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream results by run id and suite type", description = "Same as the suite type listing but written as NDJSON straight from a database cursor. Selected with Accept: application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamBySuiteType(
+            @PathVariable String iata,
+            @PathVariable String suiteType,
+            @RequestParam String runId,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "view", required = false) String view,
+            @RequestParam(name = "fields", required = false) String fields) {
+        String normalizedStatus = normalizeStatus(status);
+        log.info("GET stream results by suiteType iata={} runId={} suiteType={}{}", iata, runId, suiteType, normalizedStatus == null ? "" : ", status=" + normalizedStatus);
+        return toNdjsonResponse(RunQuery.builder().iata(iata).runId(runId).suiteType(suiteType).status(normalizedStatus).build(), ResultView.of(view, fields));
+    }
+
     @GetMapping("/feature/{featureName}")
-    @Operation(summary = "List results by run id and feature name", description = "Returns all results for a given run id filtered by feature name. Optionally filter by status using ?status=PASS|FAIL|SKIP")
+    @Operation(summary = "List results by run id and feature name", description = "Returns all results for a given run id filtered by feature name. Optionally filter by status using ?status=PASS|FAIL|SKIP and trim the payload with ?view=summary or ?fields=a,b")
     public ResponseEntity<ApiResponse<List<TestMethodResultResponse>>> getByFeatureName(
             @PathVariable String iata,
             @PathVariable String featureName,
             @RequestParam String runId,
-            @RequestParam(name = "status", required = false) String status) {
-        String normalizedStatus = null;
-        if (status != null && !status.isBlank()) {
-            normalizedStatus = status.trim().toUpperCase();
-            if (!("PASS".equals(normalizedStatus) || "FAIL".equals(normalizedStatus) || "SKIP".equals(normalizedStatus))) {
-                throw new IllegalArgumentException("Invalid value for query parameter 'status': '" + status + "'. Allowed values are PASS, FAIL, SKIP. Use ?status=PASS|FAIL|SKIP");
-            }
-        }
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "view", required = false) String view,
+            @RequestParam(name = "fields", required = false) String fields) {
+        String normalizedStatus = normalizeStatus(status);
         log.info("GET results by feature iata={} runId={} feature={}{}", iata, runId, featureName, normalizedStatus == null ? "" : ", status=" + normalizedStatus);
-        List<TestMethodResult> results = normalizedStatus == null
-                ? testMethodResultService.getTestResultsByRunIdAndFeatureName(runId, featureName, iata)
-                : testMethodResultService.getTestResultsByRunIdAndFeatureNameAndStatus(runId, featureName, normalizedStatus, iata);
+        List<TestMethodResult> results = testMethodResultService.getTestResults(
+                RunQuery.builder().iata(iata).runId(runId).featureName(featureName).status(normalizedStatus).build(), ResultView.of(view, fields));
         List<TestMethodResultResponse> dto = results.stream().map(ControllerMapper::toResponse).toList();
         ApiResponse<List<TestMethodResultResponse>> body = ApiResponse.<List<TestMethodResultResponse>>builder()
                 .success(true)
@@ -143,18 +268,56 @@ public class TestMethodResultController {
         return ResponseEntity.ok(body);
     }
 
+    @GetMapping(value = "/feature/{featureName}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream results by run id and feature name", description = "Same as the feature name listing but written as NDJSON straight from a database cursor. Selected with Accept: application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamByFeatureName(
+            @PathVariable String iata,
+            @PathVariable String featureName,
+            @RequestParam String runId,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "view", required = false) String view,
+            @RequestParam(name = "fields", required = false) String fields) {
+        String normalizedStatus = normalizeStatus(status);
+        log.info("GET stream results by feature iata={} runId={} feature={}{}", iata, runId, featureName, normalizedStatus == null ? "" : ", status=" + normalizedStatus);
+        return toNdjsonResponse(RunQuery.builder().iata(iata).runId(runId).featureName(featureName).status(normalizedStatus).build(), ResultView.of(view, fields));
+    }
+
+    @GetMapping("/id/{id}")
+    @Operation(summary = "Get a result by id", description = "Returns one test method result with every field, including logs, screenshots and failure details")
+    public ResponseEntity<ApiResponse<TestMethodResultResponse>> getTestResultById(
+            @PathVariable String iata,
+            @PathVariable String id) {
+        log.info("GET result by id iata={} id={}", iata, id);
+        TestMethodResult result = testMethodResultService.getTestResultById(iata, id)
+                .filter(found -> iata.equals(found.getIata()))
+                .orElseThrow(() -> new ResourceNotFoundException("Test result not found with id: " + id + ", iata=" + iata));
+        ApiResponse<TestMethodResultResponse> body = ApiResponse.<TestMethodResultResponse>builder()
+                .success(true)
+                .data(ControllerMapper.toResponse(result))
+                .message("OK")
+                .timestamp(Instant.now())
+                .path(ServletUriComponentsBuilder.fromCurrentRequestUri().build().getPath())
+                .build();
+        return ResponseEntity.ok(body);
+    }
+
     @GetMapping("/run-ids")
-    @Operation(summary = "List runIds (paginated)", description = "Returns distinct runIds for the given iata. Page size fixed at 10; supply ?page=0-based")
+    @Operation(summary = "List runIds (paginated)", description = "Returns distinct runIds for the given iata, newest runId first, from the run catalog. Pass the returned nextCursor as ?cursor= for constant-cost paging; ?page=0-based is still accepted. Page size via ?size=")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getRunIds(
             @PathVariable String iata,
-            @RequestParam(name = "page", defaultValue = "0") int page) {
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", required = false) Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor) {
         int pageIndex = Math.max(page, 0);
-        List<String> runIds = testMethodResultService.getDistinctRunIdsByIataPaged(iata, pageIndex, 10);
-        Map<String, Object> payload = Map.of(
-                "page", pageIndex,
-                "size", 10,
-                "runIds", runIds
-        );
+        int pageSize = size == null ? defaultRunIdPageSize : Math.min(Math.max(size, 1), maxRunIdPageSize);
+        List<String> runIds = cursor != null && !cursor.isBlank()
+                ? testMethodResultService.getRunIdsByIataAfter(iata, cursor, pageSize)
+                : testMethodResultService.getDistinctRunIdsByIataPaged(iata, pageIndex, pageSize);
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("page", pageIndex);
+        payload.put("size", pageSize);
+        payload.put("runIds", runIds);
+        payload.put("nextCursor", runIds.size() == pageSize ? runIds.get(runIds.size() - 1) : null);
         ApiResponse<Map<String, Object>> body = ApiResponse.<Map<String, Object>>builder()
                 .success(true)
                 .data(payload)
@@ -164,5 +327,76 @@ public class TestMethodResultController {
                 .build();
         return ResponseEntity.ok(body);
     }
+
+    private String normalizeStatus(String status) {
+        if (status == null || status.isBlank()) {
+            return null;
+        }
+        String normalizedStatus = status.trim().toUpperCase();
+        if (!("PASS".equals(normalizedStatus) || "FAIL".equals(normalizedStatus) || "SKIP".equals(normalizedStatus))) {
+            throw new IllegalArgumentException("Invalid value for query parameter 'status': '" + status + "'. Allowed values are PASS, FAIL, SKIP. Use ?status=PASS|FAIL|SKIP");
+        }
+        return normalizedStatus;
+    }
+
+    private ResponseEntity<StreamingResponseBody> toNdjsonResponse(RunQuery runQuery, ResultView view) {
+        ObjectWriter writer = objectMapper.writerFor(TestMethodResultResponse.class);
+        StreamingResponseBody body = out -> {
+            try (Stream<TestMethodResult> results = testMethodResultService.streamTestResults(runQuery, view)) {
+                for (TestMethodResult result : (Iterable<TestMethodResult>) results::iterator) {
+                    out.write(writer.writeValueAsBytes(ControllerMapper.toResponse(result)));
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private void checkBatchSize(int size) {
+        if (size == 0) {
+            throw new IllegalArgumentException("Batch must contain at least one test result");
+        }
+        if (size > maxBatchSize) {
+            throw new IllegalArgumentException("Batch exceeds the maximum of " + maxBatchSize + " test results");
+        }
+    }
+
+    /**
+     * Gives every item without its own key the batch key suffixed with its position in the request, so a retried
+     * batch maps item for item onto the first attempt.
+     */
+    private void applyBatchKey(String idempotencyKey, List<TestMethodResult> toSave, List<Integer> positions) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return;
+        }
+        for (int i = 0; i < toSave.size(); i++) {
+            if (toSave.get(i).getIdempotencyKey() == null) {
+                int position = positions == null ? i : positions.get(i);
+                toSave.get(i).setIdempotencyKey(IdempotencyKeys.clientKey(idempotencyKey.trim() + "#" + position));
+            }
+        }
+    }
+
+    private List<BatchItemResult> saveBatch(List<TestMethodResult> toSave) {
+        return writeBehindIngestor.isEnabled()
+                ? writeBehindIngestor.enqueue(toSave)
+                : testMethodResultService.createTestResults(toSave);
+    }
+
+    private ResponseEntity<ApiResponse<List<BatchItemResult>>> toBatchResponse(List<BatchItemResult> results) {
+        long failed = results.stream().filter(result -> result.getError() != null).count();
+        boolean allDuplicates = !results.isEmpty() && results.stream().allMatch(BatchItemResult::isDuplicate);
+        boolean queued = writeBehindIngestor.isEnabled();
+        String verb = allDuplicates ? "Duplicate" : queued ? "Accepted" : "Created";
+        ApiResponse<List<BatchItemResult>> body = ApiResponse.<List<BatchItemResult>>builder()
+                .success(failed == 0)
+                .data(results)
+                .message(failed == 0 ? verb : verb + " " + (results.size() - failed) + " of " + results.size())
+                .timestamp(Instant.now())
+                .path(ServletUriComponentsBuilder.fromCurrentRequestUri().build().getPath())
+                .build();
+        HttpStatus status = failed > 0 ? HttpStatus.MULTI_STATUS : allDuplicates ? HttpStatus.OK : queued ? HttpStatus.ACCEPTED : HttpStatus.CREATED;
+        return ResponseEntity.status(status).body(body);
+    }
     
 }
@@ -0,0 +1,17 @@
+package aero.airfi.qa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+    private int index; // Position of the item in the submitted batch
+    private String id; // Stored id, null when the item failed
+    private String error; // Failure reason, null when the item was stored
+    private boolean duplicate; // The id is that of an earlier result with the same idempotency key; nothing was written
+}
@@ -0,0 +1,18 @@
+package aero.airfi.qa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiffSectionDto {
+    private long count; // Every method in this category
+    private boolean truncated; // methods stops at qa.diff.max-entries
+    private List<MethodDiffDto> methods;
+}
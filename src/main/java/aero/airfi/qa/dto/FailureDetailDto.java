@@ -16,6 +16,7 @@ public class FailureDetailDto {
     private String stackTrace;
     private String screenshotUrl;
     private List<String> logs;
+    private String signatureId; // Set by the service; ignored on create
 }
 
 
@@ -0,0 +1,23 @@
+package aero.airfi.qa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FailureSignatureResponse {
+    private String signatureId;
+    private String exceptionType;
+    private String topFrame;
+    private String sampleMessage;
+    private long runCount; // Failures with this signature in the run
+    private long totalCount; // Failures with this signature across all runs of the IATA
+    private Instant firstSeen;
+    private Instant lastSeen;
+}
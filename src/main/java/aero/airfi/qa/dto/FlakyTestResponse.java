@@ -0,0 +1,28 @@
+package aero.airfi.qa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlakyTestResponse {
+    private String className;
+    private String methodName;
+    private String featureName;
+    private int runs; // Runs with a PASS or FAIL in the window
+    private long passCount;
+    private long failCount;
+    private int flips; // PASS <-> FAIL transitions between consecutive runs
+    private double flipRate; // flips / (runs - 1)
+    private long avgDurationMs;
+    private String lastStatus;
+    private List<String> recentStatuses; // Per run, oldest first
+    private Instant lastSeen;
+}
@@ -0,0 +1,20 @@
+package aero.airfi.qa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MethodDiffDto {
+    private String className;
+    private String methodName;
+    private String featureName;
+    private String status; // null when removed
+    private String baselineStatus; // null when added
+    private Long durationMs; // Summed over the method's executions in the run
+    private Long baselineDurationMs;
+}
@@ -0,0 +1,23 @@
+package aero.airfi.qa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RunDiffResponse {
+    private String iata;
+    private String runId;
+    private String baselineRunId;
+    private long methods; // Distinct methods in the run
+    private long baselineMethods;
+    private DiffSectionDto newlyFailing;
+    private DiffSectionDto newlyPassing;
+    private DiffSectionDto added;
+    private DiffSectionDto removed;
+    private DiffSectionDto slower;
+}
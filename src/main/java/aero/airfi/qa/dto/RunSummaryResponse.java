@@ -0,0 +1,26 @@
+package aero.airfi.qa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RunSummaryResponse {
+    private String iata;
+    private String runId;
+    private long total;
+    private Map<String, Long> statusCounts;
+    private Map<String, Map<String, Long>> suiteTypeCounts;
+    private Map<String, Map<String, Long>> featureCounts;
+    private long totalDurationMs;
+    private long maxDurationMs;
+    private Instant startTime;
+    private Instant endTime;
+}
@@ -0,0 +1,24 @@
+package aero.airfi.qa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHitDto {
+    private String id; // Result id, for GET /api/{iata}/test-results/id/{id}
+    private String runId;
+    private String status;
+    private String featureName;
+    private String className;
+    private String methodName;
+    private Instant startTime;
+    private String errorMessage; // First failure message
+    private float score; // Relevance; 0 when sorted by startTime
+}
@@ -0,0 +1,22 @@
+package aero.airfi.qa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResponse {
+    private String query;
+    private long total; // Every match, not just this page
+    private int page;
+    private int size;
+    private List<SearchHitDto> hits;
+    private Map<String, Map<String, Long>> facets; // status, featureName, runId -> top values among all matches
+}
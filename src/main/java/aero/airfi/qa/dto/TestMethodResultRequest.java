@@ -28,6 +28,7 @@ public class TestMethodResultRequest {
     private List<String> logs;
     private List<String> screenshotUrls;
     private List<FailureDetailDto> failures;
+    private String idempotencyKey; // Per item; the Idempotency-Key header takes precedence
 }
 
 
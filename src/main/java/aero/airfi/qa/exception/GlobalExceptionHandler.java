@@ -4,6 +4,7 @@ import java.time.Instant;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
@@ -50,6 +51,26 @@ public class GlobalExceptionHandler {
         problem.setProperty("path", request.getRequestURI());
         return ResponseEntity.badRequest().body(problem);
     }
-}
 
+    @ExceptionHandler(IngestQueueFullException.class)
+    public ResponseEntity<ProblemDetail> handleIngestQueueFull(IngestQueueFullException ex, HttpServletRequest request) {
+        log.warn("Ingestion rejected path={} message={}", request.getRequestURI(), ex.getMessage());
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        problem.setTitle("Ingestion Backpressure");
+        problem.setType(URI.create("about:blank"));
+        problem.setProperty("timestamp", Instant.now());
+        problem.setProperty("path", request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(problem);
+    }
 
+    @ExceptionHandler(SubscriberLimitException.class)
+    public ResponseEntity<ProblemDetail> handleSubscriberLimit(SubscriberLimitException ex, HttpServletRequest request) {
+        log.warn("Run event stream rejected path={} message={}", request.getRequestURI(), ex.getMessage());
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        problem.setTitle("Too Many Subscribers");
+        problem.setType(URI.create("about:blank"));
+        problem.setProperty("timestamp", Instant.now());
+        problem.setProperty("path", request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "10").body(problem);
+    }
+}
@@ -0,0 +1,11 @@
+package aero.airfi.qa.exception;
+
+/**
+ * Thrown when write-behind ingestion cannot accept more results, either because the queue is full or because it is shutting down.
+ */
+public class IngestQueueFullException extends RuntimeException {
+
+    public IngestQueueFullException(String message) {
+        super(message);
+    }
+}
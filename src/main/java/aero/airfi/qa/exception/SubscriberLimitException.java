@@ -0,0 +1,11 @@
+package aero.airfi.qa.exception;
+
+/**
+ * Thrown when a run event stream is requested while {@code qa.run-events.max-subscribers} streams are already open.
+ */
+public class SubscriberLimitException extends RuntimeException {
+
+    public SubscriberLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,51 @@
+package aero.airfi.qa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+/**
+ * Index of the cold archive: one document per archived run, keyed {@code iata:runId}, pointing at the run's
+ * gzip NDJSON segment under {@code qa.retention.archive-dir}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "archivedRuns")
+public class ArchivedRun {
+
+    @Id
+    private String id; // iata:runId
+
+    @Field("iata")
+    private String iata;
+
+    @Field("runId")
+    private String runId;
+
+    @Field("segment")
+    private String segment; // Path relative to the archive directory
+
+    @Field("results")
+    private long results; // Documents in the segment
+
+    @Field("bytes")
+    private long bytes; // Compressed segment size
+
+    @Field("sha256")
+    private String sha256; // Of the compressed segment
+
+    @Field("archivedAt")
+    private Instant archivedAt;
+
+    public static String key(String iata, String runId) {
+        return iata + ":" + runId;
+    }
+}
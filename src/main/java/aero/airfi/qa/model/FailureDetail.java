@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class FailureDetail {
@@ -16,4 +16,7 @@ public class FailureDetail {
     private String stackTrace;
     private String screenshotUrl;
     private List<String> logs; // Logs specific to this failure
+    private PayloadRef stackTraceRef; // Set instead of stackTrace when it was moved to payloadBlobs
+    private PayloadRef logsRef; // Set instead of logs when they were moved to payloadBlobs
+    private String signatureId; // Normalized stack trace hash, see failureSignatures
 }
\ No newline at end of file
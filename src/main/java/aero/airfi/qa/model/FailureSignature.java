@@ -0,0 +1,57 @@
+package aero.airfi.qa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+/**
+ * One document per distinct normalized stack trace of an IATA, keyed {@code iata:signatureId}. Results keep only
+ * the signature id; the first trace seen is kept here as the sample.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "failureSignatures")
+public class FailureSignature {
+
+    @Id
+    private String id; // iata:signatureId
+
+    @Field("iata")
+    private String iata;
+
+    @Field("signatureId")
+    private String signatureId; // Hash of the normalized trace
+
+    @Field("exceptionType")
+    private String exceptionType; // Outermost exception class
+
+    @Field("topFrame")
+    private String topFrame; // First frame of the normalized trace
+
+    @Field("sampleMessage")
+    private String sampleMessage; // errorMessage of the first failure seen
+
+    @Field("sampleStackTrace")
+    private String sampleStackTrace; // Raw trace of the first failure seen
+
+    @Field("count")
+    private long count; // Stored failures with this signature
+
+    @Field("firstSeen")
+    private Instant firstSeen;
+
+    @Field("lastSeen")
+    private Instant lastSeen;
+
+    public static String key(String iata, String signatureId) {
+        return iata + ":" + signatureId;
+    }
+}
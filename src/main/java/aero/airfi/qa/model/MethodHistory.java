@@ -0,0 +1,53 @@
+package aero.airfi.qa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One document per test method of an IATA, keyed {@code iata:className#methodName}, holding a bounded ring of its
+ * most recent results. Appended with {@code $push}/{@code $sort}/{@code $slice} on ingest, so the flaky ranking
+ * reads one small document per method instead of the method's whole history.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "methodHistory")
+// Flaky candidates: methods with both a PASS and a FAIL in their ring
+@CompoundIndex(name = "iata_entriesStatus", def = "{'iata': 1, 'entries.status': 1}")
+public class MethodHistory {
+
+    @Id
+    private String id; // iata:className#methodName
+
+    @Field("iata")
+    private String iata;
+
+    @Field("className")
+    private String className;
+
+    @Field("methodName")
+    private String methodName;
+
+    @Field("featureName")
+    private String featureName; // Feature of the latest result
+
+    @Field("entries")
+    private List<MethodHistoryEntry> entries; // Oldest first, at most qa.method-history.ring-size
+
+    @Field("lastSeen")
+    private Instant lastSeen; // When the latest result was ingested
+
+    public static String key(String iata, String className, String methodName) {
+        return iata + ":" + className + "#" + methodName;
+    }
+}
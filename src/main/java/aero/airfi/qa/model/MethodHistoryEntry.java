@@ -0,0 +1,20 @@
+package aero.airfi.qa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MethodHistoryEntry {
+    private String resultId; // Id of the TestMethodResult, to take it out again when it is removed or replaced
+    private String runId;
+    private String status; // PASS / FAIL / SKIP, upper-cased
+    private long durationMs;
+    private Instant startTime; // Ingest time when the result has none; orders the ring
+}
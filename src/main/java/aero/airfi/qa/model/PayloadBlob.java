@@ -0,0 +1,37 @@
+package aero.airfi.qa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+/**
+ * A compressed log or stack trace, addressed by the hash of its content so identical payloads are stored once.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "payloadBlobs")
+public class PayloadBlob {
+
+    @Id
+    private String id; // SHA-256 of the uncompressed payload
+
+    @Field("encoding")
+    private String encoding; // deflate
+
+    @Field("length")
+    private long length; // Uncompressed size in bytes
+
+    @Field("data")
+    private byte[] data; // Compressed payload
+
+    @Field("createdAt")
+    private Instant createdAt;
+}
@@ -0,0 +1,18 @@
+package aero.airfi.qa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Inline stand-in for a payload moved to the {@code payloadBlobs} collection.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayloadRef {
+    private String blobId; // SHA-256 of the uncompressed payload
+    private long length; // Uncompressed size in bytes
+}
@@ -0,0 +1,51 @@
+package aero.airfi.qa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+/**
+ * One document per run, upserted on ingest. Backs the runId listing with keyset pagination instead of
+ * grouping every result of the IATA.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "runCatalog")
+@CompoundIndexes({
+        @CompoundIndex(name = "iata_runId", def = "{'iata': 1, 'runId': -1}", unique = true),
+        // retention: runs of an IATA by age
+        @CompoundIndex(name = "iata_lastSeen", def = "{'iata': 1, 'lastSeen': 1}")
+})
+public class RunCatalogEntry {
+
+    @Id
+    private String id;
+
+    @Field("iata")
+    private String iata;
+
+    @Field("runId")
+    private String runId;
+
+    @Field("firstSeen")
+    private Instant firstSeen; // When the first result of the run was ingested
+
+    @Field("lastSeen")
+    private Instant lastSeen; // When the latest result of the run was ingested
+
+    @Field("environment")
+    private EnvironmentInfo environment; // Environment of the first result
+
+    @Field("archivedAt")
+    private Instant archivedAt; // Set once retention moved the run to the archive, cleared by later ingests
+}
@@ -0,0 +1,77 @@
+package aero.airfi.qa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Per-run rollup maintained with atomic {@code $inc}/{@code $min}/{@code $max} upserts as results are ingested,
+ * so a run overview is a single document read.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "runSummaries")
+@CompoundIndex(name = "iata_runId", def = "{'iata': 1, 'runId': 1}", unique = true)
+public class RunSummary {
+
+    @Id
+    private String id;
+
+    @Field("iata")
+    private String iata;
+
+    @Field("runId")
+    private String runId;
+
+    @Field("total")
+    private long total;
+
+    @Field("statusCounts")
+    private Map<String, Long> statusCounts; // status -> count
+
+    @Field("suiteTypeCounts")
+    private Map<String, Map<String, Long>> suiteTypeCounts; // suiteType -> status -> count
+
+    @Field("featureCounts")
+    private Map<String, Map<String, Long>> featureCounts; // featureName -> status -> count
+
+    @Field("failureSignatureCounts")
+    private Map<String, Long> failureSignatureCounts; // signatureId -> failures in the run
+
+    @Field("totalDurationMs")
+    private long totalDurationMs;
+
+    @Field("maxDurationMs")
+    private long maxDurationMs;
+
+    @Field("startTime")
+    private Instant startTime; // Earliest result start
+
+    @Field("endTime")
+    private Instant endTime; // Latest result end
+
+    /**
+     * Map keys come from client data, so '.' and '$' are swapped for their full-width forms and a missing
+     * value is stored as {@code UNKNOWN} to keep them usable as update paths.
+     */
+    public static String toKey(String value) {
+        if (value == null || value.isBlank()) {
+            return "UNKNOWN";
+        }
+        return value.replace('.', '\uFF0E').replace('$', '\uFF04');
+    }
+
+    public static String fromKey(String key) {
+        return key.replace('\uFF0E', '.').replace('\uFF04', '$');
+    }
+}
@@ -7,16 +7,30 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
-import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 
 import java.time.Instant;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "testMethodResults")
+@CompoundIndexes({
+        // runId / status finders and the distinct runId aggregation ({iata, runId} prefix)
+        @CompoundIndex(name = "iata_runId_status", def = "{'iata': 1, 'runId': 1, 'status': 1}"),
+        // suiteType finders
+        @CompoundIndex(name = "iata_runId_suiteType_status", def = "{'iata': 1, 'runId': 1, 'suiteType': 1, 'status': 1}"),
+        // featureName finders
+        @CompoundIndex(name = "iata_runId_featureName_status", def = "{'iata': 1, 'runId': 1, 'featureName': 1, 'status': 1}"),
+        // run diff: both runs streamed in method order
+        @CompoundIndex(name = "iata_runId_className_methodName", def = "{'iata': 1, 'runId': 1, 'className': 1, 'methodName': 1}"),
+        // idempotent ingestion; results stored before keys existed are left out
+        @CompoundIndex(name = "iata_idempotencyKey", def = "{'iata': 1, 'idempotencyKey': 1}", unique = true,
+                partialFilter = "{'idempotencyKey': {'$exists': true}}")
+})
 public class TestMethodResult {
 
     @Id
@@ -25,7 +39,6 @@ public class TestMethodResult {
     @Field("runId")
     private String runId; // UUID for the entire TestNG run
 
-    @Indexed
     @Field("iata")
     private String iata; // IATA code to partition data (e.g., airline/station)
 
@@ -65,9 +78,15 @@ public class TestMethodResult {
     @Field("logs")
     private List<String> logs; // General execution logs (for PASS case)
 
+    @Field("logsRef")
+    private PayloadRef logsRef; // Set instead of logs when they were moved to payloadBlobs
+
     @Field("screenshotUrls")
     private List<String> screenshotUrls; // Screenshot URLs (for PASS case)
 
     @Field("failures")
     private List<FailureDetail> failures; // Multiple failures for SOFT assert
+
+    @Field("idempotencyKey")
+    private String idempotencyKey; // c:<Idempotency-Key> or d:<hash of runId, className, methodName, startTime>
 }
@@ -0,0 +1,47 @@
+package aero.airfi.qa.repository;
+
+import aero.airfi.qa.model.TestMethodResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Runs this instance wrote to in the last {@code qa.mongo.read.read-your-writes-seconds}. Query reads of such a
+ * run, typically one still being ingested, go to the primary so they see every result already acknowledged.
+ */
+@Component
+public class RecentWrites {
+
+    private final boolean enabled;
+    private final Cache<List<String>, Boolean> runs;
+
+    public RecentWrites(@Value("${qa.mongo.read.read-your-writes:true}") boolean enabled,
+                        @Value("${qa.mongo.read.read-your-writes-seconds:120}") long seconds,
+                        @Value("${qa.mongo.read.read-your-writes-max-runs:10000}") long maxRuns) {
+        this.enabled = enabled;
+        this.runs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(Math.max(seconds, 1)))
+                .maximumSize(Math.max(maxRuns, 1))
+                .build();
+    }
+
+    public void record(Collection<TestMethodResult> results) {
+        if (!enabled) {
+            return;
+        }
+        for (TestMethodResult result : results) {
+            if (result.getIata() != null && result.getRunId() != null) {
+                runs.put(List.of(result.getIata(), result.getRunId()), Boolean.TRUE);
+            }
+        }
+    }
+
+    public boolean contains(String iata, String runId) {
+        return enabled && iata != null && runId != null && runs.getIfPresent(List.of(iata, runId)) != null;
+    }
+}
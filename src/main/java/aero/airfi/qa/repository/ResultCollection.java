@@ -0,0 +1,37 @@
+package aero.airfi.qa.repository;
+
+import aero.airfi.qa.model.TestMethodResult;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A collection holding test method results, with the template of the database it lives in. Resolved per IATA
+ * by the {@link TenantRouter}.
+ */
+public record ResultCollection(MongoTemplate template, String name) {
+
+    public List<TestMethodResult> find(Query query) {
+        return template.find(query, TestMethodResult.class, name);
+    }
+
+    /**
+     * Streams the matching results from a server-side cursor. The caller must close the stream.
+     */
+    public Stream<TestMethodResult> stream(Query query) {
+        return template.stream(query, TestMethodResult.class, name);
+    }
+
+    public MongoCollection<Document> collection() {
+        return template.getCollection(name);
+    }
+
+    @Override
+    public String toString() {
+        return template.getDb().getName() + "." + name;
+    }
+}
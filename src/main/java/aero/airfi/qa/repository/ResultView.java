@@ -0,0 +1,67 @@
+package aero.airfi.qa.repository;
+
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Which fields of a {@code TestMethodResult} a list query reads. Applied as a Mongo projection so that
+ * excluded fields are neither read from disk nor sent over the wire.
+ */
+@Value
+public class ResultView {
+
+    private static final List<String> FIELDS = List.of(
+            "runId", "iata", "suiteType", "featureName", "methodName", "className", "status", "assertType",
+            "startTime", "endTime", "durationMs", "jiraTestCases", "environment", "logs", "screenshotUrls", "failures");
+
+    /** Every field, including logs, screenshots and failure details. */
+    public static final ResultView FULL = new ResultView(null);
+
+    /** Everything a run listing needs, without logs, screenshots, failures or environment. */
+    public static final ResultView SUMMARY = new ResultView(Set.of(
+            "runId", "iata", "suiteType", "featureName", "methodName", "className", "status", "assertType",
+            "startTime", "endTime", "durationMs"));
+
+    Set<String> fields; // null selects every field; the id is always included
+
+    public boolean isFull() {
+        return fields == null;
+    }
+
+    /**
+     * Whether the view selects logs or failures, the fields whose payloads may have been offloaded.
+     */
+    public boolean readsPayloads() {
+        return fields == null || fields.contains("logs") || fields.contains("failures");
+    }
+
+    /**
+     * Resolves the {@code ?view=summary|full} and {@code ?fields=a,b} query parameters. {@code fields} wins when both are given.
+     */
+    public static ResultView of(String view, String fields) {
+        if (fields != null && !fields.isBlank()) {
+            Set<String> selected = Arrays.stream(fields.split(","))
+                    .map(String::trim)
+                    .filter(field -> !field.isEmpty() && !"id".equals(field))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            for (String field : selected) {
+                if (!FIELDS.contains(field)) {
+                    throw new IllegalArgumentException("Invalid value for query parameter 'fields': '" + field + "'. Allowed values are " + String.join(", ", FIELDS));
+                }
+            }
+            return new ResultView(Set.copyOf(selected));
+        }
+        if (view == null || view.isBlank() || "full".equalsIgnoreCase(view.trim())) {
+            return FULL;
+        }
+        if ("summary".equalsIgnoreCase(view.trim())) {
+            return SUMMARY;
+        }
+        throw new IllegalArgumentException("Invalid value for query parameter 'view': '" + view + "'. Allowed values are summary, full. Use ?view=summary|full");
+    }
+}
@@ -0,0 +1,57 @@
+package aero.airfi.qa.repository;
+
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Filter for the run-level queries: {@code iata} and {@code runId} are always set, the other fields are optional.
+ */
+@Value
+@Builder
+public class RunQuery {
+    String iata;
+    String runId;
+    String suiteType;
+    String featureName;
+    String status;
+
+    /**
+     * The Mongo query for this filter, reading only the fields of the given view. Shared by the blocking and
+     * reactive repositories.
+     */
+    public Query toQuery(ResultView view) {
+        Criteria criteria = Criteria.where("iata").is(iata).and("runId").is(runId);
+        if (suiteType != null) {
+            criteria.and("suiteType").is(suiteType);
+        }
+        if (featureName != null) {
+            criteria.and("featureName").is(featureName);
+        }
+        if (status != null) {
+            criteria.and("status").is(status);
+        }
+        Query query = new Query(criteria);
+        if (!view.isFull()) {
+            view.getFields().forEach(query.fields()::include);
+            if (view.getFields().contains("logs")) {
+                query.fields().include("logsRef");
+            }
+        }
+        return query;
+    }
+
+    /**
+     * The 404 detail for a run query that matched nothing.
+     */
+    public String notFoundMessage() {
+        if (suiteType != null) {
+            return "No results for runId=" + runId + ", suiteType=" + suiteType + ", iata=" + iata;
+        }
+        if (featureName != null) {
+            return "No results for runId=" + runId + ", featureName=" + featureName + ", iata=" + iata;
+        }
+        return "Run id not found: " + runId + ", iata=" + iata;
+    }
+}
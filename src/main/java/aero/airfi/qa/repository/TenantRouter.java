@@ -0,0 +1,250 @@
+package aero.airfi.qa.repository;
+
+import aero.airfi.qa.config.MongoReadSettings;
+import aero.airfi.qa.model.TestMethodResult;
+import com.mongodb.MongoException;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the collection holding an IATA's results. IATAs listed in {@code qa.tenancy.routes} as IATA:tenant get
+ * their tenant's own collection, {@code testMethodResults_<tenant>}, or with {@code qa.tenancy.isolation=database}
+ * the {@code testMethodResults} collection of database {@code <database>_<tenant>}; several IATAs may share a
+ * tenant. Every other IATA stays in the shared collection, so an empty route list changes nothing.
+ * <p>
+ * A tenant collection gets its indexes the first time it is resolved. Until the {@code TenantMigrator} reports that
+ * an IATA has no results left in the shared collection, reads cover both collections, tenant first.
+ * <p>
+ * Every route has a primary variant, used for writes and their lookups, and a query variant reading with
+ * {@code qa.mongo.read.*}, used by the query endpoints unless the run was written recently by this instance.
+ */
+@Component
+@Slf4j
+public class TenantRouter {
+
+    private static final Pattern TENANT = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final MongoClient mongoClient;
+    private final MongoTemplate mongoTemplate;
+    private final MongoTemplate readTemplate;
+    private final MongoReadSettings readSettings;
+    private final RecentWrites recentWrites;
+    private final String database;
+    private final String collection;
+    private final boolean databaseIsolation;
+    private final boolean autoIndexCreation;
+    private final Map<String, String> tenantsByIata;
+    private final ResultCollection shared;
+    private final Set<String> pendingMigration = ConcurrentHashMap.newKeySet();
+    private final Map<List<Object>, MongoTemplate> templates = new ConcurrentHashMap<>();
+    private final Map<String, MongoTemplate> readTemplates = new ConcurrentHashMap<>();
+    private final Map<List<String>, CompletableFuture<Boolean>> indexed = new ConcurrentHashMap<>();
+
+    public TenantRouter(MongoClient mongoClient, MongoTemplate mongoTemplate,
+                        @Qualifier("readTemplate") MongoTemplate readTemplate, MongoReadSettings readSettings,
+                        RecentWrites recentWrites,
+                        @Value("${qa.tenancy.routes:}") String routes,
+                        @Value("${qa.tenancy.isolation:collection}") String isolation,
+                        @Value("${spring.data.mongodb.auto-index-creation:false}") boolean autoIndexCreation) {
+        this.mongoClient = mongoClient;
+        this.mongoTemplate = mongoTemplate;
+        this.readTemplate = readTemplate;
+        this.readSettings = readSettings;
+        this.recentWrites = recentWrites;
+        this.database = mongoTemplate.getDb().getName();
+        this.collection = mongoTemplate.getCollectionName(TestMethodResult.class);
+        this.databaseIsolation = "database".equalsIgnoreCase(isolation.trim());
+        if (!databaseIsolation && !"collection".equalsIgnoreCase(isolation.trim())) {
+            throw new IllegalArgumentException("Unknown qa.tenancy.isolation: " + isolation + ", expected collection or database");
+        }
+        this.autoIndexCreation = autoIndexCreation;
+        this.tenantsByIata = parseRoutes(routes);
+        this.shared = new ResultCollection(mongoTemplate, collection);
+        this.pendingMigration.addAll(tenantsByIata.keySet());
+        if (!tenantsByIata.isEmpty()) {
+            log.info("Tenant routing by {} for {}", databaseIsolation ? "database" : "collection", tenantsByIata);
+        }
+    }
+
+    /**
+     * Where new results of the IATA are written.
+     */
+    public ResultCollection route(String iata) {
+        return route(iata, null);
+    }
+
+    /**
+     * Where new results of the IATA are written, through a template using the given write concern, or the
+     * default one when null.
+     */
+    public ResultCollection route(String iata, WriteConcern writeConcern) {
+        String tenant = tenantsByIata.get(iata);
+        if (tenant == null) {
+            return writeConcern == null ? shared : new ResultCollection(template(database, writeConcern), collection);
+        }
+        ResultCollection route = databaseIsolation
+                ? new ResultCollection(template(database + "_" + tenant, writeConcern), collection)
+                : new ResultCollection(template(database, writeConcern), collection + "_" + tenant);
+        ensureIndexes(route);
+        return route;
+    }
+
+    /**
+     * Every collection that may hold results of the IATA: its route, then the shared collection while the IATA's
+     * older results have not been migrated.
+     */
+    public List<ResultCollection> readRoutes(String iata) {
+        ResultCollection route = route(iata);
+        return route.equals(shared) || !pendingMigration.contains(iata) ? List.of(route) : List.of(route, shared);
+    }
+
+    /**
+     * {@link #readRoutes} for a query endpoint: read through the query template, unless this instance wrote to the
+     * run recently and must read its own writes from the primary.
+     */
+    public List<ResultCollection> queryRoutes(String iata, String runId) {
+        List<ResultCollection> routes = readRoutes(iata);
+        if (recentWrites.contains(iata, runId)) {
+            return routes;
+        }
+        return routes.stream().map(this::forQueries).toList();
+    }
+
+    /**
+     * The same collection read through the query template.
+     */
+    public ResultCollection forQueries(ResultCollection route) {
+        String databaseName = route.template().getDb().getName();
+        MongoTemplate template = databaseName.equals(database)
+                ? readTemplate
+                : readTemplates.computeIfAbsent(databaseName, name -> readSettings.template(mongoClient, name, mongoTemplate.getConverter()));
+        return new ResultCollection(template, route.name());
+    }
+
+    /**
+     * The shared collection followed by every tenant collection, for work that is not scoped to one IATA.
+     */
+    public List<ResultCollection> all() {
+        Set<ResultCollection> all = new LinkedHashSet<>();
+        all.add(shared);
+        tenantsByIata.keySet().forEach(iata -> all.add(route(iata)));
+        return List.copyOf(all);
+    }
+
+    public ResultCollection shared() {
+        return shared;
+    }
+
+    /**
+     * A template on the default database using the given write concern, or the default one when null.
+     */
+    public MongoTemplate template(WriteConcern writeConcern) {
+        return template(database, writeConcern);
+    }
+
+    public Set<String> routedIatas() {
+        return tenantsByIata.keySet();
+    }
+
+    /**
+     * Called once the shared collection holds no results of the IATA; its reads then touch only its own collection.
+     */
+    public void migrationFinished(String iata) {
+        if (pendingMigration.remove(iata)) {
+            log.info("Results of iata={} are read from {} only", iata, route(iata));
+        }
+    }
+
+    private MongoTemplate template(String databaseName, WriteConcern writeConcern) {
+        if (databaseName.equals(database) && writeConcern == null) {
+            return mongoTemplate;
+        }
+        return templates.computeIfAbsent(Arrays.asList(databaseName, writeConcern), key -> {
+            MongoTemplate template = new MongoTemplate(new SimpleMongoClientDatabaseFactory(mongoClient, databaseName), mongoTemplate.getConverter());
+            if (writeConcern != null) {
+                template.setWriteConcern(writeConcern);
+            }
+            return template;
+        });
+    }
+
+    /**
+     * Creates the declared result indexes on a tenant collection the first time it is used. The first user creates
+     * them, outside any map lock so that other tenants are not held up; concurrent first users of the same
+     * collection wait for its outcome. A failure is retried on the next use.
+     */
+    private void ensureIndexes(ResultCollection route) {
+        if (!autoIndexCreation) {
+            return;
+        }
+        List<String> key = List.of(route.template().getDb().getName(), route.name());
+        CompletableFuture<Boolean> created = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = indexed.putIfAbsent(key, created);
+        if (existing != null) {
+            existing.join();
+            return;
+        }
+        boolean success = false;
+        try {
+            success = createIndexes(route);
+        } finally {
+            if (!success) {
+                indexed.remove(key, created);
+            }
+            created.complete(success);
+        }
+    }
+
+    private boolean createIndexes(ResultCollection route) {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        IndexOperations indexOps = route.template().indexOps(route.name());
+        try {
+            for (IndexDefinition index : resolver.resolveIndexFor(TestMethodResult.class)) {
+                indexOps.createIndex(index);
+            }
+            log.info("Ensured indexes of tenant collection {}", route);
+            return true;
+        } catch (MongoException | DataAccessException ex) {
+            log.warn("Could not create indexes of tenant collection {}: {}", route, ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Parses {@code qa.tenancy.routes} into tenant by IATA, tenants lower-cased.
+     */
+    public static Map<String, String> parseRoutes(String routes) {
+        Map<String, String> tenants = new HashMap<>();
+        for (String route : routes.split(",")) {
+            if (route.isBlank()) {
+                continue;
+            }
+            String[] parts = route.split(":");
+            if (parts.length != 2 || !TENANT.matcher(parts[1].trim()).matches()) {
+                throw new IllegalArgumentException("Invalid qa.tenancy.routes entry: '" + route.trim() + "', expected IATA:tenant");
+            }
+            tenants.put(parts[0].trim(), parts[1].trim().toLowerCase());
+        }
+        return Map.copyOf(tenants);
+    }
+}
@@ -0,0 +1,52 @@
+package aero.airfi.qa.repository;
+
+import aero.airfi.qa.model.TestMethodResult;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Result queries routed to the IATA's collection by the {@link TenantRouter}. The inherited repository methods
+ * only see the shared collection. The run queries serve the query endpoints and read with {@code qa.mongo.read.*};
+ * the other methods read the primary.
+ */
+public interface TestMethodResultRepositoryCustom {
+
+    /**
+     * Loads the results of a run, reading only the fields of the given view.
+     */
+    List<TestMethodResult> findRun(RunQuery runQuery, ResultView view);
+
+    /**
+     * Streams the results of a run from a server-side cursor, reading only the fields of the given view.
+     * The caller must close the stream.
+     */
+    Stream<TestMethodResult> streamRun(RunQuery runQuery, ResultView view);
+
+    /**
+     * Streams the status, duration and feature of every result of a run, ordered by className then methodName
+     * from the {iata, runId, className, methodName} index. The caller must close the stream.
+     */
+    Stream<TestMethodResult> streamRunByMethod(String iata, String runId);
+
+    Optional<TestMethodResult> findInTenant(String iata, String id);
+
+    /**
+     * {@link #findInTenant} for the query endpoints: reads with {@code qa.mongo.read.*}, then from the primary when
+     * the result is not found, since a secondary may not have it yet.
+     */
+    Optional<TestMethodResult> queryInTenant(String iata, String id);
+
+    /**
+     * Every result of every tenant.
+     */
+    List<TestMethodResult> findAllTenants();
+
+    /**
+     * Inserts or replaces the result in its IATA's collection.
+     */
+    TestMethodResult saveInTenant(TestMethodResult testMethodResult);
+
+    void deleteInTenant(String iata, String id);
+}
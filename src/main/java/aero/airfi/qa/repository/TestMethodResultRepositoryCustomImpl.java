@@ -0,0 +1,125 @@
+package aero.airfi.qa.repository;
+
+import aero.airfi.qa.model.TestMethodResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+class TestMethodResultRepositoryCustomImpl implements TestMethodResultRepositoryCustom {
+
+    private static final Comparator<TestMethodResult> BY_METHOD = Comparator
+            .comparing(TestMethodResult::getClassName, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(TestMethodResult::getMethodName, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final TenantRouter tenantRouter;
+    private final int cursorBatchSize;
+
+    TestMethodResultRepositoryCustomImpl(TenantRouter tenantRouter,
+                                         @Value("${qa.query.cursor-batch-size:500}") int cursorBatchSize) {
+        this.tenantRouter = tenantRouter;
+        this.cursorBatchSize = cursorBatchSize;
+    }
+
+    @Override
+    public List<TestMethodResult> findRun(RunQuery runQuery, ResultView view) {
+        return find(tenantRouter.queryRoutes(runQuery.getIata(), runQuery.getRunId()), runQuery.toQuery(view));
+    }
+
+    @Override
+    public Stream<TestMethodResult> streamRun(RunQuery runQuery, ResultView view) {
+        Query query = runQuery.toQuery(view).cursorBatchSize(cursorBatchSize);
+        List<ResultCollection> routes = tenantRouter.queryRoutes(runQuery.getIata(), runQuery.getRunId());
+        if (routes.size() == 1) {
+            return routes.get(0).stream(query);
+        }
+        Set<String> seen = new HashSet<>();
+        Stream<TestMethodResult> results = Stream.empty();
+        for (ResultCollection route : routes) {
+            results = Stream.concat(results, route.stream(query));
+        }
+        return results.filter(result -> seen.add(result.getId()));
+    }
+
+    /**
+     * While the IATA is being migrated the two collections are merged and sorted in memory.
+     */
+    @Override
+    public Stream<TestMethodResult> streamRunByMethod(String iata, String runId) {
+        Query query = new Query(Criteria.where("iata").is(iata).and("runId").is(runId))
+                .with(Sort.by("className", "methodName"))
+                .cursorBatchSize(cursorBatchSize);
+        query.fields().include("className", "methodName", "featureName", "status", "durationMs");
+        List<ResultCollection> routes = tenantRouter.readRoutes(iata);
+        if (routes.size() == 1) {
+            return routes.get(0).stream(query);
+        }
+        List<TestMethodResult> results = find(routes, query);
+        results.sort(BY_METHOD);
+        return results.stream();
+    }
+
+    @Override
+    public Optional<TestMethodResult> findInTenant(String iata, String id) {
+        return findById(tenantRouter.readRoutes(iata), id);
+    }
+
+    @Override
+    public Optional<TestMethodResult> queryInTenant(String iata, String id) {
+        List<ResultCollection> routes = tenantRouter.readRoutes(iata);
+        Optional<TestMethodResult> result = findById(routes.stream().map(tenantRouter::forQueries).toList(), id);
+        return result.isPresent() ? result : findById(routes, id);
+    }
+
+    @Override
+    public List<TestMethodResult> findAllTenants() {
+        return find(tenantRouter.all(), new Query());
+    }
+
+    @Override
+    public TestMethodResult saveInTenant(TestMethodResult testMethodResult) {
+        ResultCollection route = tenantRouter.route(testMethodResult.getIata());
+        return route.template().save(testMethodResult, route.name());
+    }
+
+    @Override
+    public void deleteInTenant(String iata, String id) {
+        for (ResultCollection route : tenantRouter.readRoutes(iata)) {
+            route.template().remove(new Query(Criteria.where("_id").is(id)), TestMethodResult.class, route.name());
+        }
+    }
+
+    private static Optional<TestMethodResult> findById(List<ResultCollection> routes, String id) {
+        for (ResultCollection route : routes) {
+            TestMethodResult result = route.template().findById(id, TestMethodResult.class, route.name());
+            if (result != null) {
+                return Optional.of(result);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Results of every route, the first copy of an id winning; a result being migrated can briefly be in both.
+     */
+    private static List<TestMethodResult> find(List<ResultCollection> routes, Query query) {
+        if (routes.size() == 1) {
+            return routes.get(0).find(query);
+        }
+        Map<String, TestMethodResult> merged = new LinkedHashMap<>();
+        for (ResultCollection route : routes) {
+            route.find(query).forEach(result -> merged.putIfAbsent(result.getId(), result));
+        }
+        return new ArrayList<>(merged.values());
+    }
+}
@@ -0,0 +1,234 @@
+package aero.airfi.qa.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import aero.airfi.qa.model.FailureDetail;
+import aero.airfi.qa.model.FailureSignature;
+import aero.airfi.qa.model.RunSummary;
+import aero.airfi.qa.model.TestMethodResult;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fingerprints failure stack traces on ingest and maintains the {@code failureSignatures} collection. With
+ * {@code qa.failure-signatures.dedupe-stack-traces=true} a result keeps only the signature id and reads restore
+ * the signature's sample trace. Per-run counts live in the run summary, so the top clusters of a run are read
+ * without touching any trace.
+ */
+@Service
+@Slf4j
+public class FailureSignatureService {
+
+    private final MongoTemplate mongoTemplate;
+    private final RunSummaryService runSummaryService;
+    private final boolean enabled;
+    private final boolean dedupeStackTraces;
+
+    public FailureSignatureService(MongoTemplate mongoTemplate, RunSummaryService runSummaryService,
+                                   @Value("${qa.failure-signatures.enabled:true}") boolean enabled,
+                                   @Value("${qa.failure-signatures.dedupe-stack-traces:true}") boolean dedupeStackTraces) {
+        this.mongoTemplate = mongoTemplate;
+        this.runSummaryService = runSummaryService;
+        this.enabled = enabled;
+        this.dedupeStackTraces = dedupeStackTraces;
+    }
+
+    /**
+     * A signature and how often it failed in one run.
+     */
+    public record RunFailureSignature(FailureSignature signature, long count) {}
+
+    /**
+     * Sets the signature id of every failure with a stack trace and creates the signatures not seen before, ahead
+     * of the result insert so a stored result never points at a missing signature. Counts are added once the
+     * results are stored. The results are modified in place once the signatures are written.
+     */
+    public void fingerprint(Collection<TestMethodResult> results, MongoOperations operations) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, FailureSignature> signatures = new LinkedHashMap<>();
+        List<Runnable> changes = new ArrayList<>();
+        for (TestMethodResult result : results) {
+            if (result.getFailures() == null) {
+                continue;
+            }
+            for (FailureDetail failure : result.getFailures()) {
+                StackTraceNormalizer.Fingerprint fingerprint = StackTraceNormalizer.fingerprint(failure.getStackTrace());
+                if (fingerprint == null) {
+                    continue;
+                }
+                signatures.computeIfAbsent(FailureSignature.key(result.getIata(), fingerprint.signatureId()), key -> FailureSignature.builder()
+                        .id(key)
+                        .iata(result.getIata())
+                        .signatureId(fingerprint.signatureId())
+                        .exceptionType(fingerprint.exceptionType())
+                        .topFrame(fingerprint.topFrame())
+                        .sampleMessage(failure.getErrorMessage())
+                        .sampleStackTrace(failure.getStackTrace())
+                        .build());
+                changes.add(() -> {
+                    failure.setSignatureId(fingerprint.signatureId());
+                    if (dedupeStackTraces) {
+                        failure.setStackTrace(null);
+                    }
+                });
+            }
+        }
+        if (signatures.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        BulkOperations ops = operations.bulkOps(BulkOperations.BulkMode.UNORDERED, FailureSignature.class);
+        signatures.values().forEach(signature -> ops.upsert(
+                new Query(Criteria.where("_id").is(signature.getId())),
+                new Update()
+                        .setOnInsert("iata", signature.getIata())
+                        .setOnInsert("signatureId", signature.getSignatureId())
+                        .setOnInsert("exceptionType", signature.getExceptionType())
+                        .setOnInsert("topFrame", signature.getTopFrame())
+                        .setOnInsert("sampleMessage", signature.getSampleMessage())
+                        .setOnInsert("sampleStackTrace", signature.getSampleStackTrace())
+                        .setOnInsert("firstSeen", now)));
+        ops.execute();
+        changes.forEach(Runnable::run);
+        log.debug("Fingerprinted {} distinct failure signatures for {} results", signatures.size(), results.size());
+    }
+
+    @EventListener
+    public void onResultsStored(TestResultsStoredEvent event) {
+        apply(event.getResults(), 1);
+    }
+
+    @EventListener
+    public void onResultRemoved(TestResultRemovedEvent event) {
+        apply(List.of(event.getResult()), -1);
+    }
+
+    /**
+     * The most frequent signatures of a run, from the run summary's counts and one lookup of the signatures.
+     */
+    public List<RunFailureSignature> getTopSignatures(String iata, String runId, int limit) {
+        RunSummary summary = runSummaryService.getRunSummary(iata, runId);
+        if (summary.getFailureSignatureCounts() == null) {
+            return List.of();
+        }
+        List<Map.Entry<String, Long>> top = summary.getFailureSignatureCounts().entrySet().stream()
+                .filter(entry -> entry.getValue() != null && entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(Math.max(limit, 1))
+                .toList();
+        if (top.isEmpty()) {
+            return List.of();
+        }
+        Query query = new Query(Criteria.where("_id").in(top.stream().map(entry -> FailureSignature.key(iata, entry.getKey())).toList()));
+        query.fields().exclude("sampleStackTrace");
+        Map<String, FailureSignature> signatures = mongoTemplate.find(query, FailureSignature.class).stream()
+                .collect(Collectors.toMap(FailureSignature::getSignatureId, Function.identity()));
+        List<RunFailureSignature> result = new ArrayList<>(top.size());
+        for (Map.Entry<String, Long> entry : top) {
+            FailureSignature signature = signatures.getOrDefault(entry.getKey(),
+                    FailureSignature.builder().iata(iata).signatureId(entry.getKey()).build());
+            result.add(new RunFailureSignature(signature, entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the results with de-duplicated stack traces filled in from their signatures' sample traces, loading
+     * the signatures in one query. Results that need nothing are returned as they are; the others are copied.
+     */
+    public List<TestMethodResult> restoreStackTraces(List<TestMethodResult> results) {
+        List<String> keys = results.stream().flatMap(result -> missingTraceKeys(result).stream()).distinct().toList();
+        if (keys.isEmpty()) {
+            return results;
+        }
+        Query query = new Query(Criteria.where("_id").in(keys));
+        query.fields().include("sampleStackTrace");
+        Map<String, String> traces = mongoTemplate.find(query, FailureSignature.class).stream()
+                .filter(signature -> signature.getSampleStackTrace() != null)
+                .collect(Collectors.toMap(FailureSignature::getId, FailureSignature::getSampleStackTrace));
+        List<TestMethodResult> restored = new ArrayList<>(results.size());
+        for (TestMethodResult result : results) {
+            restored.add(missingTraceKeys(result).isEmpty() ? result : restoreStackTraces(result, traces));
+        }
+        return restored;
+    }
+
+    public TestMethodResult restoreStackTraces(TestMethodResult result) {
+        return restoreStackTraces(List.of(result)).get(0);
+    }
+
+    /**
+     * Keys of the signatures whose sample trace the result needs: failures that have a signature but no trace,
+     * inline or offloaded.
+     */
+    public static List<String> missingTraceKeys(TestMethodResult result) {
+        if (result.getFailures() == null) {
+            return List.of();
+        }
+        return result.getFailures().stream()
+                .filter(failure -> failure.getSignatureId() != null && failure.getStackTrace() == null && failure.getStackTraceRef() == null)
+                .map(failure -> FailureSignature.key(result.getIata(), failure.getSignatureId()))
+                .toList();
+    }
+
+    /**
+     * Copies the result with each missing trace taken from {@code traces}, keyed by {@link FailureSignature#key}.
+     */
+    public static TestMethodResult restoreStackTraces(TestMethodResult result, Map<String, String> traces) {
+        return result.toBuilder().failures(result.getFailures().stream()
+                .map(failure -> failure.getSignatureId() != null && failure.getStackTrace() == null && failure.getStackTraceRef() == null
+                        ? failure.toBuilder().stackTrace(traces.get(FailureSignature.key(result.getIata(), failure.getSignatureId()))).build()
+                        : failure)
+                .toList()).build();
+    }
+
+    private void apply(List<TestMethodResult> results, int sign) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (TestMethodResult result : results) {
+            if (result.getFailures() == null) {
+                continue;
+            }
+            for (FailureDetail failure : result.getFailures()) {
+                if (failure.getSignatureId() != null) {
+                    counts.merge(FailureSignature.key(result.getIata(), failure.getSignatureId()), 1L, Long::sum);
+                }
+            }
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        try {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FailureSignature.class);
+            counts.forEach((key, count) -> {
+                Update update = new Update().inc("count", sign * count);
+                if (sign > 0) {
+                    update.max("lastSeen", now);
+                }
+                ops.updateOne(new Query(Criteria.where("_id").is(key)), update);
+            });
+            ops.execute();
+        } catch (DataAccessException ex) {
+            log.error("Failed to update counts of {} failure signatures", counts.size(), ex);
+        }
+    }
+}
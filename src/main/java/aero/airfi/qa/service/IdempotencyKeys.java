@@ -0,0 +1,165 @@
+package aero.airfi.qa.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.MongoException;
+
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultCollection;
+import aero.airfi.qa.repository.TenantRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Idempotency keys of ingested results and the in-memory filter in front of their unique index. A client key
+ * ({@code Idempotency-Key}) is stored as {@code c:<key>}; without one, a key is derived from runId, className,
+ * methodName and startTime as {@code d:<hash>}. Keys are unique per IATA.
+ * <p>
+ * The {@link BloomFilter} only answers "not seen by this instance", so a negative skips the lookup and a positive
+ * costs one. It is seeded at startup with the keys of the last {@code filter.warm-up-hours} and replaced once it holds
+ * {@code expected-keys} keys. Keys it misses, such as keys written by another instance, are still rejected by the
+ * unique index.
+ */
+@Component
+@Slf4j
+public class IdempotencyKeys {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final TenantRouter tenantRouter;
+    private final boolean enabled;
+    private final boolean deriveKeys;
+    private final long expectedKeys;
+    private final double falsePositiveRate;
+    private final long warmUpHours;
+    private final AtomicLong filtered = new AtomicLong();
+    private final ReentrantLock rotation = new ReentrantLock();
+    private final Counter duplicates;
+    private final Counter lookups;
+    private volatile BloomFilter filter;
+
+    public IdempotencyKeys(TenantRouter tenantRouter, MeterRegistry meterRegistry,
+                           @Value("${qa.ingest.idempotency.enabled:true}") boolean enabled,
+                           @Value("${qa.ingest.idempotency.derive-keys:true}") boolean deriveKeys,
+                           @Value("${qa.ingest.idempotency.filter.expected-keys:1000000}") long expectedKeys,
+                           @Value("${qa.ingest.idempotency.filter.false-positive-rate:0.01}") double falsePositiveRate,
+                           @Value("${qa.ingest.idempotency.filter.warm-up-hours:24}") long warmUpHours) {
+        this.tenantRouter = tenantRouter;
+        this.enabled = enabled;
+        this.deriveKeys = deriveKeys;
+        this.expectedKeys = Math.max(expectedKeys, 1);
+        this.falsePositiveRate = falsePositiveRate;
+        this.warmUpHours = Math.max(warmUpHours, 0);
+        this.filter = new BloomFilter(this.expectedKeys, falsePositiveRate);
+        this.duplicates = Counter.builder("qa.ingest.duplicates")
+                .description("Results not stored because their idempotency key was already stored")
+                .register(meterRegistry);
+        this.lookups = Counter.builder("qa.ingest.idempotency.lookups")
+                .description("Results whose idempotency key passed the filter and was looked up")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Seeds the filter with the keys of results stored in the last {@code warm-up-hours}, found by ObjectId time,
+     * so retries shortly after a restart are recognised before the insert.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled || warmUpHours == 0) {
+            return;
+        }
+        ObjectId from = new ObjectId(Date.from(Instant.now().minus(Duration.ofHours(warmUpHours))));
+        Query query = new Query(Criteria.where("_id").gte(from).and("idempotencyKey").exists(true)).cursorBatchSize(1000);
+        query.fields().include("iata", "idempotencyKey");
+        long keys = 0;
+        try {
+            for (ResultCollection route : tenantRouter.all()) {
+                try (Stream<TestMethodResult> results = route.stream(query)) {
+                    for (TestMethodResult result : (Iterable<TestMethodResult>) results::iterator) {
+                        remember(result.getIata(), result.getIdempotencyKey());
+                        keys++;
+                    }
+                }
+            }
+            log.info("Idempotency filter seeded with {} keys from the last {} hours", keys, warmUpHours);
+        } catch (MongoException | DataAccessException ex) {
+            log.warn("Skipping idempotency filter warm-up after {} keys: {}", keys, ex.getMessage());
+        }
+    }
+
+    /**
+     * The stored form of a client-supplied key, or null when there is none.
+     */
+    public static String clientKey(String key) {
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key exceeds " + MAX_KEY_LENGTH + " characters");
+        }
+        return "c:" + key.trim();
+    }
+
+    /**
+     * Derives a key for a result without a client key. Results without startTime get none, since reruns of a
+     * method in one run could not be told apart. With idempotency off every key is cleared.
+     */
+    void assign(TestMethodResult result) {
+        if (!enabled) {
+            result.setIdempotencyKey(null);
+        } else if (result.getIdempotencyKey() == null && deriveKeys && result.getStartTime() != null) {
+            String source = result.getRunId() + '\n' + result.getClassName() + '\n' + result.getMethodName() + '\n' + result.getStartTime();
+            result.setIdempotencyKey("d:" + PayloadCodec.sha256(source.getBytes(StandardCharsets.UTF_8)).substring(0, 32));
+        }
+    }
+
+    /**
+     * Whether the key may have been stored already and must be looked up.
+     */
+    boolean mightExist(String iata, String key) {
+        boolean candidate = filter.mightContain(iata + '\n' + key);
+        if (candidate) {
+            lookups.increment();
+        }
+        return candidate;
+    }
+
+    void remember(String iata, String key) {
+        if (filtered.incrementAndGet() > expectedKeys) {
+            rotation.lock();
+            try {
+                if (filtered.get() > expectedKeys) {
+                    filter = new BloomFilter(expectedKeys, falsePositiveRate);
+                    filtered.set(1);
+                }
+            } finally {
+                rotation.unlock();
+            }
+        }
+        filter.put(iata + '\n' + key);
+    }
+
+    void countDuplicates(int count) {
+        duplicates.increment(count);
+    }
+}
@@ -0,0 +1,219 @@
+package aero.airfi.qa.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import aero.airfi.qa.model.MethodHistory;
+import aero.airfi.qa.model.MethodHistoryEntry;
+import aero.airfi.qa.model.TestMethodResult;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintains the {@code methodHistory} ring per test method and ranks flaky methods from it. The ranking reads only
+ * the methods that have both a PASS and a FAIL in their ring, each at most {@code qa.method-history.ring-size}
+ * entries, so its cost follows the size of the suite rather than the number of stored runs.
+ */
+@Service
+@Slf4j
+public class MethodHistoryService {
+
+    private static final String PASS = "PASS";
+    private static final String FAIL = "FAIL";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int ringSize;
+
+    public MethodHistoryService(MongoTemplate mongoTemplate,
+                                @Value("${qa.method-history.enabled:true}") boolean enabled,
+                                @Value("${qa.method-history.ring-size:50}") int ringSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.ringSize = Math.max(ringSize, 2);
+    }
+
+    /**
+     * A method's outcome over the window, one status per run.
+     */
+    public record FlakyMethod(MethodHistory history, List<String> statuses, long passCount, long failCount,
+                              int flips, double flipRate, long avgDurationMs) {
+
+        public int runs() {
+            return (int) (passCount + failCount);
+        }
+    }
+
+    public int getRingSize() {
+        return ringSize;
+    }
+
+    /**
+     * Appends the stored results to their methods' rings, one upsert per method. Failures are logged rather than
+     * thrown because the results themselves are already written.
+     */
+    @EventListener
+    public void onResultsStored(TestResultsStoredEvent event) {
+        if (!enabled || event.getResults().isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        Map<String, List<TestMethodResult>> byMethod = new LinkedHashMap<>();
+        for (TestMethodResult result : event.getResults()) {
+            if (result.getClassName() == null || result.getMethodName() == null) {
+                continue;
+            }
+            byMethod.computeIfAbsent(MethodHistory.key(result.getIata(), result.getClassName(), result.getMethodName()),
+                    key -> new ArrayList<>()).add(result);
+        }
+        if (byMethod.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MethodHistory.class);
+            byMethod.forEach((key, results) -> {
+                TestMethodResult latest = results.get(results.size() - 1);
+                Update update = new Update()
+                        .setOnInsert("iata", latest.getIata())
+                        .setOnInsert("className", latest.getClassName())
+                        .setOnInsert("methodName", latest.getMethodName())
+                        .set("featureName", latest.getFeatureName())
+                        .max("lastSeen", now);
+                update.push("entries")
+                        .sort(Sort.by("startTime"))
+                        .slice(-ringSize)
+                        .each(results.stream().map(result -> toEntry(result, now)).toArray());
+                ops.upsert(new Query(Criteria.where("_id").is(key)), update);
+            });
+            ops.execute();
+        } catch (DataAccessException ex) {
+            log.error("Failed to update method history for {} methods", byMethod.size(), ex);
+        }
+    }
+
+    /**
+     * Takes a removed or replaced result out of its method's ring by its id, leaving other executions of the method in
+     * the same run with the same outcome in place. Entries written before the id was kept are not matched; they
+     * leave the ring as newer results are appended.
+     */
+    @EventListener
+    public void onResultRemoved(TestResultRemovedEvent event) {
+        TestMethodResult result = event.getResult();
+        if (!enabled || result.getId() == null || result.getClassName() == null || result.getMethodName() == null) {
+            return;
+        }
+        try {
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(MethodHistory.key(result.getIata(), result.getClassName(), result.getMethodName()))),
+                    new Update().pull("entries", Query.query(Criteria.where("resultId").is(result.getId()))),
+                    MethodHistory.class);
+        } catch (DataAccessException ex) {
+            log.error("Failed to remove result {} from method history", result.getId(), ex);
+        }
+    }
+
+    /**
+     * Ranks the methods of an IATA by PASS/FAIL flip rate over each method's last {@code runs} runs, then by flips
+     * and recency. Methods with fewer than {@code minRuns} passing or failing runs in the window are left out. The
+     * ring holds the last {@code ring-size} results, not runs, so a method executed several times per run has fewer
+     * runs to rank than {@code runs}.
+     */
+    public List<FlakyMethod> getFlakyMethods(String iata, int runs, int minRuns, int limit) {
+        int window = Math.min(Math.max(runs, 2), ringSize);
+        Query query = new Query(Criteria.where("iata").is(iata).and("entries.status").all(PASS, FAIL));
+        List<FlakyMethod> flaky = new ArrayList<>();
+        for (MethodHistory history : mongoTemplate.find(query, MethodHistory.class)) {
+            FlakyMethod method = score(history, window);
+            if (method.flips() > 0 && method.runs() >= Math.max(minRuns, 2)) {
+                flaky.add(method);
+            }
+        }
+        return flaky.stream()
+                .sorted(Comparator.comparingDouble(FlakyMethod::flipRate).reversed()
+                        .thenComparing(Comparator.comparingInt(FlakyMethod::flips).reversed())
+                        .thenComparing(method -> method.history().getLastSeen(), Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(Math.max(limit, 1))
+                .toList();
+    }
+
+    /**
+     * Collapses the ring to one status per run (FAIL over PASS over anything else, as a run may execute a method
+     * more than once) and counts PASS/FAIL transitions over the last {@code window} runs, skipping other statuses.
+     */
+    private static FlakyMethod score(MethodHistory history, int window) {
+        Map<String, String> perRun = new LinkedHashMap<>();
+        for (MethodHistoryEntry entry : history.getEntries()) {
+            perRun.merge(entry.getRunId(), entry.getStatus(), MethodHistoryService::worse);
+        }
+        int skip = Math.max(perRun.size() - window, 0);
+        Set<String> recentRunIds = perRun.keySet().stream().skip(skip).collect(Collectors.toSet());
+        List<String> recent = perRun.values().stream().skip(skip).toList();
+        long totalDurationMs = 0;
+        int durations = 0;
+        for (MethodHistoryEntry entry : history.getEntries()) {
+            if (recentRunIds.contains(entry.getRunId())) {
+                totalDurationMs += entry.getDurationMs();
+                durations++;
+            }
+        }
+        long passes = 0;
+        long fails = 0;
+        int flips = 0;
+        String previous = null;
+        for (String status : recent) {
+            if (!PASS.equals(status) && !FAIL.equals(status)) {
+                continue;
+            }
+            if (PASS.equals(status)) {
+                passes++;
+            } else {
+                fails++;
+            }
+            if (previous != null && !previous.equals(status)) {
+                flips++;
+            }
+            previous = status;
+        }
+        long runs = passes + fails;
+        double flipRate = runs > 1 ? (double) flips / (runs - 1) : 0;
+        return new FlakyMethod(history, recent, passes, fails, flips, flipRate,
+                durations == 0 ? 0 : totalDurationMs / durations);
+    }
+
+    private static String worse(String a, String b) {
+        if (FAIL.equals(a) || FAIL.equals(b)) {
+            return FAIL;
+        }
+        return PASS.equals(a) || PASS.equals(b) ? PASS : a;
+    }
+
+    private static MethodHistoryEntry toEntry(TestMethodResult result, Instant now) {
+        return MethodHistoryEntry.builder()
+                .resultId(result.getId())
+                .runId(result.getRunId())
+                .status(normalizeStatus(result.getStatus()))
+                .durationMs(result.getDurationMs())
+                .startTime(result.getStartTime() != null ? result.getStartTime() : now)
+                .build();
+    }
+
+    private static String normalizeStatus(String status) {
+        return status == null ? null : status.trim().toUpperCase();
+    }
+}
@@ -0,0 +1,188 @@
+package aero.airfi.qa.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import aero.airfi.qa.model.FailureDetail;
+import aero.airfi.qa.model.PayloadBlob;
+import aero.airfi.qa.model.PayloadRef;
+import aero.airfi.qa.model.TestMethodResult;
+
+/**
+ * The blob format behind {@link PayloadStore}, free of any Mongo access so the reactive module can restore
+ * payloads it loaded itself.
+ */
+public final class PayloadCodec {
+
+    static final String ENCODING = "deflate";
+    private static final byte TEXT = 'T';
+    private static final byte LINES = 'L';
+
+    private PayloadCodec() {}
+
+    /**
+     * Copies the result with every referenced payload replaced by its content, looked up through {@code payloads}.
+     */
+    public static TestMethodResult restore(TestMethodResult result, Function<PayloadRef, byte[]> payloads) {
+        TestMethodResult.TestMethodResultBuilder copy = result.toBuilder();
+        if (result.getLogsRef() != null) {
+            copy.logs(decodeLines(payloads.apply(result.getLogsRef()))).logsRef(null);
+        }
+        if (result.getFailures() != null) {
+            copy.failures(result.getFailures().stream().map(failure -> {
+                FailureDetail.FailureDetailBuilder failureCopy = failure.toBuilder();
+                if (failure.getStackTraceRef() != null) {
+                    failureCopy.stackTrace(decodeText(payloads.apply(failure.getStackTraceRef()))).stackTraceRef(null);
+                }
+                if (failure.getLogsRef() != null) {
+                    failureCopy.logs(decodeLines(payloads.apply(failure.getLogsRef()))).logsRef(null);
+                }
+                return failureCopy.build();
+            }).toList());
+        }
+        return copy.build();
+    }
+
+    public static List<PayloadRef> refs(TestMethodResult result) {
+        List<PayloadRef> refs = new ArrayList<>();
+        refs.add(result.getLogsRef());
+        if (result.getFailures() != null) {
+            for (FailureDetail failure : result.getFailures()) {
+                refs.add(failure.getStackTraceRef());
+                refs.add(failure.getLogsRef());
+            }
+        }
+        refs.removeIf(Objects::isNull);
+        return refs;
+    }
+
+    static byte[] deflate(byte[] payload, int compressionLevel) {
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(payload.length / 4, 64));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static byte[] inflate(PayloadBlob blob) {
+        if (!ENCODING.equals(blob.getEncoding())) {
+            throw new IllegalStateException("Unsupported payload encoding " + blob.getEncoding() + " for blob " + blob.getId());
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(blob.getData());
+            byte[] payload = new byte[Math.toIntExact(blob.getLength())];
+            int read = 0;
+            while (read < payload.length && !inflater.finished()) {
+                int n = inflater.inflate(payload, read, payload.length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != payload.length) {
+                throw new IllegalStateException("Payload blob " + blob.getId() + " is truncated");
+            }
+            return payload;
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("Payload blob " + blob.getId() + " is corrupt", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * A type byte followed by the UTF-8 text, so a stack trace and a one-line log never share a blob.
+     */
+    static byte[] encodeText(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = new byte[utf8.length + 1];
+        payload[0] = TEXT;
+        System.arraycopy(utf8, 0, payload, 1, utf8.length);
+        return payload;
+    }
+
+    private static String decodeText(byte[] payload) {
+        if (payload == null || payload.length == 0 || payload[0] != TEXT) {
+            return null;
+        }
+        return new String(payload, 1, payload.length - 1, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A type byte, the line count, then each line as a length-prefixed UTF-8 string; lines may contain newlines.
+     */
+    static byte[] encodeLines(List<String> lines) {
+        if (lines == null || lines.isEmpty()) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(LINES);
+            out.writeInt(lines.size());
+            for (String line : lines) {
+                byte[] utf8 = line == null ? null : line.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8 == null ? -1 : utf8.length);
+                if (utf8 != null) {
+                    out.write(utf8);
+                }
+            }
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static List<String> decodeLines(byte[] payload) {
+        if (payload == null || payload.length == 0 || payload[0] != LINES) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, 1, payload.length - 1));
+            int count = in.readInt();
+            List<String> lines = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = in.readInt();
+                lines.add(length < 0 ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8));
+            }
+            return lines;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    static String sha256(byte[] payload) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(payload));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package aero.airfi.qa.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import aero.airfi.qa.model.FailureDetail;
+import aero.airfi.qa.model.PayloadBlob;
+import aero.airfi.qa.model.PayloadRef;
+import aero.airfi.qa.model.TestMethodResult;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves large logs and stack traces out of the result documents when {@code qa.payload.storage=external}.
+ * A payload of at least {@code offload-threshold-bytes} is deflated into the {@code payloadBlobs} collection,
+ * keyed by its SHA-256, and only a {@link PayloadRef} stays inline. Reads restore the payloads on demand,
+ * whatever the current mode, so inline and external documents can coexist.
+ */
+@Component
+@Slf4j
+public class PayloadStore {
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean external;
+    private final int thresholdBytes;
+    private final int compressionLevel;
+
+    public PayloadStore(MongoTemplate mongoTemplate,
+                        @Value("${qa.payload.storage:inline}") String storage,
+                        @Value("${qa.payload.offload-threshold-bytes:4096}") int thresholdBytes,
+                        @Value("${qa.payload.compression-level:6}") int compressionLevel) {
+        this.mongoTemplate = mongoTemplate;
+        this.external = "external".equalsIgnoreCase(storage.trim());
+        if (!external && !"inline".equalsIgnoreCase(storage.trim())) {
+            throw new IllegalArgumentException("Unknown qa.payload.storage: " + storage + ", expected inline or external");
+        }
+        this.thresholdBytes = Math.max(thresholdBytes, 0);
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Replaces the large payloads of the results with references, writing the blobs first so a stored result
+     * never points at a missing blob. The results are modified in place, and only once the blobs are written, so
+     * results whose blob write failed can be offered again unchanged.
+     */
+    public void offload(Collection<TestMethodResult> results, MongoOperations operations) {
+        if (!external) {
+            return;
+        }
+        Map<String, PayloadBlob> blobs = new LinkedHashMap<>();
+        List<Runnable> changes = new ArrayList<>();
+        for (TestMethodResult result : results) {
+            PayloadRef logsRef = offload(PayloadCodec.encodeLines(result.getLogs()), blobs);
+            if (logsRef != null) {
+                changes.add(() -> {
+                    result.setLogs(null);
+                    result.setLogsRef(logsRef);
+                });
+            }
+            if (result.getFailures() == null) {
+                continue;
+            }
+            for (FailureDetail failure : result.getFailures()) {
+                PayloadRef stackTraceRef = offload(PayloadCodec.encodeText(failure.getStackTrace()), blobs);
+                if (stackTraceRef != null) {
+                    changes.add(() -> {
+                        failure.setStackTrace(null);
+                        failure.setStackTraceRef(stackTraceRef);
+                    });
+                }
+                PayloadRef failureLogsRef = offload(PayloadCodec.encodeLines(failure.getLogs()), blobs);
+                if (failureLogsRef != null) {
+                    changes.add(() -> {
+                        failure.setLogs(null);
+                        failure.setLogsRef(failureLogsRef);
+                    });
+                }
+            }
+        }
+        if (blobs.isEmpty()) {
+            return;
+        }
+        BulkOperations ops = operations.bulkOps(BulkOperations.BulkMode.UNORDERED, PayloadBlob.class);
+        blobs.values().forEach(blob -> ops.upsert(
+                new Query(Criteria.where("_id").is(blob.getId())),
+                new Update()
+                        .setOnInsert("encoding", blob.getEncoding())
+                        .setOnInsert("length", blob.getLength())
+                        .setOnInsert("data", blob.getData())
+                        .setOnInsert("createdAt", blob.getCreatedAt())));
+        ops.execute();
+        changes.forEach(Runnable::run);
+        log.debug("Offloaded {} payloads for {} results", blobs.size(), results.size());
+    }
+
+    /**
+     * Returns the results with referenced payloads restored, loading every blob they need in one query. Results
+     * without references are returned as they are; the others are copied, since the input may be shared.
+     */
+    public List<TestMethodResult> hydrate(List<TestMethodResult> results) {
+        List<String> blobIds = results.stream().flatMap(result -> PayloadCodec.refs(result).stream()).map(PayloadRef::getBlobId).distinct().toList();
+        if (blobIds.isEmpty()) {
+            return results;
+        }
+        Map<String, byte[]> payloads = mongoTemplate.find(new Query(Criteria.where("_id").in(blobIds)), PayloadBlob.class).stream()
+                .collect(Collectors.toMap(PayloadBlob::getId, PayloadCodec::inflate));
+        if (payloads.size() < blobIds.size()) {
+            log.warn("{} of {} referenced payload blobs are missing", blobIds.size() - payloads.size(), blobIds.size());
+        }
+        List<TestMethodResult> hydrated = new ArrayList<>(results.size());
+        for (TestMethodResult result : results) {
+            hydrated.add(PayloadCodec.refs(result).isEmpty() ? result : PayloadCodec.restore(result, ref -> payloads.get(ref.getBlobId())));
+        }
+        return hydrated;
+    }
+
+    public TestMethodResult hydrate(TestMethodResult result) {
+        return hydrate(List.of(result)).get(0);
+    }
+
+    private PayloadRef offload(byte[] payload, Map<String, PayloadBlob> blobs) {
+        if (payload == null || payload.length < thresholdBytes) {
+            return null;
+        }
+        String blobId = PayloadCodec.sha256(payload);
+        blobs.computeIfAbsent(blobId, id -> PayloadBlob.builder()
+                .id(id)
+                .encoding(PayloadCodec.ENCODING)
+                .length(payload.length)
+                .data(PayloadCodec.deflate(payload, compressionLevel))
+                .createdAt(Instant.now())
+                .build());
+        return PayloadRef.builder().blobId(blobId).length(payload.length).build();
+    }
+
+}
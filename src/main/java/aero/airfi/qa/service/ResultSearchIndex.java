@@ -0,0 +1,608 @@
+package aero.airfi.qa.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.FlattenGraphFilter;
+import org.apache.lucene.analysis.miscellaneous.WordDelimiterGraphFilter;
+import org.apache.lucene.analysis.util.CharTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.MongoException;
+
+import aero.airfi.qa.exception.ResourceNotFoundException;
+import aero.airfi.qa.model.FailureDetail;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultCollection;
+import aero.airfi.qa.repository.TenantRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lucene index over the failure messages, stack traces and logs of stored results, kept on local disk in
+ * {@code qa.search.index-dir}. Stored and deleted results are handed to a background indexer, so ingest never waits
+ * for Lucene or for the blob and signature reads that restore offloaded text; searches see them after the next
+ * refresh, every {@code refresh-ms}. The indexer holds at most {@code queue-size} results. Beyond that, stored
+ * results are not queued and are read back from Mongo, by ObjectId, once the queue has drained. The index is
+ * committed every {@code commit-interval-ms} and on shutdown, after the queue is indexed.
+ * <p>
+ * At startup, results stored since shortly before the last commit are indexed again, found by ObjectId time, so
+ * results stored while the service was down or after its last commit become searchable. An empty index is built from
+ * every results collection this way. Updates and deletes after the last commit of a crashed instance are not
+ * replayed. Archived runs stay searchable, as their results are still served from the archive.
+ */
+@Component
+@Slf4j
+public class ResultSearchIndex implements SmartLifecycle {
+
+    public static final String STATUS = "status";
+    public static final String FEATURE = "featureName";
+    public static final String RUN_ID = "runId";
+
+    private static final String ID = "id";
+    private static final String IATA = "iata";
+    private static final String CLASS_NAME = "className";
+    private static final String METHOD_NAME = "methodName";
+    private static final String START_TIME = "startTime";
+    private static final String ERROR_MESSAGE = "errorMessage";
+    private static final String STACK_TRACE = "stackTrace";
+    private static final String LOGS = "logs";
+    private static final String COMMITTED_AT = "committedAt";
+
+    /**
+     * Searched fields and their weights: a match in the failure message ranks above one in the stack trace or logs.
+     */
+    private static final Map<String, Float> BOOSTS = Map.of(ERROR_MESSAGE, 3f, STACK_TRACE, 1.5f, LOGS, 1f);
+    private static final List<String> FACETS = List.of(STATUS, FEATURE, RUN_ID);
+    private static final Sort NEWEST_FIRST = new Sort(new SortField(START_TIME, SortField.Type.LONG, true), SortField.FIELD_SCORE);
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(5);
+    private static final int CATCH_UP_BATCH_SIZE = 500;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    private final TenantRouter tenantRouter;
+    private final PayloadStore payloadStore;
+    private final FailureSignatureService failureSignatureService;
+    private final boolean enabled;
+    private final Path indexDir;
+    private final int maxWindow;
+    private final int queueSize;
+    private final boolean virtualThreads;
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+    private final Analyzer queryAnalyzer = analyzer(false);
+    private final BlockingQueue<Change> changes = new LinkedBlockingQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicReference<ObjectId> overflowFrom = new AtomicReference<>();
+    private final Counter overflowed;
+    private volatile IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+    private volatile Thread indexer;
+    private volatile boolean indexing;
+
+    public ResultSearchIndex(TenantRouter tenantRouter, PayloadStore payloadStore,
+                             FailureSignatureService failureSignatureService, MeterRegistry meterRegistry,
+                             @Value("${qa.search.enabled:true}") boolean enabled,
+                             @Value("${qa.search.index-dir:search-index}") String indexDir,
+                             @Value("${qa.search.max-window:1000}") int maxWindow,
+                             @Value("${qa.search.queue-size:10000}") int queueSize,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.tenantRouter = tenantRouter;
+        this.payloadStore = payloadStore;
+        this.failureSignatureService = failureSignatureService;
+        this.enabled = enabled;
+        this.indexDir = Path.of(indexDir);
+        this.maxWindow = Math.max(maxWindow, 1);
+        this.queueSize = Math.max(queueSize, 1);
+        this.virtualThreads = virtualThreads;
+        Gauge.builder("qa.search.documents", this, index -> index.writer == null ? 0 : index.writer.getDocStats().numDocs)
+                .description("Results in the full-text search index")
+                .register(meterRegistry);
+        Gauge.builder("qa.search.queue", queued, AtomicInteger::get)
+                .description("Stored results waiting to be indexed")
+                .register(meterRegistry);
+        this.overflowed = Counter.builder("qa.search.overflowed")
+                .description("Stored results not queued for indexing because the queue was full, read back from Mongo later")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A batch of stored results to index, or the id of a removed result; removals share the queue so that a result
+     * deleted while its store is queued stays deleted.
+     */
+    private record Change(List<TestMethodResult> stored, String removedId) {}
+
+    /**
+     * One page of matching results, with the total number of matches and the top values of each facet among all
+     * of them.
+     */
+    public record SearchPage(long total, List<Hit> hits, Map<String, List<FacetCount>> facets) {}
+
+    public record Hit(String id, String runId, String status, String featureName, String className, String methodName,
+                      Instant startTime, String errorMessage, float score) {}
+
+    public record FacetCount(String value, long count) {}
+
+    /**
+     * Searches the results of an IATA. The query uses Lucene syntax over errorMessage, stackTrace and logs with AND
+     * between terms; words joined by punctuation, like {@code seat-map}, match as a phrase and camel-case words also
+     * match their parts, so {@code TimeoutException} finds {@code SocketTimeoutException}. Status, feature and the
+     * runs (null for any run) narrow the matches before paging and faceting. A page starting at or past
+     * {@code max-window} matches is rejected.
+     */
+    public SearchPage search(String iata, String text, String status, String feature, Collection<String> runIds,
+                             boolean newestFirst, int page, int size, int facetLimit) {
+        SearcherManager manager = searcherManager;
+        if (manager == null) {
+            throw new ResourceNotFoundException("Full-text search is disabled");
+        }
+        if (runIds != null && runIds.isEmpty()) {
+            return new SearchPage(0, List.of(), Map.of());
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(parse(text), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(IATA, iata)), BooleanClause.Occur.FILTER);
+        if (status != null && !status.isBlank()) {
+            query.add(new TermQuery(new Term(STATUS, status.trim().toUpperCase(Locale.ROOT))), BooleanClause.Occur.FILTER);
+        }
+        if (feature != null && !feature.isBlank()) {
+            query.add(new TermQuery(new Term(FEATURE, feature.trim())), BooleanClause.Occur.FILTER);
+        }
+        if (runIds != null) {
+            query.add(new TermInSetQuery(RUN_ID, runIds.stream().map(BytesRef::new).toList()), BooleanClause.Occur.FILTER);
+        }
+        long offset = (long) page * size;
+        if (offset >= maxWindow) {
+            throw new IllegalArgumentException("Invalid value for query parameter 'page': '" + page + "'. Only the first "
+                    + maxWindow + " matches can be paged through, narrow the query");
+        }
+        int from = (int) offset;
+        int window = (int) Math.min(offset + size, maxWindow);
+        try {
+            FacetedSearcher searcher = (FacetedSearcher) manager.acquire();
+            try {
+                FacetsCollectorManager.FacetsResult result = newestFirst
+                        ? FacetsCollectorManager.search(searcher, query.build(), Math.max(window, 1), NEWEST_FIRST, new FacetsCollectorManager())
+                        : FacetsCollectorManager.search(searcher, query.build(), Math.max(window, 1), new FacetsCollectorManager());
+                List<Hit> hits = new ArrayList<>();
+                ScoreDoc[] scoreDocs = result.topDocs().scoreDocs;
+                for (int i = from; i < Math.min(window, scoreDocs.length); i++) {
+                    hits.add(toHit(searcher.storedFields().document(scoreDocs[i].doc), scoreDocs[i].score));
+                }
+                long total = result.facetsCollector().getMatchingDocs().stream().mapToLong(docs -> docs.totalHits).sum();
+                return new SearchPage(total, hits, facets(searcher, result.facetsCollector(), facetLimit));
+            } finally {
+                manager.release(searcher);
+            }
+        } catch (IndexSearcher.TooManyClauses ex) {
+            throw new IllegalArgumentException("Search query matches too many terms, narrow it down");
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @EventListener
+    public void onResultsStored(TestResultsStoredEvent event) {
+        List<TestMethodResult> results = event.getResults();
+        if (writer == null || results.isEmpty()) {
+            return;
+        }
+        if (queued.addAndGet(results.size()) > queueSize) {
+            queued.addAndGet(-results.size());
+            overflowed.increment(results.size());
+            results.stream().map(TestMethodResult::getId).filter(ObjectId::isValid).map(ObjectId::new)
+                    .forEach(id -> overflowFrom.accumulateAndGet(id, (a, b) -> a == null || b.compareTo(a) < 0 ? b : a));
+            return;
+        }
+        changes.add(new Change(results, null));
+    }
+
+    @EventListener
+    public void onResultRemoved(TestResultRemovedEvent event) {
+        if (writer == null || event.getResult().getId() == null) {
+            return;
+        }
+        changes.add(new Change(null, event.getResult().getId()));
+    }
+
+    /**
+     * Indexes the results stored since {@link #CATCH_UP_MARGIN} before the last commit, or all of them when the
+     * index is empty, on a background thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUp() {
+        IndexWriter current = writer;
+        if (current == null) {
+            return;
+        }
+        Instant committedAt = null;
+        for (Map.Entry<String, String> entry : current.getLiveCommitData()) {
+            if (COMMITTED_AT.equals(entry.getKey())) {
+                committedAt = Instant.ofEpochMilli(Long.parseLong(entry.getValue()));
+            }
+        }
+        ObjectId from = committedAt == null || current.getDocStats().numDocs == 0
+                ? null : ObjectId.getSmallestWithDate(Date.from(committedAt.minus(CATCH_UP_MARGIN)));
+        threads().name("search-index-catch-up").start(() -> catchUp(current, from));
+    }
+
+    @Scheduled(fixedDelayString = "${qa.search.refresh-ms:1000}")
+    public void refresh() {
+        SearcherManager manager = searcherManager;
+        if (manager == null) {
+            return;
+        }
+        try {
+            manager.maybeRefresh();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Failed to refresh the search index: {}", ex.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${qa.search.commit-interval-ms:10000}")
+    public void commit() {
+        IndexWriter current = writer;
+        if (current == null || !current.hasUncommittedChanges()) {
+            return;
+        }
+        try {
+            // results that overflowed the queue and are not indexed yet are read back by the next start's catch-up
+            ObjectId overflow = overflowFrom.get();
+            long committedAt = overflow == null ? System.currentTimeMillis() : Math.min(System.currentTimeMillis(), overflow.getDate().getTime());
+            current.setLiveCommitData(Map.of(COMMITTED_AT, String.valueOf(committedAt)).entrySet());
+            current.commit();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Failed to commit the search index: {}", ex.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || writer != null) {
+            return;
+        }
+        try {
+            IndexWriter opened = new IndexWriter(FSDirectory.open(indexDir),
+                    new IndexWriterConfig(analyzer(true)).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            searcherManager = new SearcherManager(opened, new SearcherFactory() {
+                @Override
+                public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) throws IOException {
+                    return new FacetedSearcher(reader, facetsConfig);
+                }
+            });
+            writer = opened;
+            indexing = true;
+            indexer = threads().name("search-indexer").start(this::indexLoop);
+            log.info("Search index opened at {} with {} results", indexDir.toAbsolutePath(), opened.getDocStats().numDocs);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open the search index at " + indexDir.toAbsolutePath(), ex);
+        }
+    }
+
+    @Override
+    public void stop() {
+        IndexWriter current = writer;
+        if (current == null) {
+            return;
+        }
+        Thread running = indexer;
+        indexer = null;
+        indexing = false;
+        if (running != null) {
+            try {
+                running.join(SHUTDOWN_TIMEOUT_MS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        commit();
+        searcherManager = null;
+        writer = null;
+        try {
+            current.close();
+        } catch (IOException ex) {
+            log.warn("Failed to close the search index: {}", ex.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return writer != null;
+    }
+
+    /**
+     * Stop after the write-behind ingestor, whose drain still publishes stored results.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    /**
+     * Indexes queued changes until the index is stopped, then whatever is still queued. Consecutive stored batches
+     * are restored together, so their blobs and signatures are read with one query each.
+     */
+    private void indexLoop() {
+        List<Change> batch = new ArrayList<>();
+        while (indexing || !changes.isEmpty()) {
+            Change first;
+            try {
+                first = changes.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first != null) {
+                batch.add(first);
+                changes.drainTo(batch, CATCH_UP_BATCH_SIZE);
+                apply(batch);
+                batch.clear();
+            }
+            ObjectId from = overflowFrom.getAndSet(null);
+            if (from != null && indexing) {
+                catchUp(writer, from);
+            }
+        }
+    }
+
+    private void apply(List<Change> batch) {
+        IndexWriter current = writer;
+        List<TestMethodResult> stored = new ArrayList<>();
+        for (Change change : batch) {
+            if (change.stored() != null) {
+                stored.addAll(change.stored());
+                continue;
+            }
+            stored = indexStored(current, stored);
+            try {
+                current.deleteDocuments(new Term(ID, change.removedId()));
+            } catch (IOException | RuntimeException ex) {
+                log.error("Failed to remove result {} from the search index", change.removedId(), ex);
+            }
+        }
+        indexStored(current, stored);
+    }
+
+    private List<TestMethodResult> indexStored(IndexWriter current, List<TestMethodResult> stored) {
+        if (stored.isEmpty()) {
+            return stored;
+        }
+        try {
+            index(current, hydrate(stored));
+        } catch (IOException | RuntimeException ex) {
+            log.error("Failed to index {} results for search", stored.size(), ex);
+        } finally {
+            queued.addAndGet(-stored.size());
+        }
+        return new ArrayList<>();
+    }
+
+    private Thread.Builder threads() {
+        return virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+    }
+
+    private void catchUp(IndexWriter current, ObjectId from) {
+        if (current == null) {
+            return;
+        }
+        Criteria criteria = from == null ? new Criteria() : Criteria.where("_id").gte(from);
+        org.springframework.data.mongodb.core.query.Query query =
+                new org.springframework.data.mongodb.core.query.Query(criteria).cursorBatchSize(CATCH_UP_BATCH_SIZE);
+        long indexed = 0;
+        try {
+            for (ResultCollection route : tenantRouter.all()) {
+                try (Stream<TestMethodResult> results = route.stream(query)) {
+                    List<TestMethodResult> batch = new ArrayList<>(CATCH_UP_BATCH_SIZE);
+                    for (TestMethodResult result : (Iterable<TestMethodResult>) results::iterator) {
+                        batch.add(result);
+                        if (batch.size() == CATCH_UP_BATCH_SIZE) {
+                            index(current, hydrate(batch));
+                            indexed += batch.size();
+                            batch.clear();
+                        }
+                    }
+                    index(current, hydrate(batch));
+                    indexed += batch.size();
+                }
+            }
+            commit();
+            log.info("Search index caught up with {} results stored since {}", indexed, from == null ? "the beginning" : from.getDate().toInstant());
+        } catch (IOException | MongoException | DataAccessException | IllegalStateException ex) {
+            log.warn("Search index catch-up stopped after {} results: {}", indexed, ex.getMessage());
+        }
+    }
+
+    private List<TestMethodResult> hydrate(List<TestMethodResult> results) {
+        return failureSignatureService.restoreStackTraces(payloadStore.hydrate(results));
+    }
+
+    private void index(IndexWriter current, List<TestMethodResult> results) throws IOException {
+        for (TestMethodResult result : results) {
+            if (result.getId() != null && result.getIata() != null) {
+                current.updateDocument(new Term(ID, result.getId()), facetsConfig.build(toDocument(result)));
+            }
+        }
+    }
+
+    private static Document toDocument(TestMethodResult result) {
+        Document document = new Document();
+        document.add(new StringField(ID, result.getId(), Field.Store.YES));
+        document.add(new StringField(IATA, result.getIata(), Field.Store.NO));
+        addFacet(document, RUN_ID, result.getRunId());
+        addFacet(document, STATUS, result.getStatus() == null ? null : result.getStatus().toUpperCase(Locale.ROOT));
+        addFacet(document, FEATURE, result.getFeatureName());
+        if (result.getClassName() != null) {
+            document.add(new StoredField(CLASS_NAME, result.getClassName()));
+        }
+        if (result.getMethodName() != null) {
+            document.add(new StoredField(METHOD_NAME, result.getMethodName()));
+        }
+        if (result.getStartTime() != null) {
+            document.add(new NumericDocValuesField(START_TIME, result.getStartTime().toEpochMilli()));
+            document.add(new StoredField(START_TIME, result.getStartTime().toEpochMilli()));
+        }
+        addText(document, LOGS, result.getLogs());
+        if (result.getFailures() != null) {
+            for (FailureDetail failure : result.getFailures()) {
+                if (failure.getErrorMessage() != null) {
+                    document.add(new TextField(ERROR_MESSAGE, failure.getErrorMessage(), Field.Store.YES));
+                }
+                if (failure.getStackTrace() != null) {
+                    document.add(new TextField(STACK_TRACE, failure.getStackTrace(), Field.Store.NO));
+                }
+                addText(document, LOGS, failure.getLogs());
+            }
+        }
+        return document;
+    }
+
+    private static void addFacet(Document document, String field, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        document.add(new StringField(field, value, Field.Store.YES));
+        document.add(new SortedSetDocValuesFacetField(field, value));
+    }
+
+    private static void addText(Document document, String field, List<String> lines) {
+        if (lines != null && !lines.isEmpty()) {
+            document.add(new TextField(field, String.join("\n", lines), Field.Store.NO));
+        }
+    }
+
+    private static Hit toHit(Document document, float score) {
+        StoredField startTime = (StoredField) document.getField(START_TIME);
+        return new Hit(document.get(ID), document.get(RUN_ID), document.get(STATUS), document.get(FEATURE),
+                document.get(CLASS_NAME), document.get(METHOD_NAME),
+                startTime == null ? null : Instant.ofEpochMilli(startTime.numericValue().longValue()),
+                document.get(ERROR_MESSAGE), Float.isNaN(score) ? 0 : score);
+    }
+
+    private Query parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Search query q must not be blank");
+        }
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(BOOSTS.keySet().toArray(String[]::new), queryAnalyzer, BOOSTS);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        parser.setSplitOnWhitespace(true);
+        parser.setAutoGeneratePhraseQueries(true);
+        try {
+            return parser.parse(text);
+        } catch (ParseException ex) {
+            throw new IllegalArgumentException("Invalid search query: " + ex.getMessage().lines().findFirst().orElse(text));
+        }
+    }
+
+    private static Map<String, List<FacetCount>> facets(FacetedSearcher searcher, FacetsCollector collector, int limit) throws IOException {
+        Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+        SortedSetDocValuesFacetCounts counts = searcher.facetState == null ? null : new SortedSetDocValuesFacetCounts(searcher.facetState, collector);
+        for (String dim : FACETS) {
+            FacetResult result = counts == null ? null : counts.getTopChildren(Math.max(limit, 1), dim);
+            List<FacetCount> values = new ArrayList<>();
+            if (result != null) {
+                for (LabelAndValue labelAndValue : result.labelValues) {
+                    values.add(new FacetCount(labelAndValue.label, labelAndValue.value.longValue()));
+                }
+            }
+            facets.put(dim, values);
+        }
+        return facets;
+    }
+
+    /**
+     * Analyzer of the searched fields: splits on anything but letters and digits, adds the parts of camel-case words
+     * and lowercases. The graph is flattened for indexing only.
+     */
+    private static Analyzer analyzer(boolean indexing) {
+        int flags = WordDelimiterGraphFilter.GENERATE_WORD_PARTS
+                | WordDelimiterGraphFilter.SPLIT_ON_CASE_CHANGE
+                | WordDelimiterGraphFilter.PRESERVE_ORIGINAL;
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer tokenizer = CharTokenizer.fromTokenCharPredicate(Character::isLetterOrDigit);
+                TokenStream stream = new WordDelimiterGraphFilter(tokenizer, flags, null);
+                if (indexing) {
+                    stream = new FlattenGraphFilter(stream);
+                }
+                return new TokenStreamComponents(tokenizer, new LowerCaseFilter(stream));
+            }
+        };
+    }
+
+    /**
+     * A searcher with the facet ordinals of its reader, built once per refresh rather than per search.
+     */
+    private static final class FacetedSearcher extends IndexSearcher {
+
+        private final SortedSetDocValuesReaderState facetState;
+
+        FacetedSearcher(IndexReader reader, FacetsConfig facetsConfig) throws IOException {
+            super(reader);
+            this.facetState = reader.numDocs() == 0 ? null : new DefaultSortedSetDocValuesReaderState(reader, facetsConfig);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package aero.airfi.qa.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.MongoException;
+
+import aero.airfi.qa.model.RunCatalogEntry;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultCollection;
+import aero.airfi.qa.repository.TenantRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves runs older than their IATA's retention period to the {@link RunArchive} and deletes them from
+ * the IATA's results collection in throttled batches. A run's age is its {@code lastSeen} in the run catalog; the
+ * catalog, run summaries and other rollups are kept, so archived runs stay listed and summarized.
+ * <p>
+ * Policies are {@code qa.retention.default-days} and per-IATA overrides in {@code qa.retention.days-by-iata}
+ * ({@code DXB:30,LHR:90}); 0 keeps results forever.
+ */
+@Service
+@Slf4j
+public class RetentionService {
+
+    private final MongoTemplate mongoTemplate;
+    private final RunArchive runArchive;
+    private final TenantRouter tenantRouter;
+    private final int defaultDays;
+    private final Map<String, Integer> daysByIata;
+    private final int runsPerPass;
+    private final int deleteBatchSize;
+    private final long deletePauseMs;
+    private final boolean virtualThreads;
+    private final AtomicBoolean passRunning = new AtomicBoolean();
+    private final Counter archivedRuns;
+    private final Counter deletedResults;
+
+    public RetentionService(MongoTemplate mongoTemplate, RunArchive runArchive, TenantRouter tenantRouter, MeterRegistry meterRegistry,
+                            @Value("${qa.retention.default-days:0}") int defaultDays,
+                            @Value("${qa.retention.days-by-iata:}") String daysByIata,
+                            @Value("${qa.retention.runs-per-pass:50}") int runsPerPass,
+                            @Value("${qa.retention.delete-batch-size:1000}") int deleteBatchSize,
+                            @Value("${qa.retention.delete-pause-ms:100}") long deletePauseMs,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.mongoTemplate = mongoTemplate;
+        this.runArchive = runArchive;
+        this.tenantRouter = tenantRouter;
+        this.defaultDays = Math.max(defaultDays, 0);
+        this.daysByIata = parsePolicies(daysByIata);
+        this.runsPerPass = Math.max(runsPerPass, 1);
+        this.deleteBatchSize = Math.max(deleteBatchSize, 1);
+        this.deletePauseMs = Math.max(deletePauseMs, 0);
+        this.virtualThreads = virtualThreads;
+        this.archivedRuns = Counter.builder("qa.retention.runs.archived")
+                .description("Runs moved to the cold archive")
+                .register(meterRegistry);
+        this.deletedResults = Counter.builder("qa.retention.results.deleted")
+                .description("Results deleted from the results collections after archiving")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retention period of an IATA in days, 0 when its results are kept forever.
+     */
+    public int retentionDays(String iata) {
+        return daysByIata.getOrDefault(iata, defaultDays);
+    }
+
+    /**
+     * Starts a retention pass on a thread of its own, virtual with {@code spring.threads.virtual.enabled}, so its
+     * throttled deletes do not hold up the other scheduled tasks on the scheduler's single thread. A pass still
+     * running when the next is due is left to finish instead.
+     */
+    @Scheduled(initialDelayString = "${qa.retention.initial-delay-ms:600000}", fixedDelayString = "${qa.retention.interval-ms:3600000}")
+    public void startRetention() {
+        if (!isEnabled() || !passRunning.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.Builder threads = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        threads.name("retention").start(() -> {
+            try {
+                applyRetention();
+            } finally {
+                passRunning.set(false);
+            }
+        });
+    }
+
+    public void applyRetention() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            List<String> iatas = defaultDays > 0
+                    ? mongoTemplate.findDistinct(new Query(), "iata", RunCatalogEntry.class, String.class)
+                    : List.copyOf(daysByIata.keySet());
+            for (String iata : iatas) {
+                int days = retentionDays(iata);
+                if (days > 0) {
+                    archiveExpiredRuns(iata, Instant.now().minus(Duration.ofDays(days)));
+                }
+            }
+        } catch (MongoException | DataAccessException ex) {
+            log.warn("Retention pass aborted: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Archives up to {@code qa.retention.runs-per-pass} runs of the IATA last written before {@code cutoff}, oldest
+     * first. Returns the number of runs archived.
+     */
+    public int archiveExpiredRuns(String iata, Instant cutoff) {
+        Query query = new Query(Criteria.where("iata").is(iata).and("lastSeen").lt(cutoff).and("archivedAt").exists(false))
+                .with(Sort.by("lastSeen"))
+                .limit(runsPerPass);
+        query.fields().include("runId");
+        int archived = 0;
+        for (RunCatalogEntry entry : mongoTemplate.find(query, RunCatalogEntry.class)) {
+            archiveRun(iata, entry.getRunId());
+            archived++;
+        }
+        if (archived > 0) {
+            log.info("Retention archived {} runs of iata={} last written before {}", archived, iata, cutoff);
+        }
+        return archived;
+    }
+
+    /**
+     * Writes the run to its archive segment, deletes the archived results, then marks the run archived in the
+     * catalog. Reads merge the segment with any results not yet deleted, so the run stays complete throughout; an
+     * interrupted delete leaves the run unmarked and the next pass finishes it. Results ingested for the run later
+     * clear the mark and are archived on a later pass; the mark is not set when results arrived while archiving,
+     * since reads of a marked run skip the hot collection.
+     */
+    public void archiveRun(String iata, String runId) {
+        Instant started = Instant.now();
+        List<Object> ids = runArchive.archive(iata, runId);
+        archivedRuns.increment();
+        for (int from = 0; from < ids.size(); from += deleteBatchSize) {
+            if (from > 0 && deletePauseMs > 0) {
+                try {
+                    Thread.sleep(deletePauseMs);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    log.warn("Retention interrupted while deleting run {} iata={}; the rest is deleted on the next pass", runId, iata);
+                    return;
+                }
+            }
+            List<Object> batch = ids.subList(from, Math.min(from + deleteBatchSize, ids.size()));
+            for (ResultCollection route : tenantRouter.readRoutes(iata)) {
+                deletedResults.increment(route.template().remove(new Query(Criteria.where("_id").in(batch)), TestMethodResult.class, route.name()).getDeletedCount());
+            }
+        }
+        mongoTemplate.updateFirst(new Query(Criteria.where("iata").is(iata).and("runId").is(runId).and("lastSeen").lt(started)),
+                new Update().set("archivedAt", Instant.now()), RunCatalogEntry.class);
+    }
+
+    private boolean isEnabled() {
+        return defaultDays > 0 || daysByIata.values().stream().anyMatch(days -> days > 0);
+    }
+
+    private static Map<String, Integer> parsePolicies(String policies) {
+        Map<String, Integer> days = new HashMap<>();
+        for (String policy : policies.split(",")) {
+            if (policy.isBlank()) {
+                continue;
+            }
+            String[] parts = policy.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid qa.retention.days-by-iata entry: '" + policy.trim() + "', expected IATA:days");
+            }
+            days.put(parts[0].trim(), Math.max(Integer.parseInt(parts[1].trim()), 0));
+        }
+        return Map.copyOf(days);
+    }
+}
@@ -0,0 +1,275 @@
+package aero.airfi.qa.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.client.MongoCursor;
+
+import aero.airfi.qa.model.ArchivedRun;
+import aero.airfi.qa.model.RunCatalogEntry;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultCollection;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import aero.airfi.qa.repository.TenantRouter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The cold tier: whole runs as gzip NDJSON segments, one file per run, indexed by {@code archivedRuns}. Documents
+ * are kept exactly as stored (extended JSON), so payload and signature references resolve as for hot results.
+ * Segments are written in (className, methodName) order, so a run diff can merge them with hot results as streams.
+ * Reads filter and project each document as it is read and are only attempted for runs present in the index.
+ */
+@Component
+@Slf4j
+public class RunArchive {
+
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+    private static final Comparator<String> NAME_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final Comparator<Document> BY_METHOD = Comparator
+            .comparing((Document document) -> document.getString("className"), NAME_ORDER)
+            .thenComparing(document -> document.getString("methodName"), NAME_ORDER);
+
+    private final MongoTemplate mongoTemplate;
+    private final TenantRouter tenantRouter;
+    private final Path directory;
+    private final int cursorBatchSize;
+
+    public RunArchive(MongoTemplate mongoTemplate, TenantRouter tenantRouter,
+                      @Value("${qa.retention.archive-dir:archive}") String directory,
+                      @Value("${qa.query.cursor-batch-size:500}") int cursorBatchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.tenantRouter = tenantRouter;
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.cursorBatchSize = cursorBatchSize;
+    }
+
+    /**
+     * Merges the run's hot results into its segment, rewriting it through a temporary file that replaces the old one
+     * only when complete, then records the segment in {@code archivedRuns}. Results already in the segment, left
+     * behind by an interrupted delete, are not written twice. Returns the ids of the hot results now archived.
+     */
+    public List<Object> archive(String iata, String runId) {
+        ArchivedRun existing = find(iata, runId);
+        String segment = existing != null ? existing.getSegment() : segmentName(iata, runId);
+        Path target = directory.resolve(segment);
+        Set<Object> archivedIds = new HashSet<>();
+        List<Object> hotIds = new ArrayList<>();
+        long results = 0;
+        MessageDigest sha256 = sha256();
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), ".segment", ".tmp");
+            List<MongoCursor<Document>> cursors = new ArrayList<>();
+            try {
+                try (Writer out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                        new DigestOutputStream(Files.newOutputStream(temp), sha256), 64 * 1024), StandardCharsets.UTF_8));
+                     Stream<Document> archived = existing != null ? readSegment(target) : Stream.empty()) {
+                    List<Iterator<Document>> sources = new ArrayList<>();
+                    sources.add(archived.iterator());
+                    for (ResultCollection route : tenantRouter.readRoutes(iata)) {
+                        MongoCursor<Document> cursor = route.collection()
+                                .find(new Document("iata", iata).append("runId", runId))
+                                .sort(new Document("className", 1).append("methodName", 1))
+                                .batchSize(cursorBatchSize)
+                                .iterator();
+                        cursors.add(cursor);
+                        sources.add(StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED), false)
+                                .peek(document -> hotIds.add(document.get("_id")))
+                                .iterator());
+                    }
+                    for (Iterator<Document> documents = mergeByMethod(sources); documents.hasNext(); ) {
+                        Document document = documents.next();
+                        if (archivedIds.add(document.get("_id"))) {
+                            writeLine(out, document);
+                            results++;
+                        }
+                    }
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                cursors.forEach(MongoCursor::close);
+                Files.deleteIfExists(temp);
+            }
+            mongoTemplate.save(ArchivedRun.builder()
+                    .id(ArchivedRun.key(iata, runId))
+                    .iata(iata)
+                    .runId(runId)
+                    .segment(segment)
+                    .results(results)
+                    .bytes(Files.size(target))
+                    .sha256(HexFormat.of().formatHex(sha256.digest()))
+                    .archivedAt(Instant.now())
+                    .build());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to archive run " + runId + ", iata=" + iata, ex);
+        }
+        log.info("Archived run {} iata={}: {} results in {}", runId, iata, results, segment);
+        return hotIds;
+    }
+
+    public ArchivedRun find(String iata, String runId) {
+        return mongoTemplate.findById(ArchivedRun.key(iata, runId), ArchivedRun.class);
+    }
+
+    /**
+     * Whether the run's hot results were all deleted after archiving, so reads can skip the hot collection. Retention
+     * marks the run archived in the catalog once its delete has finished; results ingested later clear the mark.
+     */
+    public boolean hotResultsDeleted(String iata, String runId) {
+        return mongoTemplate.exists(new Query(Criteria.where("iata").is(iata).and("runId").is(runId).and("archivedAt").exists(true)),
+                RunCatalogEntry.class);
+    }
+
+    /**
+     * Streams the archived results matching the query in (className, methodName) order. The caller must close the
+     * stream.
+     */
+    public Stream<TestMethodResult> streamRun(ArchivedRun archived, RunQuery runQuery, ResultView view) {
+        return readRun(directory.resolve(archived.getSegment()), runQuery, view)
+                .map(document -> mongoTemplate.getConverter().read(TestMethodResult.class, document));
+    }
+
+    /**
+     * The documents of a segment matching the query, projected to the view. Shared with the reactive read service,
+     * which reads the same archive directory. The caller must close the stream.
+     */
+    public static Stream<Document> readRun(Path segment, RunQuery runQuery, ResultView view) {
+        return readSegment(segment)
+                .filter(document -> matches(document, runQuery))
+                .map(document -> project(document, view));
+    }
+
+    private static boolean matches(Document document, RunQuery runQuery) {
+        return (runQuery.getSuiteType() == null || runQuery.getSuiteType().equals(document.get("suiteType")))
+                && (runQuery.getFeatureName() == null || runQuery.getFeatureName().equals(document.get("featureName")))
+                && (runQuery.getStatus() == null || runQuery.getStatus().equals(document.get("status")));
+    }
+
+    /**
+     * Applies the same projection {@link RunQuery#toQuery} asks Mongo for.
+     */
+    private static Document project(Document document, ResultView view) {
+        if (view.isFull()) {
+            return document;
+        }
+        Set<String> fields = new HashSet<>(view.getFields());
+        fields.add("_id");
+        if (fields.contains("logs")) {
+            fields.add("logsRef");
+        }
+        document.keySet().retainAll(fields);
+        return document;
+    }
+
+    /**
+     * Merges sources that are each in (className, methodName) order; of equal methods, earlier sources come first.
+     */
+    static Iterator<Document> mergeByMethod(List<Iterator<Document>> sources) {
+        record Head(Document document, int source) {}
+        PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing(Head::document, BY_METHOD).thenComparingInt(Head::source));
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i).hasNext()) {
+                heads.add(new Head(sources.get(i).next(), i));
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Document next() {
+                Head head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                Iterator<Document> source = sources.get(head.source());
+                if (source.hasNext()) {
+                    heads.add(new Head(source.next(), head.source()));
+                }
+                return head.document();
+            }
+        };
+    }
+
+    private static Stream<Document> readSegment(Path segment) {
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(segment), 64 * 1024), StandardCharsets.UTF_8));
+            return reader.lines().filter(line -> !line.isEmpty()).map(Document::parse).onClose(() -> {
+                try {
+                    reader.close();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read archive segment " + segment, ex);
+        }
+    }
+
+    private static void writeLine(Writer out, Document document) throws IOException {
+        out.write(document.toJson(JSON));
+        out.write('\n');
+    }
+
+    private static String segmentName(String iata, String runId) {
+        return encode(iata) + "/" + encode(runId) + ".ndjson.gz";
+    }
+
+    /**
+     * URL-encodes a path element, dots included, so no id can name a parent directory.
+     */
+    private static String encode(String value) {
+        return URLEncoder.encode(Objects.requireNonNullElse(value, ""), StandardCharsets.UTF_8).replace(".", "%2E");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
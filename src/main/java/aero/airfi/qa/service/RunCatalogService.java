@@ -0,0 +1,146 @@
+package aero.airfi.qa.service;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.MongoException;
+
+import aero.airfi.qa.model.RunCatalogEntry;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultCollection;
+import aero.airfi.qa.repository.TenantRouter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintains the {@code runCatalog} collection and serves the runId listing from it, newest runId first. The listing
+ * reads through the query template, so a run may appear up to the configured staleness late.
+ */
+@Service
+@Slf4j
+public class RunCatalogService {
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoTemplate readTemplate;
+    private final TenantRouter tenantRouter;
+
+    @Value("${qa.run-catalog.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    public RunCatalogService(MongoTemplate mongoTemplate, @Qualifier("readTemplate") MongoTemplate readTemplate,
+                             TenantRouter tenantRouter) {
+        this.mongoTemplate = mongoTemplate;
+        this.readTemplate = readTemplate;
+        this.tenantRouter = tenantRouter;
+    }
+
+    /**
+     * Returns up to {@code size} runIds that sort after {@code cursor} (the last runId of the previous page),
+     * or the first page when {@code cursor} is null. Served by the {iata, runId} index whatever the page depth.
+     */
+    public List<String> getRunIdsAfter(String iata, String cursor, int size) {
+        Criteria criteria = Criteria.where("iata").is(iata);
+        if (cursor != null) {
+            criteria.and("runId").lt(cursor);
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "runId")).limit(Math.max(size, 1));
+        query.fields().include("runId");
+        return readTemplate.find(query, RunCatalogEntry.class).stream().map(RunCatalogEntry::getRunId).toList();
+    }
+
+    /**
+     * Offset variant kept for {@code ?page=}; cheaper than the old result aggregation but still skips catalog entries.
+     */
+    public List<String> getRunIdsPage(String iata, int page, int size) {
+        Query query = new Query(Criteria.where("iata").is(iata))
+                .with(Sort.by(Sort.Direction.DESC, "runId"))
+                .skip((long) Math.max(page, 0) * Math.max(size, 1))
+                .limit(Math.max(size, 1));
+        query.fields().include("runId");
+        return readTemplate.find(query, RunCatalogEntry.class).stream().map(RunCatalogEntry::getRunId).toList();
+    }
+
+    @EventListener
+    public void onResultsStored(TestResultsStoredEvent event) {
+        Map<List<String>, TestMethodResult> firstOfRun = new LinkedHashMap<>();
+        for (TestMethodResult result : event.getResults()) {
+            firstOfRun.putIfAbsent(Arrays.asList(result.getIata(), result.getRunId()), result);
+        }
+        Instant now = Instant.now();
+        try {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RunCatalogEntry.class);
+            firstOfRun.values().forEach(result -> ops.upsert(
+                    new Query(Criteria.where("iata").is(result.getIata()).and("runId").is(result.getRunId())),
+                    new Update()
+                            .setOnInsert("firstSeen", now)
+                            .setOnInsert("environment", result.getEnvironment())
+                            .max("lastSeen", now)
+                            .unset("archivedAt")));
+            ops.execute();
+        } catch (DataAccessException ex) {
+            log.error("Failed to update run catalog for {} runs", firstOfRun.size(), ex);
+        }
+    }
+
+    /**
+     * Seeds an empty catalog from existing results with one {@code $group}/{@code $merge} aggregation per results
+     * collection, so upgrading a populated database keeps its runId listing.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        try {
+            if (mongoTemplate.exists(new Query(), RunCatalogEntry.class)) {
+                return;
+            }
+            for (ResultCollection route : tenantRouter.all()) {
+                if (route.template().exists(new Query(), TestMethodResult.class, route.name())) {
+                    backfill(route);
+                }
+            }
+        } catch (MongoException | DataAccessException ex) {
+            log.warn("Skipping run catalog backfill: {}", ex.getMessage());
+        }
+    }
+
+    private void backfill(ResultCollection route) {
+        log.info("Run catalog is empty, backfilling from {}", route);
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group("iata", "runId")
+                        .min("startTime").as("firstSeen")
+                        .max("endTime").as("lastSeen")
+                        .first("environment").as("environment"),
+                Aggregation.project("firstSeen", "lastSeen", "environment")
+                        .and("_id.iata").as("iata")
+                        .and("_id.runId").as("runId")
+                        .andExclude("_id"),
+                Aggregation.merge()
+                        .intoCollection(mongoTemplate.getCollectionName(RunCatalogEntry.class))
+                        .inDatabase(mongoTemplate.getDb().getName())
+                        .on("iata", "runId")
+                        .whenMatched(MergeOperation.WhenDocumentsMatch.keepExistingDocument())
+                        .build());
+        route.template().aggregate(aggregation.withOptions(Aggregation.newAggregationOptions().allowDiskUse(true).build()),
+                route.name(), RunCatalogEntry.class);
+        log.info("Run catalog backfill of {} finished", route);
+    }
+}
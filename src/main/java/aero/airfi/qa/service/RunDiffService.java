@@ -0,0 +1,284 @@
+package aero.airfi.qa.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import aero.airfi.qa.exception.ResourceNotFoundException;
+import aero.airfi.qa.model.ArchivedRun;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import aero.airfi.qa.repository.TestMethodResultRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares two runs of an IATA method by method. Both runs are streamed in (className, methodName) order and
+ * merge-joined, so memory is bounded by the results of one method and the reported changes, not by run size.
+ * An archived run's segment is already in that order; it is streamed with the diff's fields and merged with any of
+ * its results still in the hot collection.
+ */
+@Service
+@Slf4j
+public class RunDiffService {
+
+    private static final Comparator<String> NAME_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final Comparator<TestMethodResult> BY_METHOD = Comparator
+            .comparing(TestMethodResult::getClassName, NAME_ORDER)
+            .thenComparing(TestMethodResult::getMethodName, NAME_ORDER);
+    private static final ResultView METHOD_FIELDS = ResultView.of(null, "className,methodName,featureName,status,durationMs");
+
+    private final TestMethodResultRepository testMethodResultRepository;
+    private final RunArchive runArchive;
+    private final double slowerRatio;
+    private final long slowerMinDeltaMs;
+    private final int maxEntries;
+
+    public RunDiffService(TestMethodResultRepository testMethodResultRepository, RunArchive runArchive,
+                          @Value("${qa.diff.slower-ratio:1.5}") double slowerRatio,
+                          @Value("${qa.diff.slower-min-delta-ms:1000}") long slowerMinDeltaMs,
+                          @Value("${qa.diff.max-entries:1000}") int maxEntries) {
+        this.testMethodResultRepository = testMethodResultRepository;
+        this.runArchive = runArchive;
+        this.slowerRatio = slowerRatio;
+        this.slowerMinDeltaMs = slowerMinDeltaMs;
+        this.maxEntries = Math.max(maxEntries, 1);
+    }
+
+    /**
+     * A method's results in one run, folded: FAIL if any execution failed, durations summed.
+     */
+    public record MethodOutcome(String className, String methodName, String featureName, String status,
+                                long durationMs, int executions) {}
+
+    /**
+     * A method present in at least one of the runs; either side is null when the method is missing there.
+     */
+    public record MethodChange(MethodOutcome candidate, MethodOutcome baseline) {}
+
+    /**
+     * The changes of a run against its baseline. Counts cover every change; each list stops at
+     * {@code qa.diff.max-entries}, in method order.
+     */
+    public record RunDiff(String iata, String runId, String baselineRunId, long methods, long baselineMethods,
+                          Category newlyFailing, Category newlyPassing, Category added, Category removed,
+                          Category slower) {}
+
+    public static final class Category {
+        private final int maxEntries;
+        private final List<MethodChange> changes = new ArrayList<>();
+        private long count;
+
+        Category(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        void add(MethodChange change) {
+            count++;
+            if (changes.size() < maxEntries) {
+                changes.add(change);
+            }
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public List<MethodChange> getChanges() {
+            return changes;
+        }
+
+        public boolean isTruncated() {
+            return count > changes.size();
+        }
+    }
+
+    public RunDiff diff(String iata, String runId, String baselineRunId) {
+        Category newlyFailing = new Category(maxEntries);
+        Category newlyPassing = new Category(maxEntries);
+        Category added = new Category(maxEntries);
+        Category removed = new Category(maxEntries);
+        Category slower = new Category(maxEntries);
+        long methods = 0;
+        long baselineMethods = 0;
+        try (Stream<TestMethodResult> candidateStream = streamRunByMethod(iata, runId);
+             Stream<TestMethodResult> baselineStream = streamRunByMethod(iata, baselineRunId)) {
+            MethodCursor candidates = new MethodCursor(candidateStream.iterator());
+            MethodCursor baselines = new MethodCursor(baselineStream.iterator());
+            MethodOutcome candidate = candidates.next();
+            MethodOutcome baseline = baselines.next();
+            while (candidate != null || baseline != null) {
+                int order = candidate == null ? 1 : baseline == null ? -1 : compare(candidate, baseline);
+                if (order < 0) {
+                    added.add(new MethodChange(candidate, null));
+                    methods++;
+                    candidate = candidates.next();
+                } else if (order > 0) {
+                    removed.add(new MethodChange(null, baseline));
+                    baselineMethods++;
+                    baseline = baselines.next();
+                } else {
+                    MethodChange change = new MethodChange(candidate, baseline);
+                    if ("FAIL".equals(candidate.status()) && !"FAIL".equals(baseline.status())) {
+                        newlyFailing.add(change);
+                    } else if ("PASS".equals(candidate.status()) && "FAIL".equals(baseline.status())) {
+                        newlyPassing.add(change);
+                    }
+                    if (isSlower(candidate, baseline)) {
+                        slower.add(change);
+                    }
+                    methods++;
+                    baselineMethods++;
+                    candidate = candidates.next();
+                    baseline = baselines.next();
+                }
+            }
+        }
+        if (methods == 0) {
+            throw new ResourceNotFoundException("Run id not found: " + runId + ", iata=" + iata);
+        }
+        if (baselineMethods == 0) {
+            throw new ResourceNotFoundException("Baseline run id not found: " + baselineRunId + ", iata=" + iata);
+        }
+        log.debug("Diffed run {} ({} methods) against {} ({} methods)", runId, methods, baselineRunId, baselineMethods);
+        return new RunDiff(iata, runId, baselineRunId, methods, baselineMethods, newlyFailing, newlyPassing, added, removed, slower);
+    }
+
+    /**
+     * The run's results in (className, methodName) order, archived ones included.
+     */
+    private Stream<TestMethodResult> streamRunByMethod(String iata, String runId) {
+        ArchivedRun archived = runArchive.find(iata, runId);
+        if (archived == null) {
+            return testMethodResultRepository.streamRunByMethod(iata, runId);
+        }
+        Stream<TestMethodResult> cold = runArchive.streamRun(archived, RunQuery.builder().iata(iata).runId(runId).build(), METHOD_FIELDS);
+        if (runArchive.hotResultsDeleted(iata, runId)) {
+            return cold;
+        }
+        Stream<TestMethodResult> hot = testMethodResultRepository.streamRunByMethod(iata, runId);
+        Iterator<TestMethodResult> merged = merge(cold.iterator(), hot.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, 0), false).onClose(cold::close).onClose(hot::close);
+    }
+
+    /**
+     * Merges two iterators that are each in (className, methodName) order. A result in both, archived but not yet
+     * deleted, is returned once; its copies sit in the same method, so only the ids of the current method are kept.
+     */
+    static Iterator<TestMethodResult> merge(Iterator<TestMethodResult> a, Iterator<TestMethodResult> b) {
+        return new Iterator<>() {
+            private final Set<String> methodIds = new HashSet<>();
+            private TestMethodResult nextA = a.hasNext() ? a.next() : null;
+            private TestMethodResult nextB = b.hasNext() ? b.next() : null;
+            private TestMethodResult method;
+            private TestMethodResult pending = advance();
+
+            @Override
+            public boolean hasNext() {
+                return pending != null;
+            }
+
+            @Override
+            public TestMethodResult next() {
+                if (pending == null) {
+                    throw new NoSuchElementException();
+                }
+                TestMethodResult result = pending;
+                pending = advance();
+                return result;
+            }
+
+            private TestMethodResult advance() {
+                while (nextA != null || nextB != null) {
+                    TestMethodResult result;
+                    if (nextB == null || (nextA != null && BY_METHOD.compare(nextA, nextB) <= 0)) {
+                        result = nextA;
+                        nextA = a.hasNext() ? a.next() : null;
+                    } else {
+                        result = nextB;
+                        nextB = b.hasNext() ? b.next() : null;
+                    }
+                    if (method == null || BY_METHOD.compare(method, result) != 0) {
+                        method = result;
+                        methodIds.clear();
+                    }
+                    if (result.getId() == null || methodIds.add(result.getId())) {
+                        return result;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    private boolean isSlower(MethodOutcome candidate, MethodOutcome baseline) {
+        long delta = candidate.durationMs() - baseline.durationMs();
+        return delta >= slowerMinDeltaMs && candidate.durationMs() >= baseline.durationMs() * slowerRatio;
+    }
+
+    /**
+     * Same order as the Mongo sort on className, methodName: nulls first, then by code point for the usual ASCII names.
+     */
+    private static int compare(MethodOutcome a, MethodOutcome b) {
+        int order = NAME_ORDER.compare(a.className(), b.className());
+        return order != 0 ? order : NAME_ORDER.compare(a.methodName(), b.methodName());
+    }
+
+    /**
+     * Folds consecutive results of the same method, as a run may execute a method more than once.
+     */
+    private static final class MethodCursor {
+        private final Iterator<TestMethodResult> results;
+        private TestMethodResult pending;
+
+        MethodCursor(Iterator<TestMethodResult> results) {
+            this.results = results;
+            this.pending = results.hasNext() ? results.next() : null;
+        }
+
+        MethodOutcome next() {
+            if (pending == null) {
+                return null;
+            }
+            TestMethodResult first = pending;
+            String status = normalize(first.getStatus());
+            long durationMs = first.getDurationMs();
+            int executions = 1;
+            pending = null;
+            while (results.hasNext()) {
+                TestMethodResult result = results.next();
+                if (!sameMethod(first, result)) {
+                    pending = result;
+                    break;
+                }
+                String other = normalize(result.getStatus());
+                if ("FAIL".equals(other) || ("PASS".equals(other) && !"FAIL".equals(status))) {
+                    status = other;
+                }
+                durationMs += result.getDurationMs();
+                executions++;
+            }
+            return new MethodOutcome(first.getClassName(), first.getMethodName(), first.getFeatureName(), status, durationMs, executions);
+        }
+
+        private static boolean sameMethod(TestMethodResult a, TestMethodResult b) {
+            return NAME_ORDER.compare(a.getClassName(), b.getClassName()) == 0
+                    && NAME_ORDER.compare(a.getMethodName(), b.getMethodName()) == 0;
+        }
+
+        private static String normalize(String status) {
+            return status == null ? null : status.trim().toUpperCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package aero.airfi.qa.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import aero.airfi.qa.exception.ResourceNotFoundException;
+import aero.airfi.qa.exception.SubscriberLimitException;
+import aero.airfi.qa.model.TestMethodResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams the results of a run to Server-Sent Events subscribers as they are stored. Each watched run has a ring of
+ * its last {@code qa.run-events.buffer-size} events, shared by its subscribers; a subscriber only holds its position
+ * in the ring and is sent events by its own thread, virtual with {@code spring.threads.virtual.enabled}, so a slow one
+ * delays nobody else. A subscriber that falls a whole ring behind is disconnected and, on reconnecting, told to
+ * reload the run.
+ * <p>
+ * Event ids are {@code <ring>-<sequence>}. A reconnect with {@code Last-Event-ID} resumes after that event while it is
+ * still in the ring; otherwise a {@code reset} event is sent first and the client reloads the run with
+ * {@code GET /api/{iata}/test-results/{runId}}. Runs are buffered from their first subscription until they have seen
+ * no result or subscriber for {@code idle-minutes}. Only results stored through this instance are streamed. At most
+ * {@code max-subscribers} streams are open at once, as each holds a thread; further subscriptions are answered 503.
+ */
+@Component
+@Slf4j
+public class RunEventBroadcaster {
+
+    public static final String RESULT = "result";
+    public static final String REMOVED = "removed";
+    public static final String RESET = "reset";
+
+    private static final AtomicLong RINGS = new AtomicLong(System.currentTimeMillis());
+
+    private final boolean enabled;
+    private final int bufferSize;
+    private final long heartbeatMs;
+    private final long timeoutMs;
+    private final int maxSubscribers;
+    private final boolean virtualThreads;
+    private final Cache<List<String>, RunEventLog> logs;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter evicted;
+    private final Counter rejected;
+
+    public RunEventBroadcaster(MeterRegistry meterRegistry,
+                               @Value("${qa.run-events.enabled:true}") boolean enabled,
+                               @Value("${qa.run-events.buffer-size:5000}") int bufferSize,
+                               @Value("${qa.run-events.heartbeat-seconds:15}") long heartbeatSeconds,
+                               @Value("${qa.run-events.timeout-ms:1800000}") long timeoutMs,
+                               @Value("${qa.run-events.idle-minutes:30}") long idleMinutes,
+                               @Value("${qa.run-events.max-runs:100}") long maxRuns,
+                               @Value("${qa.run-events.max-subscribers:500}") int maxSubscribers,
+                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.enabled = enabled;
+        this.bufferSize = Math.max(bufferSize, 1);
+        this.heartbeatMs = TimeUnit.SECONDS.toMillis(Math.max(heartbeatSeconds, 1));
+        this.timeoutMs = Math.max(timeoutMs, 0);
+        this.maxSubscribers = Math.max(maxSubscribers, 1);
+        this.virtualThreads = virtualThreads;
+        this.logs = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxRuns, 1))
+                .expireAfterAccess(Duration.ofMinutes(Math.max(idleMinutes, 1)))
+                .<List<String>, RunEventLog>removalListener((key, runLog, cause) -> {
+                    if (runLog != null) {
+                        runLog.close();
+                    }
+                })
+                .build();
+        Gauge.builder("qa.run-events.subscribers", subscribers, AtomicInteger::get)
+                .description("Open run event streams")
+                .register(meterRegistry);
+        this.evicted = Counter.builder("qa.run-events.evicted")
+                .description("Run event streams closed because the subscriber fell a whole buffer behind")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("qa.run-events.rejected")
+                .description("Run event streams refused because max-subscribers streams were open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Data of a {@code result} event: enough to update a progress view without fetching the result.
+     */
+    public record ResultEvent(String id, String className, String methodName, String featureName, String status,
+                              long durationMs, Instant startTime) {}
+
+    /**
+     * Data of a {@code removed} event, sent when a result is deleted or replaced.
+     */
+    public record RemovedEvent(String id) {}
+
+    /**
+     * Data of a {@code reset} event: events were missed and the run must be reloaded.
+     */
+    public record ResetEvent(String iata, String runId) {}
+
+    /**
+     * Opens an event stream of the run, resuming after {@code lastEventId} when it is still buffered.
+     */
+    public SseEmitter subscribe(String iata, String runId, String lastEventId) {
+        if (!enabled) {
+            throw new ResourceNotFoundException("Run event streams are disabled");
+        }
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            rejected.increment();
+            throw new SubscriberLimitException("Too many open run event streams, retry later");
+        }
+        try {
+            RunEventLog runLog = logs.get(Arrays.asList(iata, runId), key -> new RunEventLog(Long.toString(RINGS.incrementAndGet(), 36), bufferSize));
+            SseEmitter emitter = new SseEmitter(timeoutMs);
+            Subscriber subscriber = new Subscriber(iata, runId, runLog, emitter, runLog.resumeAfter(lastEventId));
+            emitter.onCompletion(subscriber::close);
+            emitter.onTimeout(emitter::complete);
+            emitter.onError(error -> subscriber.close());
+            Thread.Builder threads = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+            threads.name("run-events-" + iata + "-" + runId).start(subscriber);
+            return emitter;
+        } catch (RuntimeException | Error ex) {
+            subscribers.decrementAndGet();
+            throw ex;
+        }
+    }
+
+    @EventListener
+    public void onResultsStored(TestResultsStoredEvent event) {
+        if (!enabled) {
+            return;
+        }
+        for (TestMethodResult result : event.getResults()) {
+            RunEventLog runLog = logs.getIfPresent(Arrays.asList(result.getIata(), result.getRunId()));
+            if (runLog != null) {
+                runLog.append(RESULT, new ResultEvent(result.getId(), result.getClassName(), result.getMethodName(),
+                        result.getFeatureName(), result.getStatus(), result.getDurationMs(), result.getStartTime()));
+            }
+        }
+    }
+
+    @EventListener
+    public void onResultRemoved(TestResultRemovedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        TestMethodResult result = event.getResult();
+        RunEventLog runLog = logs.getIfPresent(Arrays.asList(result.getIata(), result.getRunId()));
+        if (runLog != null) {
+            runLog.append(REMOVED, new RemovedEvent(result.getId()));
+        }
+    }
+
+    record RunEvent(long sequence, String name, Object data) {}
+
+    /**
+     * The events of one run: a ring of the last {@code capacity} events, numbered from 1.
+     */
+    static final class RunEventLog {
+
+        private final String ring;
+        private final RunEvent[] events;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition appended = lock.newCondition();
+        private long next = 1;
+        private volatile boolean closed;
+
+        RunEventLog(String ring, int capacity) {
+            this.ring = ring;
+            this.events = new RunEvent[capacity];
+        }
+
+        void append(String name, Object data) {
+            lock.lock();
+            try {
+                events[(int) (next % events.length)] = new RunEvent(next, name, data);
+                next++;
+                appended.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                appended.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * The sequence to stream after for a client that last saw {@code lastEventId}, or -1 when it missed events
+         * that are no longer buffered, or saw events of another ring, and must reload the run.
+         */
+        long resumeAfter(String lastEventId) {
+            lock.lock();
+            try {
+                if (lastEventId == null || lastEventId.isBlank()) {
+                    return next - 1;
+                }
+                int separator = lastEventId.lastIndexOf('-');
+                if (separator < 0 || !ring.equals(lastEventId.substring(0, separator))) {
+                    return -1;
+                }
+                long sequence;
+                try {
+                    sequence = Long.parseLong(lastEventId.substring(separator + 1));
+                } catch (NumberFormatException ex) {
+                    return -1;
+                }
+                return sequence >= oldest() - 1 && sequence < next ? sequence : -1;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * The events after {@code sequence}, waiting up to {@code waitMs} for one. Returns null when the log is
+         * closed, or when events after {@code sequence} were already overwritten.
+         */
+        List<RunEvent> after(long sequence, long waitMs) throws InterruptedException {
+            lock.lock();
+            try {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs);
+                while (!closed && next - 1 == sequence) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return List.of();
+                    }
+                    appended.awaitNanos(remaining);
+                }
+                if (closed || sequence < oldest() - 1) {
+                    return null;
+                }
+                List<RunEvent> batch = new ArrayList<>((int) (next - 1 - sequence));
+                for (long i = sequence + 1; i < next; i++) {
+                    batch.add(events[(int) (i % events.length)]);
+                }
+                return batch;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        private long oldest() {
+            return Math.max(1, next - events.length);
+        }
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final String iata;
+        private final String runId;
+        private final RunEventLog runLog;
+        private final SseEmitter emitter;
+        private final long resumeAfter;
+        private volatile boolean closed;
+
+        Subscriber(String iata, String runId, RunEventLog runLog, SseEmitter emitter, long resumeAfter) {
+            this.iata = iata;
+            this.runId = runId;
+            this.runLog = runLog;
+            this.emitter = emitter;
+            this.resumeAfter = resumeAfter;
+        }
+
+        void close() {
+            closed = true;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long cursor = resumeAfter;
+                if (cursor < 0) {
+                    emitter.send(SseEmitter.event().name(RESET).data(new ResetEvent(iata, runId), MediaType.APPLICATION_JSON));
+                    cursor = runLog.resumeAfter(null);
+                }
+                while (!closed) {
+                    List<RunEvent> batch = runLog.after(cursor, heartbeatMs);
+                    if (batch == null) {
+                        if (!runLog.isClosed()) {
+                            evicted.increment();
+                            log.info("Closing slow run event stream iata={} runId={}", iata, runId);
+                        }
+                        emitter.complete();
+                        return;
+                    }
+                    if (batch.isEmpty()) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    }
+                    for (RunEvent event : batch) {
+                        emitter.send(SseEmitter.event()
+                                .id(runLog.ring + "-" + event.sequence())
+                                .name(event.name())
+                                .data(event.data(), MediaType.APPLICATION_JSON));
+                        cursor = event.sequence();
+                    }
+                }
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Run event stream iata={} runId={} ended: {}", iata, runId, ex.getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } finally {
+                subscribers.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package aero.airfi.qa.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import aero.airfi.qa.model.EnvironmentInfo;
+import aero.airfi.qa.model.FailureDetail;
+import aero.airfi.qa.model.RunSummary;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes a whole run as JUnit XML, CSV or an Allure results archive. Results are read from the same cursor as the
+ * NDJSON stream and written one at a time, so memory use does not grow with the size of the run. The run summary
+ * supplies the totals JUnit puts before the test cases and answers {@code 404} for unknown runs.
+ */
+@Service
+@Slf4j
+public class RunExporter {
+
+    private static final XMLOutputFactory XML = XMLOutputFactory.newFactory();
+    private static final List<String> CSV_COLUMNS = List.of(
+            "id", "runId", "iata", "suiteType", "featureName", "className", "methodName", "status", "assertType",
+            "startTime", "endTime", "durationMs", "jiraTestCases", "environment", "browser", "browserVersion", "os",
+            "buildNumber", "failures", "errorMessage");
+
+    private final TestMethodResultService testMethodResultService;
+    private final RunSummaryService runSummaryService;
+    private final ObjectWriter allureWriter;
+
+    public RunExporter(TestMethodResultService testMethodResultService, RunSummaryService runSummaryService,
+                       ObjectMapper objectMapper) {
+        this.testMethodResultService = testMethodResultService;
+        this.runSummaryService = runSummaryService;
+        this.allureWriter = objectMapper.writer();
+    }
+
+    public enum Format {
+        JUNIT("junit.xml", MediaType.APPLICATION_XML),
+        CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)),
+        ALLURE("allure.zip", MediaType.parseMediaType("application/zip"));
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        Format(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public static Format of(String format) {
+            for (Format candidate : values()) {
+                if (candidate.name().equalsIgnoreCase(format == null ? "" : format.trim())) {
+                    return candidate;
+                }
+            }
+            throw new IllegalArgumentException("Invalid value for query parameter 'format': '" + format + "'. Allowed values are junit, csv, allure");
+        }
+    }
+
+    /**
+     * The run's summary; throws {@code ResourceNotFoundException} for an unknown run, before anything is written.
+     */
+    public RunSummary checkRun(String iata, String runId) {
+        return runSummaryService.getRunSummary(iata, runId);
+    }
+
+    public void export(RunSummary summary, Format format, OutputStream out) throws IOException {
+        RunQuery runQuery = RunQuery.builder().iata(summary.getIata()).runId(summary.getRunId()).build();
+        long started = System.nanoTime();
+        long written;
+        try (Stream<TestMethodResult> results = testMethodResultService.streamTestResults(runQuery, ResultView.FULL)) {
+            Iterable<TestMethodResult> iterable = results::iterator;
+            written = switch (format) {
+                case JUNIT -> writeJunit(summary, iterable, out);
+                case CSV -> writeCsv(iterable, out);
+                case ALLURE -> writeAllure(iterable, out);
+            };
+        }
+        log.info("Exported {} results of runId={} iata={} as {} in {} ms", written, summary.getRunId(), summary.getIata(),
+                format, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * One {@code testsuite} for the run, with a {@code testcase} per result. A failed result's failures become one
+     * {@code failure} element, its logs and failure logs {@code system-out}.
+     */
+    private long writeJunit(RunSummary summary, Iterable<TestMethodResult> results, OutputStream out) throws IOException {
+        Map<String, Long> statusCounts = summary.getStatusCounts() == null ? Map.of() : summary.getStatusCounts();
+        long count = 0;
+        try {
+            XMLStreamWriter xml = XML.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+            xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            xml.writeStartElement("testsuites");
+            xml.writeStartElement("testsuite");
+            xml.writeAttribute("name", xmlSafe(summary.getRunId()));
+            xml.writeAttribute("tests", Long.toString(summary.getTotal()));
+            xml.writeAttribute("failures", Long.toString(statusCounts.getOrDefault("FAIL", 0L)));
+            xml.writeAttribute("skipped", Long.toString(statusCounts.getOrDefault("SKIP", 0L)));
+            xml.writeAttribute("errors", "0");
+            xml.writeAttribute("time", seconds(summary.getTotalDurationMs()));
+            if (summary.getStartTime() != null) {
+                xml.writeAttribute("timestamp", summary.getStartTime().toString());
+            }
+            for (TestMethodResult result : results) {
+                writeTestCase(xml, result);
+                count++;
+            }
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.flush();
+            xml.close();
+        } catch (XMLStreamException ex) {
+            throw new IOException("Failed to write JUnit XML", ex);
+        }
+        return count;
+    }
+
+    private static void writeTestCase(XMLStreamWriter xml, TestMethodResult result) throws XMLStreamException {
+        xml.writeStartElement("testcase");
+        xml.writeAttribute("name", xmlSafe(result.getMethodName()));
+        xml.writeAttribute("classname", xmlSafe(result.getClassName()));
+        xml.writeAttribute("time", seconds(result.getDurationMs()));
+        List<FailureDetail> failures = result.getFailures() == null ? List.of() : result.getFailures();
+        String status = result.getStatus() == null ? "" : result.getStatus().toUpperCase(Locale.ROOT);
+        if ("FAIL".equals(status)) {
+            xml.writeStartElement("failure");
+            xml.writeAttribute("message", xmlSafe(failures.isEmpty() ? "" : failures.get(0).getErrorMessage()));
+            StringBuilder body = new StringBuilder();
+            for (FailureDetail failure : failures) {
+                appendLine(body, failure.getErrorMessage());
+                appendLine(body, failure.getStackTrace());
+            }
+            xml.writeCharacters(xmlSafe(body.toString()));
+            xml.writeEndElement();
+        } else if ("SKIP".equals(status)) {
+            xml.writeEmptyElement("skipped");
+        }
+        List<String> logs = new ArrayList<>();
+        if (result.getLogs() != null) {
+            logs.addAll(result.getLogs());
+        }
+        for (FailureDetail failure : failures) {
+            if (failure.getLogs() != null) {
+                logs.addAll(failure.getLogs());
+            }
+        }
+        if (!logs.isEmpty()) {
+            xml.writeStartElement("system-out");
+            xml.writeCharacters(xmlSafe(String.join("\n", logs)));
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+
+    /**
+     * RFC 4180 CSV with a header row; failure messages are joined with {@code " | "}.
+     */
+    private static long writeCsv(Iterable<TestMethodResult> results, OutputStream out) throws IOException {
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writeCsvRow(csv, CSV_COLUMNS);
+        long count = 0;
+        for (TestMethodResult result : results) {
+            EnvironmentInfo environment = result.getEnvironment() == null ? new EnvironmentInfo() : result.getEnvironment();
+            List<FailureDetail> failures = result.getFailures() == null ? List.of() : result.getFailures();
+            List<String> messages = failures.stream().map(FailureDetail::getErrorMessage).filter(message -> message != null).toList();
+            writeCsvRow(csv, List.of(
+                    text(result.getId()), text(result.getRunId()), text(result.getIata()), text(result.getSuiteType()),
+                    text(result.getFeatureName()), text(result.getClassName()), text(result.getMethodName()),
+                    text(result.getStatus()), text(result.getAssertType()), text(result.getStartTime()),
+                    text(result.getEndTime()), Long.toString(result.getDurationMs()),
+                    result.getJiraTestCases() == null ? "" : String.join(";", result.getJiraTestCases()),
+                    text(environment.getName()), text(environment.getBrowser()), text(environment.getBrowserVersion()),
+                    text(environment.getOs()), text(environment.getBuildNumber()), Integer.toString(failures.size()),
+                    String.join(" | ", messages)));
+            count++;
+        }
+        csv.flush();
+        return count;
+    }
+
+    private static void writeCsvRow(Writer csv, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                csv.write(',');
+            }
+            String value = values.get(i);
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                csv.write('"');
+                csv.write(value.replace("\"", "\"\""));
+                csv.write('"');
+            } else {
+                csv.write(value);
+            }
+        }
+        csv.write("\r\n");
+    }
+
+    /**
+     * A zip of Allure result files, one {@code <uuid>-result.json} per result, plus {@code environment.properties}
+     * from the first result with an environment. Unzip it into {@code allure-results} and run {@code allure generate}.
+     */
+    private long writeAllure(Iterable<TestMethodResult> results, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        EnvironmentInfo environment = null;
+        long count = 0;
+        for (TestMethodResult result : results) {
+            Map<String, Object> allure = toAllure(result);
+            zip.putNextEntry(new ZipEntry(allure.get("uuid") + "-result.json"));
+            zip.write(allureWriter.writeValueAsBytes(allure));
+            zip.closeEntry();
+            if (environment == null) {
+                environment = result.getEnvironment();
+            }
+            count++;
+        }
+        if (environment != null) {
+            zip.putNextEntry(new ZipEntry("environment.properties"));
+            StringBuilder properties = new StringBuilder();
+            appendProperty(properties, "Environment", environment.getName());
+            appendProperty(properties, "Browser", environment.getBrowser());
+            appendProperty(properties, "Browser.Version", environment.getBrowserVersion());
+            appendProperty(properties, "OS", environment.getOs());
+            appendProperty(properties, "Build", environment.getBuildNumber());
+            zip.write(properties.toString().getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+        return count;
+    }
+
+    private static Map<String, Object> toAllure(TestMethodResult result) {
+        String fullName = result.getClassName() + "." + result.getMethodName();
+        Map<String, Object> allure = new LinkedHashMap<>();
+        allure.put("uuid", UUID.nameUUIDFromBytes(String.valueOf(result.getId()).getBytes(StandardCharsets.UTF_8)).toString());
+        allure.put("historyId", UUID.nameUUIDFromBytes((result.getIata() + "\n" + fullName).getBytes(StandardCharsets.UTF_8)).toString());
+        allure.put("name", result.getMethodName());
+        allure.put("fullName", fullName);
+        allure.put("status", allureStatus(result.getStatus()));
+        List<FailureDetail> failures = result.getFailures() == null ? List.of() : result.getFailures();
+        if (!failures.isEmpty()) {
+            StringBuilder trace = new StringBuilder();
+            failures.forEach(failure -> appendLine(trace, failure.getStackTrace()));
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("message", failures.stream().map(FailureDetail::getErrorMessage).filter(message -> message != null)
+                    .reduce((first, second) -> first + "\n" + second).orElse(null));
+            details.put("trace", trace.isEmpty() ? null : trace.toString());
+            allure.put("statusDetails", details);
+        }
+        allure.put("stage", "finished");
+        if (result.getStartTime() != null) {
+            allure.put("start", result.getStartTime().toEpochMilli());
+            allure.put("stop", result.getEndTime() != null
+                    ? result.getEndTime().toEpochMilli()
+                    : result.getStartTime().toEpochMilli() + result.getDurationMs());
+        }
+        List<Map<String, String>> labels = new ArrayList<>();
+        addLabel(labels, "suite", result.getSuiteType());
+        addLabel(labels, "feature", result.getFeatureName());
+        addLabel(labels, "testClass", result.getClassName());
+        addLabel(labels, "testMethod", result.getMethodName());
+        addLabel(labels, "tag", result.getAssertType());
+        allure.put("labels", labels);
+        List<Map<String, String>> links = new ArrayList<>();
+        if (result.getJiraTestCases() != null) {
+            result.getJiraTestCases().forEach(testCase -> links.add(Map.of("type", "tms", "name", testCase)));
+        }
+        allure.put("links", links);
+        List<Map<String, String>> parameters = new ArrayList<>();
+        if (result.getIata() != null) {
+            parameters.add(Map.of("name", "iata", "value", result.getIata()));
+        }
+        allure.put("parameters", parameters);
+        return allure;
+    }
+
+    private static String allureStatus(String status) {
+        return switch (status == null ? "" : status.toUpperCase(Locale.ROOT)) {
+            case "PASS" -> "passed";
+            case "FAIL" -> "failed";
+            case "SKIP" -> "skipped";
+            default -> "unknown";
+        };
+    }
+
+    private static void addLabel(List<Map<String, String>> labels, String name, String value) {
+        if (value != null && !value.isEmpty()) {
+            labels.add(Map.of("name", name, "value", value));
+        }
+    }
+
+    private static void appendProperty(StringBuilder properties, String key, String value) {
+        if (value != null && !value.isEmpty()) {
+            properties.append(key).append('=').append(value.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        }
+    }
+
+    private static void appendLine(StringBuilder builder, String line) {
+        if (line == null || line.isEmpty()) {
+            return;
+        }
+        if (!builder.isEmpty()) {
+            builder.append('\n');
+        }
+        builder.append(line);
+    }
+
+    private static String text(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String seconds(long durationMs) {
+        return String.format(Locale.ROOT, "%.3f", durationMs / 1000.0);
+    }
+
+    /**
+     * Drops the characters XML 1.0 cannot carry, such as the ANSI escapes of colored logs.
+     */
+    private static String xmlSafe(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder safe = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean allowed = c == '\t' || c == '\n' || c == '\r' || (c >= 0x20 && c <= 0xD7FF) || (c >= 0xE000 && c <= 0xFFFD)
+                    || Character.isSurrogate(c);
+            if (!allowed && safe == null) {
+                safe = new StringBuilder(value.length()).append(value, 0, i);
+            } else if (allowed && safe != null) {
+                safe.append(c);
+            }
+        }
+        return safe == null ? value : safe.toString();
+    }
+}
@@ -0,0 +1,203 @@
+package aero.airfi.qa.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import aero.airfi.qa.model.FailureDetail;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded cache of run query results, keyed by the {@link RunQuery} and {@link ResultView}. Entries are weighed by
+ * an estimate of their heap size and evicted once {@code qa.cache.results.max-weight-mb} is reached, or after
+ * {@code ttl-seconds} as a safety net.
+ * <p>
+ * Writes invalidate exactly the cached queries whose filter matches the stored or removed result, so other suites,
+ * features and statuses of the same run stay cached. The cached queries are indexed by run, so a write only looks at
+ * the queries of its own runs. A load that overlaps such a write is not kept: every run hashes to a version stripe
+ * that is bumped before invalidating, and a load whose stripe moved drops its own entry.
+ */
+@Component
+@Slf4j
+public class RunResultCache {
+
+    private static final int STRIPES = 1024;
+
+    private final boolean enabled;
+    private final Cache<Key, List<TestMethodResult>> cache;
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final ConcurrentMap<List<String>, Set<Key>> keysByRun = new ConcurrentHashMap<>();
+
+    public RunResultCache(MeterRegistry meterRegistry,
+                          @Value("${qa.cache.results.enabled:true}") boolean enabled,
+                          @Value("${qa.cache.results.max-weight-mb:64}") long maxWeightMb,
+                          @Value("${qa.cache.results.ttl-seconds:60}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(maxWeightMb, 1) * 1024 * 1024)
+                .weigher((Key key, List<TestMethodResult> results) -> weigh(results))
+                .expireAfterWrite(Duration.ofSeconds(Math.max(ttlSeconds, 1)))
+                .executor(Runnable::run)
+                .removalListener((Key key, List<TestMethodResult> results, RemovalCause cause) -> unindex(key))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "runResults");
+        Gauge.builder("qa.cache.results.weight", cache, c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+                .description("Estimated heap bytes held by the run result cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("qa.cache.results.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of run queries answered from the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached results of the query, loading and caching them on a miss.
+     */
+    public List<TestMethodResult> get(RunQuery runQuery, ResultView view, Supplier<List<TestMethodResult>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(runQuery, view);
+        List<TestMethodResult> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(runQuery.getIata(), runQuery.getRunId());
+        long version = versions.get(stripe);
+        List<TestMethodResult> loaded = List.copyOf(loader.get());
+        cache.put(key, loaded);
+        keysByRun.computeIfAbsent(key.run(), run -> ConcurrentHashMap.newKeySet()).add(key);
+        if (versions.get(stripe) != version) {
+            cache.invalidate(key);
+        }
+        return loaded;
+    }
+
+    @EventListener
+    public void onResultsStored(TestResultsStoredEvent event) {
+        invalidate(event.getResults());
+    }
+
+    @EventListener
+    public void onResultRemoved(TestResultRemovedEvent event) {
+        invalidate(List.of(event.getResult()));
+    }
+
+    private void invalidate(Collection<TestMethodResult> results) {
+        if (!enabled || results.isEmpty()) {
+            return;
+        }
+        Map<List<String>, List<TestMethodResult>> byRun = results.stream()
+                .collect(Collectors.groupingBy(result -> Arrays.asList(result.getIata(), result.getRunId())));
+        byRun.keySet().stream()
+                .mapToInt(run -> stripe(run.get(0), run.get(1)))
+                .distinct()
+                .forEach(versions::incrementAndGet);
+        Set<Key> stale = byRun.entrySet().stream()
+                .flatMap(run -> keysByRun.getOrDefault(run.getKey(), Set.of()).stream()
+                        .filter(key -> run.getValue().stream().anyMatch(key::matches)))
+                .collect(Collectors.toSet());
+        if (!stale.isEmpty()) {
+            log.debug("Invalidating {} cached run queries", stale.size());
+            cache.invalidateAll(stale);
+        }
+    }
+
+    /**
+     * Drops a removed entry from the run index unless it was cached again meanwhile; {@link #get} indexes after it
+     * puts, so an entry that is cached is always indexed.
+     */
+    private void unindex(Key key) {
+        keysByRun.computeIfPresent(key.run(), (run, keys) -> {
+            if (!cache.asMap().containsKey(key)) {
+                keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static int stripe(String iata, String runId) {
+        return Math.floorMod(Objects.hash(iata, runId), STRIPES);
+    }
+
+    /**
+     * Rough heap size of a result list: a fixed cost per object plus two bytes per character of its strings.
+     */
+    private static int weigh(List<TestMethodResult> results) {
+        long bytes = 64;
+        for (TestMethodResult result : results) {
+            bytes += 256 + chars(result.getId()) + chars(result.getRunId()) + chars(result.getIata())
+                    + chars(result.getSuiteType()) + chars(result.getFeatureName()) + chars(result.getMethodName())
+                    + chars(result.getClassName()) + chars(result.getStatus()) + chars(result.getAssertType())
+                    + chars(result.getJiraTestCases()) + chars(result.getLogs()) + chars(result.getScreenshotUrls());
+            if (result.getEnvironment() != null) {
+                bytes += 512;
+            }
+            if (result.getFailures() != null) {
+                for (FailureDetail failure : result.getFailures()) {
+                    bytes += 64 + chars(failure.getErrorMessage()) + chars(failure.getStackTrace())
+                            + chars(failure.getScreenshotUrl()) + chars(failure.getLogs());
+                }
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long chars(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    private static long chars(List<String> values) {
+        if (values == null) {
+            return 0;
+        }
+        long bytes = 16;
+        for (String value : values) {
+            bytes += 8 + chars(value);
+        }
+        return bytes;
+    }
+
+    private record Key(RunQuery runQuery, ResultView view) {
+
+        List<String> run() {
+            return Arrays.asList(runQuery.getIata(), runQuery.getRunId());
+        }
+
+        /**
+         * Whether the result falls inside this query's filter, i.e. whether writing it can change the answer.
+         */
+        boolean matches(TestMethodResult result) {
+            return Objects.equals(runQuery.getIata(), result.getIata())
+                    && Objects.equals(runQuery.getRunId(), result.getRunId())
+                    && (runQuery.getSuiteType() == null || runQuery.getSuiteType().equals(result.getSuiteType()))
+                    && (runQuery.getFeatureName() == null || runQuery.getFeatureName().equals(result.getFeatureName()))
+                    && (runQuery.getStatus() == null || runQuery.getStatus().equals(result.getStatus()));
+        }
+    }
+}
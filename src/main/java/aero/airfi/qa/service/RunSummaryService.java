@@ -0,0 +1,144 @@
+package aero.airfi.qa.service;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import aero.airfi.qa.exception.ResourceNotFoundException;
+import aero.airfi.qa.model.FailureDetail;
+import aero.airfi.qa.model.RunSummary;
+import aero.airfi.qa.model.TestMethodResult;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintains the {@code runSummaries} rollup. Results are folded per run in memory first so a batch costs one
+ * upsert per run rather than one per result.
+ */
+@Service
+@Slf4j
+public class RunSummaryService {
+
+    private final MongoTemplate mongoTemplate;
+
+    public RunSummaryService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public RunSummary getRunSummary(String iata, String runId) {
+        RunSummary summary = mongoTemplate.findOne(runQuery(iata, runId), RunSummary.class);
+        if (summary == null) {
+            throw new ResourceNotFoundException("Run summary not found: " + runId + ", iata=" + iata);
+        }
+        return summary;
+    }
+
+    /**
+     * Adds stored results to their run summaries. Failures are logged rather than thrown because the results
+     * themselves are already written.
+     */
+    @EventListener
+    public void onResultsStored(TestResultsStoredEvent event) {
+        apply(event.getResults(), 1);
+    }
+
+    /**
+     * Takes a removed or replaced result out of its run summary. Counts and durations are decremented; the
+     * max duration and start/end times are left as they are.
+     */
+    @EventListener
+    public void onResultRemoved(TestResultRemovedEvent event) {
+        apply(List.of(event.getResult()), -1);
+    }
+
+    private void apply(List<TestMethodResult> results, int sign) {
+        if (results.isEmpty()) {
+            return;
+        }
+        Map<List<String>, RunDelta> deltas = new LinkedHashMap<>();
+        for (TestMethodResult result : results) {
+            deltas.computeIfAbsent(Arrays.asList(result.getIata(), result.getRunId()), key -> new RunDelta()).add(result);
+        }
+        try {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RunSummary.class);
+            deltas.forEach((key, delta) -> {
+                Query query = runQuery(key.get(0), key.get(1));
+                if (sign > 0) {
+                    ops.upsert(query, delta.toUpdate(1));
+                } else {
+                    ops.updateOne(query, delta.toUpdate(-1));
+                }
+            });
+            ops.execute();
+        } catch (DataAccessException ex) {
+            log.error("Failed to update run summaries for {} runs", deltas.size(), ex);
+        }
+    }
+
+    private static Query runQuery(String iata, String runId) {
+        return new Query(Criteria.where("iata").is(iata).and("runId").is(runId));
+    }
+
+    /**
+     * Accumulated change to one run summary.
+     */
+    private static final class RunDelta {
+        private long total;
+        private long totalDurationMs;
+        private long maxDurationMs;
+        private Instant startTime;
+        private Instant endTime;
+        private final Map<String, Long> counts = new HashMap<>();
+
+        void add(TestMethodResult result) {
+            total++;
+            totalDurationMs += result.getDurationMs();
+            maxDurationMs = Math.max(maxDurationMs, result.getDurationMs());
+            if (result.getStartTime() != null && (startTime == null || result.getStartTime().isBefore(startTime))) {
+                startTime = result.getStartTime();
+            }
+            if (result.getEndTime() != null && (endTime == null || result.getEndTime().isAfter(endTime))) {
+                endTime = result.getEndTime();
+            }
+            String status = RunSummary.toKey(result.getStatus());
+            counts.merge("statusCounts." + status, 1L, Long::sum);
+            counts.merge("suiteTypeCounts." + RunSummary.toKey(result.getSuiteType()) + "." + status, 1L, Long::sum);
+            counts.merge("featureCounts." + RunSummary.toKey(result.getFeatureName()) + "." + status, 1L, Long::sum);
+            if (result.getFailures() != null) {
+                for (FailureDetail failure : result.getFailures()) {
+                    if (failure.getSignatureId() != null) {
+                        counts.merge("failureSignatureCounts." + failure.getSignatureId(), 1L, Long::sum);
+                    }
+                }
+            }
+        }
+
+        Update toUpdate(int sign) {
+            Update update = new Update()
+                    .inc("total", sign * total)
+                    .inc("totalDurationMs", sign * totalDurationMs);
+            counts.forEach((path, count) -> update.inc(path, sign * count));
+            if (sign > 0) {
+                update.max("maxDurationMs", maxDurationMs);
+                if (startTime != null) {
+                    update.min("startTime", startTime);
+                }
+                if (endTime != null) {
+                    update.max("endTime", endTime);
+                }
+            }
+            return update;
+        }
+    }
+}
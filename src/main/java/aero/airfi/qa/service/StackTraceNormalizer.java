@@ -0,0 +1,92 @@
+package aero.airfi.qa.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Reduces a stack trace to what identifies the failure: exception types and frames. Messages, line numbers,
+ * lambda and proxy class suffixes, object ids and module prefixes are dropped, so the same failure hashes to
+ * the same signature across builds, JVMs and test data.
+ */
+public final class StackTraceNormalizer {
+
+    private static final Pattern THREAD_PREFIX = Pattern.compile("^Exception in thread \"[^\"]*\"\\s+");
+    private static final Pattern LAMBDA_CLASS = Pattern.compile("\\$\\$Lambda[^.(]*");
+    private static final Pattern LAMBDA_METHOD = Pattern.compile("(lambda\\$[\\w$]*?)\\$\\d+");
+    private static final Pattern PROXY = Pattern.compile("(\\$Proxy|jdk\\.proxy|Generated(?:Method|Constructor|SerializationConstructor)Accessor)\\d+");
+    private static final Pattern CGLIB = Pattern.compile("\\$\\$(\\w*CGLIB)\\$\\$\\w+");
+    private static final Pattern MODULE_PREFIX = Pattern.compile("^at (?:[^\\s/(]+/{1,2})+");
+    private static final Pattern LINE_NUMBER = Pattern.compile(":\\d+\\)");
+    private static final Pattern HEX_ID = Pattern.compile("(0x|@)[0-9a-fA-F]{4,}");
+    private static final Pattern AFTER_FRAME = Pattern.compile("\\)\\s.*$");
+
+    private StackTraceNormalizer() {}
+
+    /**
+     * The identity of a failure: a 128-bit hex hash of the normalized trace, plus its outermost exception type and
+     * top frame for display.
+     */
+    public record Fingerprint(String signatureId, String exceptionType, String topFrame) {}
+
+    /**
+     * Returns the fingerprint of the trace, or null when there is no trace.
+     */
+    public static Fingerprint fingerprint(String stackTrace) {
+        String normalized = normalize(stackTrace);
+        if (normalized == null) {
+            return null;
+        }
+        String[] lines = normalized.split("\n");
+        String topFrame = null;
+        for (String line : lines) {
+            if (line.startsWith("at ")) {
+                topFrame = line.substring(3);
+                break;
+            }
+        }
+        String signatureId = PayloadCodec.sha256(normalized.getBytes(StandardCharsets.UTF_8)).substring(0, 32);
+        return new Fingerprint(signatureId, lines[0], topFrame);
+    }
+
+    /**
+     * One line per exception type and frame; message continuation lines and {@code ... n more} are skipped.
+     */
+    public static String normalize(String stackTrace) {
+        if (stackTrace == null || stackTrace.isBlank()) {
+            return null;
+        }
+        StringBuilder out = new StringBuilder(Math.min(stackTrace.length(), 8192));
+        for (String raw : stackTrace.split("\\R")) {
+            String line = raw.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (out.isEmpty()) {
+                out.append(exceptionType(THREAD_PREFIX.matcher(line).replaceFirst(""))).append('\n');
+            } else if (line.startsWith("at ")) {
+                out.append(frame(line)).append('\n');
+            } else if (line.startsWith("Caused by: ")) {
+                out.append("Caused by: ").append(exceptionType(line.substring(11))).append('\n');
+            } else if (line.startsWith("Suppressed: ")) {
+                out.append("Suppressed: ").append(exceptionType(line.substring(12))).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private static String exceptionType(String line) {
+        int colon = line.indexOf(':');
+        return (colon < 0 ? line : line.substring(0, colon)).strip();
+    }
+
+    private static String frame(String line) {
+        String frame = LAMBDA_CLASS.matcher(line).replaceAll("\\$\\$Lambda");
+        frame = LAMBDA_METHOD.matcher(frame).replaceAll("$1");
+        frame = PROXY.matcher(frame).replaceAll("$1");
+        frame = CGLIB.matcher(frame).replaceAll("\\$\\$$1");
+        frame = MODULE_PREFIX.matcher(frame).replaceFirst("at ");
+        frame = LINE_NUMBER.matcher(frame).replaceAll(")");
+        frame = HEX_ID.matcher(frame).replaceAll("$1");
+        return AFTER_FRAME.matcher(frame).replaceFirst(")");
+    }
+}
@@ -0,0 +1,160 @@
+package aero.airfi.qa.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+
+import aero.airfi.qa.repository.ResultCollection;
+import aero.airfi.qa.repository.TenantRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves the results of routed IATAs out of the shared collection into their tenant collection, in throttled
+ * batches: each batch is copied, then deleted from the shared collection, so an interrupted move loses nothing and
+ * resumes on the next start. Reads cover both collections until an IATA has nothing left in the shared one.
+ * <p>
+ * Runs on a background thread at startup when {@code qa.tenancy.migrate-on-startup=true}; otherwise routed IATAs
+ * that still have shared results keep reading both collections.
+ */
+@Component
+@Slf4j
+public class TenantMigrator {
+
+    private final TenantRouter tenantRouter;
+    private final boolean migrateOnStartup;
+    private final int batchSize;
+    private final long pauseMs;
+    private final boolean virtualThreads;
+    private final Counter migratedResults;
+
+    public TenantMigrator(TenantRouter tenantRouter, MeterRegistry meterRegistry,
+                          @Value("${qa.tenancy.migrate-on-startup:true}") boolean migrateOnStartup,
+                          @Value("${qa.tenancy.migration.batch-size:1000}") int batchSize,
+                          @Value("${qa.tenancy.migration.pause-ms:100}") long pauseMs,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.tenantRouter = tenantRouter;
+        this.migrateOnStartup = migrateOnStartup;
+        this.batchSize = Math.max(batchSize, 1);
+        this.pauseMs = Math.max(pauseMs, 0);
+        this.virtualThreads = virtualThreads;
+        this.migratedResults = Counter.builder("qa.tenancy.results.migrated")
+                .description("Results moved from the shared collection to a tenant collection")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateRoutedIatas() {
+        if (tenantRouter.routedIatas().isEmpty()) {
+            return;
+        }
+        List<String> pending = new ArrayList<>();
+        try {
+            for (String iata : tenantRouter.routedIatas()) {
+                if (tenantRouter.shared().collection().find(Filters.eq("iata", iata)).limit(1).first() == null) {
+                    tenantRouter.migrationFinished(iata);
+                } else {
+                    pending.add(iata);
+                }
+            }
+        } catch (MongoException | DataAccessException ex) {
+            log.warn("Skipping tenant migration check: {}", ex.getMessage());
+            return;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (!migrateOnStartup) {
+            log.warn("Results of {} are still in the shared collection; reads cover both until they are migrated", pending);
+            return;
+        }
+        Thread.Builder threads = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        threads.name("tenant-migration").start(() -> pending.forEach(this::migrate));
+    }
+
+    /**
+     * Moves the IATA's results from the shared collection to its tenant collection and returns how many were moved.
+     * A result whose id is already in the tenant collection counts as copied. Results that cannot be copied, for
+     * example because their idempotency key was stored again in the tenant collection, stay in the shared collection
+     * and keep the IATA on both-collection reads.
+     */
+    public long migrate(String iata) {
+        ResultCollection target = tenantRouter.route(iata);
+        if (target.equals(tenantRouter.shared())) {
+            return 0;
+        }
+        MongoCollection<Document> source = tenantRouter.shared().collection();
+        MongoCollection<Document> destination = target.collection();
+        log.info("Migrating results of iata={} from {} to {}", iata, tenantRouter.shared(), target);
+        Set<Object> skipped = new HashSet<>();
+        long moved = 0;
+        try {
+            while (true) {
+                List<Document> batch = source.find(Filters.and(Filters.eq("iata", iata), Filters.nin("_id", skipped)))
+                        .limit(batchSize)
+                        .into(new ArrayList<>());
+                if (batch.isEmpty()) {
+                    break;
+                }
+                Set<Object> copied = copy(batch, destination);
+                batch.stream().map(document -> document.get("_id")).filter(id -> !copied.contains(id)).forEach(skipped::add);
+                if (!copied.isEmpty()) {
+                    long deleted = source.deleteMany(Filters.in("_id", copied)).getDeletedCount();
+                    moved += deleted;
+                    migratedResults.increment(deleted);
+                }
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.warn("Tenant migration of iata={} interrupted after {} results; it resumes on the next start", iata, moved);
+            return moved;
+        } catch (MongoException | DataAccessException ex) {
+            log.warn("Tenant migration of iata={} stopped after {} results: {}", iata, moved, ex.getMessage());
+            return moved;
+        }
+        if (skipped.isEmpty()) {
+            tenantRouter.migrationFinished(iata);
+            log.info("Migrated {} results of iata={} to {}", moved, iata, target);
+        } else {
+            log.warn("Migrated {} results of iata={} to {}; {} could not be copied and stay in {}", moved, iata, target,
+                    skipped.size(), tenantRouter.shared());
+        }
+        return moved;
+    }
+
+    /**
+     * Inserts the batch and returns the ids now present in the destination, including ids copied by an earlier,
+     * interrupted pass.
+     */
+    private Set<Object> copy(List<Document> batch, MongoCollection<Document> destination) {
+        List<Object> ids = batch.stream().map(document -> document.get("_id")).toList();
+        try {
+            destination.insertMany(batch, new InsertManyOptions().ordered(false));
+            return new HashSet<>(ids);
+        } catch (MongoBulkWriteException ex) {
+            return destination.find(Filters.in("_id", ids))
+                    .projection(Projections.include("_id"))
+                    .map(document -> document.get("_id"))
+                    .into(new HashSet<>());
+        }
+    }
+}
@@ -1,18 +1,43 @@
 package aero.airfi.qa.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import org.springframework.data.domain.Sort;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.aggregation.Aggregation;
-import org.springframework.data.mongodb.core.aggregation.AggregationResults;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
-import org.bson.Document;
+import com.mongodb.WriteConcern;
 import lombok.extern.slf4j.Slf4j;
 
+import aero.airfi.qa.dto.BatchItemResult;
+import aero.airfi.qa.model.ArchivedRun;
 import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.RecentWrites;
+import aero.airfi.qa.repository.ResultCollection;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import aero.airfi.qa.repository.TenantRouter;
 import aero.airfi.qa.repository.TestMethodResultRepository;
 import aero.airfi.qa.exception.ResourceNotFoundException;
 
@@ -20,106 +45,415 @@ import aero.airfi.qa.exception.ResourceNotFoundException;
 @Slf4j
 public class TestMethodResultService {
 
+    private static final int DUPLICATE_KEY = 11000;
+
     private final TestMethodResultRepository testMethodResultRepository;
     private final MongoTemplate mongoTemplate;
+    private final RunCatalogService runCatalogService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RunResultCache runResultCache;
+    private final PayloadStore payloadStore;
+    private final FailureSignatureService failureSignatureService;
+    private final RunArchive runArchive;
+    private final IdempotencyKeys idempotencyKeys;
+    private final TenantRouter tenantRouter;
+    private final RecentWrites recentWrites;
+    private final int hydrateBatchSize;
 
-    public TestMethodResultService(TestMethodResultRepository testMethodResultRepository, MongoTemplate mongoTemplate) {
+    public TestMethodResultService(TestMethodResultRepository testMethodResultRepository, MongoTemplate mongoTemplate,
+                                   RunCatalogService runCatalogService, ApplicationEventPublisher eventPublisher,
+                                   RunResultCache runResultCache, PayloadStore payloadStore,
+                                   FailureSignatureService failureSignatureService, RunArchive runArchive,
+                                   IdempotencyKeys idempotencyKeys, TenantRouter tenantRouter,
+                                   RecentWrites recentWrites,
+                                   @Value("${qa.query.cursor-batch-size:500}") int hydrateBatchSize) {
         this.testMethodResultRepository = testMethodResultRepository;
         this.mongoTemplate = mongoTemplate;
+        this.runCatalogService = runCatalogService;
+        this.eventPublisher = eventPublisher;
+        this.runResultCache = runResultCache;
+        this.payloadStore = payloadStore;
+        this.failureSignatureService = failureSignatureService;
+        this.runArchive = runArchive;
+        this.idempotencyKeys = idempotencyKeys;
+        this.tenantRouter = tenantRouter;
+        this.recentWrites = recentWrites;
+        this.hydrateBatchSize = Math.max(hydrateBatchSize, 1);
     }
 
+    /**
+     * A stored result, or the earlier result with the same idempotency key when {@code duplicate} is set.
+     */
+    public record StoredResult(TestMethodResult result, boolean duplicate) {}
+
     public TestMethodResult createTestResult(TestMethodResult testMethodResult) {
+        return storeTestResult(testMethodResult).result();
+    }
+
+    /**
+     * Stores a result unless one with the same idempotency key is already stored, in which case that one is returned
+     * and nothing is written. A concurrent retry that gets past the lookup is stopped by the unique index.
+     */
+    public StoredResult storeTestResult(TestMethodResult testMethodResult) {
         log.info("Saving test result runId={} iata={} feature={} status={}", testMethodResult.getRunId(),
         testMethodResult.getIata(), 
         testMethodResult.getFeatureName(),
          testMethodResult.getStatus());
         
-         return testMethodResultRepository.save(testMethodResult);
+        String existingId = findDuplicates(List.of(testMethodResult)).get(0);
+        if (existingId != null) {
+            return duplicateOf(testMethodResult.getIata(), existingId);
+        }
+        failureSignatureService.fingerprint(List.of(testMethodResult), mongoTemplate);
+        payloadStore.offload(List.of(testMethodResult), mongoTemplate);
+        TestMethodResult saved;
+        try {
+            saved = testMethodResultRepository.saveInTenant(testMethodResult);
+        } catch (DuplicateKeyException ex) {
+            if (testMethodResult.getIdempotencyKey() == null) {
+                throw ex;
+            }
+            existingId = findIdsByKey(List.of(testMethodResult)).get(Arrays.asList(testMethodResult.getIata(), testMethodResult.getIdempotencyKey()));
+            if (existingId == null) {
+                throw ex;
+            }
+            return duplicateOf(testMethodResult.getIata(), existingId);
+        }
+        rememberKeys(List.of(saved));
+        recentWrites.record(List.of(saved));
+        eventPublisher.publishEvent(new TestResultsStoredEvent(List.of(saved)));
+        return new StoredResult(saved, false);
+    }
+
+    /**
+     * Stores a batch of results with one unordered bulk insert per tenant collection. Ids are assigned up front so
+     * every item can be reported back, and a failing item does not stop the rest of the batch from being written.
+     * Items whose idempotency key is already stored, or repeated within the batch, report the earlier id.
+     */
+    public List<BatchItemResult> createTestResults(List<TestMethodResult> testMethodResults) {
+        return createTestResults(testMethodResults, null);
+    }
+
+    /**
+     * As {@link #createTestResults(List)}, writing with the given write concern, or the default one when null.
+     */
+    List<BatchItemResult> createTestResults(List<TestMethodResult> testMethodResults, WriteConcern writeConcern) {
+        MongoTemplate operations = tenantRouter.template(writeConcern);
+        log.info("Saving batch of {} test results", testMethodResults.size());
+        for (TestMethodResult testMethodResult : testMethodResults) {
+            if (testMethodResult.getId() == null) {
+                testMethodResult.setId(new ObjectId().toHexString());
+            }
+        }
+        Map<Integer, String> duplicates = findDuplicates(testMethodResults);
+        List<TestMethodResult> toInsert = new ArrayList<>(testMethodResults.size());
+        Map<ResultCollection, List<Integer>> positionsByRoute = new LinkedHashMap<>();
+        for (int i = 0; i < testMethodResults.size(); i++) {
+            if (!duplicates.containsKey(i)) {
+                toInsert.add(testMethodResults.get(i));
+                positionsByRoute.computeIfAbsent(tenantRouter.route(testMethodResults.get(i).getIata(), writeConcern), route -> new ArrayList<>()).add(i);
+            }
+        }
+        Map<Integer, String> errors = new HashMap<>();
+        if (!toInsert.isEmpty()) {
+            failureSignatureService.fingerprint(toInsert, operations);
+            payloadStore.offload(toInsert, operations);
+            List<Integer> raced = new ArrayList<>();
+            positionsByRoute.forEach((route, positions) -> {
+                try {
+                    route.template().bulkOps(BulkOperations.BulkMode.UNORDERED, TestMethodResult.class, route.name())
+                            .insert(positions.stream().map(testMethodResults::get).toList())
+                            .execute();
+                } catch (BulkOperationException ex) {
+                    ex.getErrors().forEach(error -> {
+                        int position = positions.get(error.getIndex());
+                        if (error.getCode() == DUPLICATE_KEY && testMethodResults.get(position).getIdempotencyKey() != null) {
+                            raced.add(position);
+                        }
+                        errors.put(position, error.getMessage());
+                    });
+                }
+            });
+            if (!errors.isEmpty()) {
+                int failed = errors.size();
+                Map<List<String>, String> existing = findIdsByKey(raced.stream().map(testMethodResults::get).toList());
+                Map<String, String> replacedIds = new HashMap<>();
+                for (int position : raced) {
+                    TestMethodResult result = testMethodResults.get(position);
+                    String existingId = existing.get(Arrays.asList(result.getIata(), result.getIdempotencyKey()));
+                    if (existingId != null) {
+                        errors.remove(position);
+                        duplicates.put(position, existingId);
+                        replacedIds.put(result.getId(), existingId);
+                    }
+                }
+                // repeats within the batch pointed at an item that turned out to be a duplicate itself
+                duplicates.replaceAll((position, id) -> replacedIds.getOrDefault(id, id));
+                log.warn("Batch insert stored {} of {} test results", toInsert.size() - failed, testMethodResults.size());
+            }
+        }
+        List<BatchItemResult> results = new ArrayList<>(testMethodResults.size());
+        List<TestMethodResult> stored = new ArrayList<>(testMethodResults.size());
+        for (int i = 0; i < testMethodResults.size(); i++) {
+            String error = errors.get(i);
+            String duplicateOf = duplicates.get(i);
+            if (error == null && duplicateOf == null) {
+                stored.add(testMethodResults.get(i));
+            }
+            results.add(BatchItemResult.builder()
+                    .index(i)
+                    .id(error != null ? null : duplicateOf != null ? duplicateOf : testMethodResults.get(i).getId())
+                    .error(error)
+                    .duplicate(duplicateOf != null)
+                    .build());
+        }
+        if (!duplicates.isEmpty()) {
+            idempotencyKeys.countDuplicates(duplicates.size());
+            log.info("Skipped {} duplicate test results", duplicates.size());
+        }
+        if (!stored.isEmpty()) {
+            rememberKeys(stored);
+            recentWrites.record(stored);
+            eventPublisher.publishEvent(new TestResultsStoredEvent(stored));
+        }
+        return results;
+    }
+
+    /**
+     * Assigns idempotency keys and returns, by position, the id each duplicate resolves to: the stored result with
+     * the same key, or the first item of the list with that key. Only keys that pass the in-memory filter are
+     * looked up, in one query per IATA and collection.
+     */
+    Map<Integer, String> findDuplicates(List<TestMethodResult> testMethodResults) {
+        Map<Integer, String> duplicates = new HashMap<>();
+        if (!idempotencyKeys.isEnabled()) {
+            testMethodResults.forEach(idempotencyKeys::assign);
+            return duplicates;
+        }
+        Map<List<String>, Integer> firstWithKey = new HashMap<>();
+        Map<Integer, Integer> repeats = new HashMap<>();
+        List<TestMethodResult> candidates = new ArrayList<>();
+        for (int i = 0; i < testMethodResults.size(); i++) {
+            TestMethodResult result = testMethodResults.get(i);
+            idempotencyKeys.assign(result);
+            if (result.getIdempotencyKey() == null) {
+                continue;
+            }
+            Integer first = firstWithKey.putIfAbsent(Arrays.asList(result.getIata(), result.getIdempotencyKey()), i);
+            if (first != null) {
+                repeats.put(i, first);
+            } else if (idempotencyKeys.mightExist(result.getIata(), result.getIdempotencyKey())) {
+                candidates.add(result);
+            }
+        }
+        if (!candidates.isEmpty()) {
+            findIdsByKey(candidates).forEach((key, id) -> duplicates.put(firstWithKey.get(key), id));
+        }
+        repeats.forEach((position, first) -> duplicates.put(position,
+                duplicates.getOrDefault(first, testMethodResults.get(first).getId())));
+        return duplicates;
+    }
+
+    /**
+     * Ids of the stored results with the keys of the given results, keyed by (iata, idempotencyKey).
+     */
+    private Map<List<String>, String> findIdsByKey(List<TestMethodResult> testMethodResults) {
+        Map<List<String>, String> ids = new HashMap<>();
+        Map<String, List<String>> keysByIata = new LinkedHashMap<>();
+        testMethodResults.forEach(result -> keysByIata.computeIfAbsent(result.getIata(), iata -> new ArrayList<>()).add(result.getIdempotencyKey()));
+        keysByIata.forEach((iata, keys) -> {
+            Query query = new Query(Criteria.where("iata").is(iata).and("idempotencyKey").in(keys.stream().distinct().toList()));
+            query.fields().include("iata", "idempotencyKey");
+            for (ResultCollection route : tenantRouter.readRoutes(iata)) {
+                for (TestMethodResult existing : route.find(query)) {
+                    ids.putIfAbsent(Arrays.asList(existing.getIata(), existing.getIdempotencyKey()), existing.getId());
+                }
+            }
+        });
+        return ids;
+    }
+
+    private void rememberKeys(List<TestMethodResult> stored) {
+        for (TestMethodResult result : stored) {
+            if (result.getIdempotencyKey() != null) {
+                idempotencyKeys.remember(result.getIata(), result.getIdempotencyKey());
+            }
+        }
+    }
+
+    private StoredResult duplicateOf(String iata, String existingId) {
+        idempotencyKeys.countDuplicates(1);
+        log.info("Skipped duplicate test result, returning id={}", existingId);
+        TestMethodResult existing = testMethodResultRepository.findInTenant(iata, existingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Test result not found with id: " + existingId));
+        return new StoredResult(existing, true);
     }
 
     public List<TestMethodResult> getAllTestResults() {
-        return testMethodResultRepository.findAll();
+        return hydrate(testMethodResultRepository.findAllTenants());
     }
 
-    public Optional<TestMethodResult> getTestResultById(String id) {
-        return testMethodResultRepository.findById(id);
+    /**
+     * Loads one result with its offloaded payloads restored.
+     */
+    public Optional<TestMethodResult> getTestResultById(String iata, String id) {
+        return testMethodResultRepository.queryInTenant(iata, id).map(this::hydrate);
     }
 
     public List<TestMethodResult> getTestResultsByRunId(String runId, String iata) {
-        log.debug("Fetching results by runId and iata runId={} iata={}", runId, iata);
-        List<TestMethodResult> results = testMethodResultRepository.findByRunIdAndIata(runId, iata);
-        if (results == null || results.isEmpty()) {
-            throw new ResourceNotFoundException("Run id not found: " + runId + ", iata=" + iata);
-        }
-        return results;
+        return getTestResults(RunQuery.builder().iata(iata).runId(runId).build(), ResultView.FULL);
     }
 
     public List<TestMethodResult> getTestResultsByRunIdAndSuiteType(String runId, String suiteType, String iata) {
-        log.debug("Fetching results by runId, suiteType and iata runId={} suiteType={} iata={}", runId, suiteType, iata);
-        List<TestMethodResult> results = testMethodResultRepository.findByRunIdAndSuiteTypeAndIata(runId, suiteType, iata);
-        if (results == null || results.isEmpty()) {
-            throw new ResourceNotFoundException("No results for runId=" + runId + ", suiteType=" + suiteType + ", iata=" + iata);
-        }
-        return results;
+        return getTestResults(RunQuery.builder().iata(iata).runId(runId).suiteType(suiteType).build(), ResultView.FULL);
     }
 
     public List<TestMethodResult> getTestResultsByRunIdAndSuiteTypeAndStatus(String runId, String suiteType, String status, String iata) {
-        log.debug("Fetching results by runId, suiteType, status and iata runId={} suiteType={} status={} iata={}", runId, suiteType, status, iata);
-        List<TestMethodResult> results = testMethodResultRepository.findByRunIdAndSuiteTypeAndStatusAndIata(runId, suiteType, status, iata);
-        return results;
+        return getTestResults(RunQuery.builder().iata(iata).runId(runId).suiteType(suiteType).status(status).build(), ResultView.FULL);
     }
 
     public List<TestMethodResult> getTestResultsByRunIdAndFeatureName(String runId, String featureName, String iata) {
-        log.debug("Fetching results by runId, feature and iata runId={} feature={} iata={}", runId, featureName, iata);
-        List<TestMethodResult> results = testMethodResultRepository.findByRunIdAndFeatureNameAndIata(runId, featureName, iata);
-        if (results == null || results.isEmpty()) {
-            throw new ResourceNotFoundException("No results for runId=" + runId + ", featureName=" + featureName + ", iata=" + iata);
-        }
-        return results;
+        return getTestResults(RunQuery.builder().iata(iata).runId(runId).featureName(featureName).build(), ResultView.FULL);
     }
 
     public List<TestMethodResult> getTestResultsByRunIdAndFeatureNameAndStatus(String runId, String featureName, String status, String iata) {
-        log.debug("Fetching results by runId, feature, status and iata runId={} feature={} status={} iata={}", runId, featureName, status, iata);
-        List<TestMethodResult> results = testMethodResultRepository.findByRunIdAndFeatureNameAndStatusAndIata(runId, featureName, status, iata);
-        return results;
+        return getTestResults(RunQuery.builder().iata(iata).runId(runId).featureName(featureName).status(status).build(), ResultView.FULL);
     }
 
     public List<TestMethodResult> getTestResultsByRunIdAndStatus(String runId, String status, String iata) {
-        List<TestMethodResult> results = testMethodResultRepository.findByRunIdAndStatusAndIata(runId, status, iata);
-       return results;
+        return getTestResults(RunQuery.builder().iata(iata).runId(runId).status(status).build(), ResultView.FULL);
     }
 
-    public TestMethodResult updateTestResult(String id, TestMethodResult testMethodResult) {
-        if (testMethodResultRepository.existsById(id)) {
-            log.info("Updating test result id={} status={} feature={}", id, testMethodResult.getStatus(), testMethodResult.getFeatureName());
-            testMethodResult.setId(id);
-            return testMethodResultRepository.save(testMethodResult);
+    /**
+     * Loads the results of a run, reading only the fields of the given view. An empty result is reported as not
+     * found unless a status filter was applied, since a run without e.g. failures is a valid answer.
+     * Answers are served from the {@link RunResultCache}; the returned list is shared and must not be modified.
+     * Offloaded payloads are restored only when the view selects logs or failures. Archived runs are read from
+     * their segment, merged with any results not yet deleted from the hot collection.
+     */
+    public List<TestMethodResult> getTestResults(RunQuery runQuery, ResultView view) {
+        List<TestMethodResult> results = runResultCache.get(runQuery, view, () -> {
+            log.debug("Fetching results {} view={}", runQuery, view.isFull() ? "full" : view.getFields());
+            ArchivedRun archived = runArchive.find(runQuery.getIata(), runQuery.getRunId());
+            if (archived == null) {
+                return testMethodResultRepository.findRun(runQuery, view);
+            }
+            if (runArchive.hotResultsDeleted(runQuery.getIata(), runQuery.getRunId())) {
+                try (Stream<TestMethodResult> cold = runArchive.streamRun(archived, runQuery, view)) {
+                    return cold.toList();
+                }
+            }
+            List<TestMethodResult> hot = testMethodResultRepository.findRun(runQuery, view);
+            Set<String> hotIds = new HashSet<>();
+            hot.forEach(result -> hotIds.add(result.getId()));
+            List<TestMethodResult> merged = new ArrayList<>();
+            try (Stream<TestMethodResult> cold = runArchive.streamRun(archived, runQuery, view)) {
+                cold.filter(result -> !hotIds.contains(result.getId())).forEach(merged::add);
+            }
+            merged.addAll(hot);
+            return merged;
+        });
+        if (results.isEmpty() && runQuery.getStatus() == null) {
+            throw new ResourceNotFoundException(runQuery.notFoundMessage());
         }
-        throw new ResourceNotFoundException("Test result not found with id: " + id);
+        return view.readsPayloads() ? hydrate(results) : results;
     }
 
-    public void deleteTestResult(String id) {
-        if (!testMethodResultRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Test result not found with id: " + id);
+    /**
+     * Streams the matching results straight from a Mongo cursor so the run is never held in memory.
+     * Unlike the list variants an unknown run yields an empty stream. The caller must close the stream.
+     * Offloaded payloads and de-duplicated stack traces are restored per cursor batch, with one blob query and one
+     * signature query for each {@code qa.query.cursor-batch-size} results. Archived runs stream their segment; while
+     * the run still has hot results, those come first and only their ids are kept to skip their archived copies.
+     */
+    public Stream<TestMethodResult> streamTestResults(RunQuery runQuery, ResultView view) {
+        log.debug("Streaming results {} view={}", runQuery, view.isFull() ? "full" : view.getFields());
+        ArchivedRun archived = runArchive.find(runQuery.getIata(), runQuery.getRunId());
+        Stream<TestMethodResult> results;
+        if (archived == null) {
+            results = testMethodResultRepository.streamRun(runQuery, view);
+        } else if (runArchive.hotResultsDeleted(runQuery.getIata(), runQuery.getRunId())) {
+            results = runArchive.streamRun(archived, runQuery, view);
+        } else {
+            Set<String> hotIds = new HashSet<>();
+            results = Stream.concat(
+                    testMethodResultRepository.streamRun(runQuery, view).peek(result -> hotIds.add(result.getId())),
+                    runArchive.streamRun(archived, runQuery, view).filter(result -> !hotIds.contains(result.getId())));
         }
+        return view.readsPayloads() ? mapInBatches(results, hydrateBatchSize, this::hydrate) : results;
+    }
+
+    public TestMethodResult updateTestResult(String id, TestMethodResult testMethodResult) {
+        TestMethodResult existing = testMethodResultRepository.findInTenant(testMethodResult.getIata(), id)
+                .orElseThrow(() -> new ResourceNotFoundException("Test result not found with id: " + id));
+        log.info("Updating test result id={} status={} feature={}", id, testMethodResult.getStatus(), testMethodResult.getFeatureName());
+        testMethodResult.setId(id);
+        testMethodResult.setIdempotencyKey(existing.getIdempotencyKey());
+        failureSignatureService.fingerprint(List.of(testMethodResult), mongoTemplate);
+        payloadStore.offload(List.of(testMethodResult), mongoTemplate);
+        TestMethodResult saved = testMethodResultRepository.saveInTenant(testMethodResult);
+        recentWrites.record(List.of(saved));
+        eventPublisher.publishEvent(new TestResultRemovedEvent(existing));
+        eventPublisher.publishEvent(new TestResultsStoredEvent(List.of(saved)));
+        return saved;
+    }
+
+    public void deleteTestResult(String iata, String id) {
+        TestMethodResult existing = testMethodResultRepository.findInTenant(iata, id)
+                .orElseThrow(() -> new ResourceNotFoundException("Test result not found with id: " + id));
         log.info("Deleting test result id={}", id);
-        testMethodResultRepository.deleteById(id);
+        testMethodResultRepository.deleteInTenant(iata, id);
+        eventPublisher.publishEvent(new TestResultRemovedEvent(existing));
+    }
+
+    /**
+     * Applies {@code mapper} to consecutive batches of up to {@code size} elements, pulling a batch from the source
+     * only when the previous one has been consumed. Closing the returned stream closes the source.
+     */
+    static <T> Stream<T> mapInBatches(Stream<T> source, int size, UnaryOperator<List<T>> mapper) {
+        Iterator<T> elements = source.iterator();
+        Iterator<T> batches = new Iterator<>() {
+            private Iterator<T> batch = List.<T>of().iterator();
+
+            @Override
+            public boolean hasNext() {
+                if (!batch.hasNext() && elements.hasNext()) {
+                    List<T> next = new ArrayList<>(size);
+                    while (next.size() < size && elements.hasNext()) {
+                        next.add(elements.next());
+                    }
+                    batch = mapper.apply(next).iterator();
+                }
+                return batch.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false).onClose(source::close);
+    }
+
+    /**
+     * Restores offloaded payloads, then stack traces kept only on their failure signature.
+     */
+    private List<TestMethodResult> hydrate(List<TestMethodResult> results) {
+        return failureSignatureService.restoreStackTraces(payloadStore.hydrate(results));
+    }
+
+    private TestMethodResult hydrate(TestMethodResult result) {
+        return failureSignatureService.restoreStackTraces(payloadStore.hydrate(result));
     }
 
     public List<String> getDistinctRunIdsByIataPaged(String iata, int page, int size) {
-        int pageIndex = Math.max(page, 0);
-        int pageSize = Math.max(size, 1);
-        Aggregation aggregation = Aggregation.newAggregation(
-                Aggregation.match(Criteria.where("iata").is(iata)),
-                Aggregation.group("runId"),
-                Aggregation.sort(Sort.by(Sort.Direction.DESC, "_id")),
-                Aggregation.skip((long) pageIndex * pageSize),
-                Aggregation.limit(pageSize),
-                Aggregation.project().and("_id").as("runId")
-        );
-        AggregationResults<Document> results = mongoTemplate.aggregate(aggregation, "testMethodResults", Document.class);
-        return results.getMappedResults().stream()
-                .map(doc -> doc.getString("runId"))
-                .toList();
+        return runCatalogService.getRunIdsPage(iata, page, size);
+    }
+
+    public List<String> getRunIdsByIataAfter(String iata, String cursor, int size) {
+        return runCatalogService.getRunIdsAfter(iata, cursor, size);
     }
 }
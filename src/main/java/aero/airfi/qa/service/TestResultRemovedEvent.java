@@ -0,0 +1,13 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.model.TestMethodResult;
+import lombok.Value;
+
+/**
+ * Published after a result has been deleted, or replaced by an update (followed by a {@link TestResultsStoredEvent}
+ * for the new version).
+ */
+@Value
+public class TestResultRemovedEvent {
+    TestMethodResult result;
+}
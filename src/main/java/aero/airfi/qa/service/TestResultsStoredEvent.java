@@ -0,0 +1,15 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.model.TestMethodResult;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Published after results have been written, by the single, bulk and write-behind paths alike.
+ * Listeners maintain the derived views and must not throw, since the write has already happened.
+ */
+@Value
+public class TestResultsStoredEvent {
+    List<TestMethodResult> results;
+}
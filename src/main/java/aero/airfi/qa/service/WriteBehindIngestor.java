@@ -0,0 +1,304 @@
+package aero.airfi.qa.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.WriteConcern;
+
+import aero.airfi.qa.dto.BatchItemResult;
+import aero.airfi.qa.exception.IngestQueueFullException;
+import aero.airfi.qa.model.TestMethodResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind ingestion used when {@code qa.ingest.mode=async}. Results are acknowledged as soon as they are
+ * queued and a single committer thread group-commits them through {@link TestMethodResultService#createTestResults}
+ * once {@code batch-size} items are waiting or {@code flush-interval-ms} has passed since the oldest one.
+ * <p>
+ * Queue admission is bounded by a semaphore that is only released after an item has been written, so the
+ * capacity also covers the batch currently being flushed. On shutdown the queue is drained before the
+ * Mongo client is closed.
+ * <p>
+ * The idempotency keys of queued results are held until their batch is flushed, so a retry that arrives in the
+ * meantime is answered with the queued result's id instead of being queued again.
+ */
+@Component
+@Slf4j
+public class WriteBehindIngestor implements SmartLifecycle {
+
+    private final TestMethodResultService testMethodResultService;
+    private final IdempotencyKeys idempotencyKeys;
+    private final WriteConcern durability;
+    private final LinkedBlockingQueue<TestMethodResult> queue = new LinkedBlockingQueue<>();
+    private final ConcurrentMap<List<String>, String> queuedKeys = new ConcurrentHashMap<>(); // (iata, key) -> id
+    private final Semaphore capacity;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final int maxRetries;
+    private final long shutdownTimeoutMs;
+    private final boolean virtualThreads;
+    private final Timer flushTimer;
+    private final Timer failedFlushTimer;
+    private final Counter flushedCounter;
+    private final Counter rejectedCounter;
+    private final Counter droppedCounter;
+
+    private volatile boolean running;
+    private Thread committer;
+
+    public WriteBehindIngestor(TestMethodResultService testMethodResultService,
+                               IdempotencyKeys idempotencyKeys,
+                               MeterRegistry meterRegistry,
+                               @Value("${qa.ingest.mode:sync}") String mode,
+                               @Value("${qa.ingest.async.queue-capacity:50000}") int queueCapacity,
+                               @Value("${qa.ingest.async.batch-size:500}") int batchSize,
+                               @Value("${qa.ingest.async.flush-interval-ms:200}") long flushIntervalMs,
+                               @Value("${qa.ingest.async.offer-timeout-ms:100}") long offerTimeoutMs,
+                               @Value("${qa.ingest.async.write-concern:ACKNOWLEDGED}") String writeConcern,
+                               @Value("${qa.ingest.async.max-retries:3}") int maxRetries,
+                               @Value("${qa.ingest.async.shutdown-timeout-ms:30000}") long shutdownTimeoutMs,
+                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.testMethodResultService = testMethodResultService;
+        this.idempotencyKeys = idempotencyKeys;
+        this.enabled = "async".equalsIgnoreCase(mode.trim());
+        this.capacity = new Semaphore(queueCapacity);
+        this.batchSize = Math.max(batchSize, 1);
+        this.flushIntervalMs = Math.max(flushIntervalMs, 1);
+        this.offerTimeoutMs = Math.max(offerTimeoutMs, 0);
+        this.maxRetries = Math.max(maxRetries, 0);
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.virtualThreads = virtualThreads;
+
+        this.durability = WriteConcern.valueOf(writeConcern.trim());
+        if (durability == null) {
+            throw new IllegalArgumentException("Unknown qa.ingest.async.write-concern: " + writeConcern);
+        }
+
+        Gauge.builder("qa.ingest.queue.depth", queue, LinkedBlockingQueue::size)
+                .description("Results waiting for the write-behind committer")
+                .register(meterRegistry);
+        Gauge.builder("qa.ingest.queue.remaining", capacity, Semaphore::availablePermits)
+                .description("Free slots before ingestion is rejected")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("qa.ingest.flush")
+                .description("Latency of one group commit attempt")
+                .tag("outcome", "success")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failedFlushTimer = Timer.builder("qa.ingest.flush")
+                .description("Latency of one group commit attempt")
+                .tag("outcome", "failure")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("qa.ingest.flushed").description("Results written by the committer, duplicates excluded").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("qa.ingest.rejected").description("Results rejected because the queue was full").register(meterRegistry);
+        this.droppedCounter = Counter.builder("qa.ingest.dropped").description("Results that could not be written after all retries").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the results for the committer, assigning their ids up front. The whole list is accepted or rejected;
+     * when there is no room within {@code offer-timeout-ms} an {@link IngestQueueFullException} is thrown.
+     * Results whose idempotency key is already stored or queued are answered with that result's id and not queued.
+     */
+    public List<BatchItemResult> enqueue(List<TestMethodResult> testMethodResults) {
+        if (!running) {
+            throw new IngestQueueFullException("Write-behind ingestion is not accepting results");
+        }
+        for (TestMethodResult testMethodResult : testMethodResults) {
+            if (testMethodResult.getId() == null) {
+                testMethodResult.setId(new ObjectId().toHexString());
+            }
+            idempotencyKeys.assign(testMethodResult);
+        }
+        // reserve the keys before looking them up: a batch flushed in between has remembered its keys by then
+        Map<Integer, String> queuedDuplicates = new HashMap<>();
+        List<TestMethodResult> reserved = new ArrayList<>();
+        for (int i = 0; i < testMethodResults.size(); i++) {
+            TestMethodResult testMethodResult = testMethodResults.get(i);
+            if (testMethodResult.getIdempotencyKey() != null) {
+                String queuedId = queuedKeys.putIfAbsent(queuedKey(testMethodResult), testMethodResult.getId());
+                if (queuedId != null) {
+                    queuedDuplicates.put(i, queuedId);
+                } else {
+                    reserved.add(testMethodResult);
+                }
+            }
+        }
+        Map<Integer, String> duplicates;
+        try {
+            duplicates = testMethodResultService.findDuplicates(testMethodResults);
+        } catch (RuntimeException ex) {
+            release(reserved);
+            throw ex;
+        }
+        queuedDuplicates.forEach(duplicates::putIfAbsent);
+        duplicates.keySet().forEach(i -> release(List.of(testMethodResults.get(i))));
+        int toQueue = testMethodResults.size() - duplicates.size();
+        boolean admitted;
+        try {
+            admitted = toQueue == 0 || capacity.tryAcquire(toQueue, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            release(reserved);
+            rejectedCounter.increment(toQueue);
+            throw new IngestQueueFullException("Ingest queue is full, retry later");
+        }
+        List<BatchItemResult> results = new ArrayList<>(testMethodResults.size());
+        for (int i = 0; i < testMethodResults.size(); i++) {
+            TestMethodResult testMethodResult = testMethodResults.get(i);
+            String duplicateOf = duplicates.get(i);
+            if (duplicateOf != null) {
+                results.add(BatchItemResult.builder().index(i).id(duplicateOf).duplicate(true).build());
+                continue;
+            }
+            queue.add(testMethodResult);
+            results.add(BatchItemResult.builder().index(i).id(testMethodResult.getId()).build());
+        }
+        return results;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        Thread.Builder threads = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        committer = threads.name("write-behind-committer").start(this::commitLoop);
+        log.info("Write-behind ingestion enabled batchSize={} flushIntervalMs={} capacity={}", batchSize, flushIntervalMs, capacity.availablePermits());
+    }
+
+    @Override
+    public void stop() {
+        if (committer == null) {
+            return;
+        }
+        running = false;
+        log.info("Draining write-behind queue depth={}", queue.size());
+        try {
+            committer.join(shutdownTimeoutMs);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("Write-behind queue not drained within {} ms, {} results lost", shutdownTimeoutMs, queue.size());
+        }
+        committer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after the web server so requests in flight are still queued before the drain, and before the Mongo client is closed.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void commitLoop() {
+        List<TestMethodResult> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                TestMethodResult first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    TestMethodResult next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                release(batch);
+                capacity.release(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<TestMethodResult> batch) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            Timer.Sample sample = Timer.start();
+            try {
+                List<BatchItemResult> results = testMethodResultService.createTestResults(batch, durability);
+                sample.stop(flushTimer);
+                long failed = results.stream().filter(result -> result.getError() != null).count();
+                flushedCounter.increment(results.stream().filter(result -> result.getError() == null && !result.isDuplicate()).count());
+                if (failed > 0) {
+                    droppedCounter.increment(failed);
+                    results.stream()
+                            .filter(result -> result.getError() != null)
+                            .forEach(result -> log.error("Write-behind insert rejected id={} error={}", batch.get(result.getIndex()).getId(), result.getError()));
+                }
+                return;
+            } catch (RuntimeException ex) {
+                sample.stop(failedFlushTimer);
+                if (attempt >= maxRetries) {
+                    droppedCounter.increment(batch.size());
+                    log.error("Write-behind flush of {} results failed after {} attempts", batch.size(), attempt + 1, ex);
+                    return;
+                }
+                log.warn("Write-behind flush of {} results failed, retrying attempt={} error={}", batch.size(), attempt + 1, ex.getMessage());
+                Thread.sleep(Math.min(1000L << attempt, 10_000L));
+            }
+        }
+    }
+
+    /**
+     * Frees the queued keys of the results, unless a later result holds them.
+     */
+    private void release(List<TestMethodResult> results) {
+        for (TestMethodResult result : results) {
+            if (result.getIdempotencyKey() != null) {
+                queuedKeys.remove(queuedKey(result), result.getId());
+            }
+        }
+    }
+
+    private static List<String> queuedKey(TestMethodResult result) {
+        return Arrays.asList(result.getIata(), result.getIdempotencyKey());
+    }
+}
@@ -3,7 +3,11 @@ package aero.airfi.qa;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+		"spring.data.mongodb.auto-index-creation=false",
+		"qa.mongo.index-verification=off",
+		"qa.run-catalog.backfill-on-startup=false"
+})
 class QaTestResultServiceApplicationTests {
 
 	@Test
@@ -0,0 +1,176 @@
+package aero.airfi.qa;
+
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import aero.airfi.qa.service.TestMethodResultService;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query reads against a local single-member replica set: the read template carries the configured read preference
+ * and read concern, a run just written by this instance is read back from the primary, and a run written elsewhere
+ * is served through the read template. The find commands sent to the server are captured, so each read is checked
+ * for the {@code $readPreference} and {@code readConcern} it actually went out with; as the member is connected to
+ * directly, the driver sends primary reads as {@code primaryPreferred}. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+		"qa.mongo.index-verification=off",
+		"qa.run-catalog.backfill-on-startup=false",
+		"qa.cache.results.enabled=false",
+		"qa.mongo.read.preference=secondaryPreferred",
+		"qa.mongo.read.max-staleness-seconds=90",
+		"qa.mongo.read.concern=majority",
+		"qa.mongo.read.read-your-writes=true"
+})
+class ReplicaSetReadTests {
+
+	@Container
+	static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+	static final List<BsonDocument> FINDS = new CopyOnWriteArrayList<>();
+
+	@TestConfiguration
+	static class CommandCapture {
+
+		@Bean
+		MongoClientSettingsBuilderCustomizer captureFinds() {
+			return settings -> settings.addCommandListener(new CommandListener() {
+				@Override
+				public void commandStarted(CommandStartedEvent event) {
+					if ("find".equals(event.getCommandName())) {
+						FINDS.add(event.getCommand().clone());
+					}
+				}
+			});
+		}
+	}
+
+	@DynamicPropertySource
+	static void mongoProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.data.mongodb.host", MONGO::getHost);
+		registry.add("spring.data.mongodb.port", MONGO::getFirstMappedPort);
+		registry.add("spring.data.mongodb.database", () -> "qa_replica_set_test");
+		registry.add("qa.search.enabled", () -> "false");
+	}
+
+	@Autowired
+	private TestMethodResultService testMethodResultService;
+
+	@Autowired
+	@Qualifier("readTemplate")
+	private MongoTemplate readTemplate;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private MongoClient mongoClient;
+
+	@Test
+	void readTemplateUsesConfiguredReadOptions() {
+		assertThat(readTemplate.getReadPreference()).isEqualTo(ReadPreference.secondaryPreferred(90, TimeUnit.SECONDS));
+		assertThat(readTemplate.getDb().getReadConcern()).isEqualTo(ReadConcern.MAJORITY);
+		assertThat(mongoTemplate.getDb().getReadPreference()).isEqualTo(ReadPreference.primary());
+	}
+
+	@Test
+	void runBeingIngestedIsReadFromThePrimary() {
+		String runId = "ryw-" + UUID.randomUUID();
+		testMethodResultService.createTestResults(List.of(result(runId, "first")));
+
+		assertThat(testMethodResultService.getTestResults(query(runId), ResultView.SUMMARY)).hasSize(1);
+
+		testMethodResultService.createTestResults(List.of(result(runId, "second")));
+
+		assertThat(testMethodResultService.getTestResults(query(runId), ResultView.SUMMARY))
+				.extracting(TestMethodResult::getMethodName)
+				.containsExactlyInAnyOrder("first", "second");
+		assertThat(findsOf(runId)).isNotEmpty().allSatisfy(find -> {
+			assertThat(readPreference(find)).isNotEqualTo("secondaryPreferred");
+			assertThat(find.containsKey("readConcern")).isFalse();
+		});
+	}
+
+	@Test
+	void runWrittenElsewhereIsReadThroughTheReadTemplate() {
+		String runId = "replica-" + UUID.randomUUID();
+		MongoTemplate otherInstance = new MongoTemplate(mongoClient, mongoTemplate.getDb().getName());
+		otherInstance.setWriteConcern(WriteConcern.MAJORITY);
+		TestMethodResult stored = otherInstance.insert(result(runId, "elsewhere"));
+
+		assertThat(testMethodResultService.getTestResults(query(runId), ResultView.SUMMARY))
+				.extracting(TestMethodResult::getId)
+				.containsExactly(stored.getId());
+		assertThat(testMethodResultService.getTestResultById("DXB", stored.getId())).isPresent();
+		assertThat(findsOf(runId)).isNotEmpty().allSatisfy(ReplicaSetReadTests::assertReadThroughTheReadTemplate);
+		assertThat(findsOf(stored.getId())).first().satisfies(ReplicaSetReadTests::assertReadThroughTheReadTemplate);
+	}
+
+	private static void assertReadThroughTheReadTemplate(BsonDocument find) {
+		assertThat(readPreference(find)).isEqualTo("secondaryPreferred");
+		assertThat(find.getDocument("$readPreference").getNumber("maxStalenessSeconds").longValue()).isEqualTo(90);
+		assertThat(find.getDocument("readConcern").getString("level").getValue()).isEqualTo("majority");
+	}
+
+	/**
+	 * The finds on the results collection whose filter mentions the value, in the order they were sent.
+	 */
+	private static List<BsonDocument> findsOf(String value) {
+		return FINDS.stream()
+				.filter(find -> find.getString("find").getValue().equals("testMethodResults"))
+				.filter(find -> find.getDocument("filter", new BsonDocument()).toJson().contains(value))
+				.toList();
+	}
+
+	private static String readPreference(BsonDocument find) {
+		return find.getDocument("$readPreference", new BsonDocument("mode", new BsonString("primary"))).getString("mode").getValue();
+	}
+
+	private static RunQuery query(String runId) {
+		return RunQuery.builder().iata("DXB").runId(runId).build();
+	}
+
+	private static TestMethodResult result(String runId, String methodName) {
+		return TestMethodResult.builder()
+				.runId(runId)
+				.iata("DXB")
+				.suiteType("REGRESSION")
+				.featureName("Boarding")
+				.className("aero.airfi.qa.BoardingTest")
+				.methodName(methodName)
+				.status("PASS")
+				.startTime(Instant.now())
+				.endTime(Instant.now())
+				.durationMs(10L)
+				.build();
+	}
+}
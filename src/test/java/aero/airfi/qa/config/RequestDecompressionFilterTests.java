@@ -0,0 +1,119 @@
+package aero.airfi.qa.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestDecompressionFilterTests {
+
+	private static final String BODY = "[{\"runId\":\"r1\",\"iata\":\"DXB\",\"status\":\"PASS\"}]".repeat(20);
+
+	private final RequestDecompressionFilter filter = new RequestDecompressionFilter(10_000);
+
+	@Test
+	void gzipBodyIsInflatedAndItsEncodingHidden() throws Exception {
+		MockHttpServletRequest request = request("gzip", gzip(BODY));
+		AtomicReference<HttpServletRequest> seen = new AtomicReference<>();
+
+		String body = filter(request, new MockHttpServletResponse(), seen);
+
+		assertThat(body).isEqualTo(BODY);
+		assertThat(seen.get().getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+		assertThat(seen.get().getHeader(HttpHeaders.CONTENT_LENGTH)).isNull();
+		assertThat(seen.get().getContentLengthLong()).isEqualTo(-1);
+	}
+
+	@Test
+	void deflateBodyIsInflatedWithOrWithoutTheZlibWrapper() throws Exception {
+		assertThat(filter(request("deflate", deflate(BODY, false)), new MockHttpServletResponse(), new AtomicReference<>())).isEqualTo(BODY);
+		assertThat(filter(request(" Deflate ", deflate(BODY, true)), new MockHttpServletResponse(), new AtomicReference<>())).isEqualTo(BODY);
+	}
+
+	@Test
+	void uncompressedBodyIsPassedThrough() throws Exception {
+		MockHttpServletRequest request = request("identity", BODY.getBytes(StandardCharsets.UTF_8));
+		AtomicReference<HttpServletRequest> seen = new AtomicReference<>();
+
+		assertThat(filter(request, new MockHttpServletResponse(), seen)).isEqualTo(BODY);
+		assertThat(seen.get()).isSameAs(request);
+	}
+
+	@Test
+	void bodyInflatingPastTheLimitIsRejected() throws Exception {
+		String large = "x".repeat(20_000);
+		MockHttpServletRequest request = request("gzip", gzip(large));
+
+		assertThatThrownBy(() -> filter(request, new MockHttpServletResponse(), new AtomicReference<>()))
+				.isInstanceOf(IOException.class)
+				.hasMessageContaining("exceeds 10000 bytes");
+	}
+
+	@Test
+	void unknownEncodingIsAnsweredWith415() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AtomicReference<HttpServletRequest> seen = new AtomicReference<>();
+
+		filter(request("br", BODY.getBytes(StandardCharsets.UTF_8)), response, seen);
+
+		assertThat(response.getStatus()).isEqualTo(415);
+		assertThat(response.getErrorMessage()).isEqualTo("Unsupported Content-Encoding: br");
+		assertThat(seen.get()).isNull();
+	}
+
+	/**
+	 * Runs the filter and returns the body the rest of the chain reads, or null when the chain was not called.
+	 */
+	private String filter(MockHttpServletRequest request, MockHttpServletResponse response, AtomicReference<HttpServletRequest> seen) throws Exception {
+		AtomicReference<String> body = new AtomicReference<>();
+		FilterChain chain = (ServletRequest chained, ServletResponse ignored) -> {
+			seen.set((HttpServletRequest) chained);
+			body.set(new String(chained.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+		};
+		filter.doFilter(request, response, chain);
+		return body.get();
+	}
+
+	private static MockHttpServletRequest request(String encoding, byte[] content) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/test-results/batch");
+		request.addHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+		request.setContentType("application/json");
+		request.setContent(content);
+		return request;
+	}
+
+	private static byte[] gzip(String body) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(bytes)) {
+			out.write(body.getBytes(StandardCharsets.UTF_8));
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] deflate(String body, boolean raw) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+		try (OutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+			out.write(body.getBytes(StandardCharsets.UTF_8));
+		} finally {
+			deflater.end();
+		}
+		return bytes.toByteArray();
+	}
+}
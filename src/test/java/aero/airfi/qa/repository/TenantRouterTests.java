@@ -0,0 +1,152 @@
+package aero.airfi.qa.repository;
+
+import aero.airfi.qa.config.MongoReadSettings;
+import aero.airfi.qa.model.TestMethodResult;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TenantRouterTests {
+
+	private final MongoClient mongoClient = mock(MongoClient.class);
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final MongoTemplate readTemplate = mock(MongoTemplate.class);
+	private final MongoReadSettings readSettings = mock(MongoReadSettings.class);
+	private final RecentWrites recentWrites = new RecentWrites(true, 120, 100);
+
+	@BeforeEach
+	void mockDatabases() {
+		MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+		MongoMappingContext mappingContext = new MongoMappingContext();
+		mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+		MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+		converter.setCustomConversions(conversions);
+		converter.afterPropertiesSet();
+		when(mongoTemplate.getConverter()).thenReturn(converter);
+		when(mongoTemplate.getCollectionName(TestMethodResult.class)).thenReturn("testMethodResults");
+		MongoDatabase qa = database("qa");
+		when(mongoTemplate.getDb()).thenReturn(qa);
+		when(readTemplate.getDb()).thenReturn(qa);
+		when(mongoClient.getDatabase(anyString())).thenAnswer(invocation -> database(invocation.getArgument(0)));
+	}
+
+	@Test
+	void collectionIsolationRoutesTenantsToTheirOwnCollection() {
+		TenantRouter router = router("DXB:Acme, LHR:acme, BOM:globex", "collection", false);
+
+		assertThat(router.route("DXB")).isEqualTo(new ResultCollection(mongoTemplate, "testMethodResults_acme"));
+		assertThat(router.route("LHR")).isEqualTo(router.route("DXB"));
+		assertThat(router.route("CDG")).isSameAs(router.shared());
+		assertThat(router.all()).extracting(ResultCollection::name)
+				.containsExactlyInAnyOrder("testMethodResults", "testMethodResults_acme", "testMethodResults_globex");
+		assertThat(router.all().get(0)).isSameAs(router.shared());
+	}
+
+	@Test
+	void databaseIsolationRoutesTenantsToTheirOwnDatabase() {
+		TenantRouter router = router("DXB:acme,LHR:acme", "Database", false);
+
+		ResultCollection dxb = router.route("DXB");
+
+		assertThat(dxb).hasToString("qa_acme.testMethodResults");
+		assertThat(router.route("LHR").template()).isSameAs(dxb.template());
+		assertThat(router.route("CDG")).hasToString("qa.testMethodResults");
+	}
+
+	@Test
+	void readsCoverTheSharedCollectionUntilTheMigrationFinished() {
+		TenantRouter router = router("DXB:acme", "collection", false);
+		ResultCollection tenant = router.route("DXB");
+
+		assertThat(router.readRoutes("DXB")).containsExactly(tenant, router.shared());
+		assertThat(router.readRoutes("CDG")).containsExactly(router.shared());
+
+		router.migrationFinished("DXB");
+
+		assertThat(router.readRoutes("DXB")).containsExactly(tenant);
+	}
+
+	@Test
+	void queriesReadTheirOwnRecentWritesFromThePrimary() {
+		TenantRouter router = router("", "collection", false);
+		recentWrites.record(List.of(TestMethodResult.builder().iata("DXB").runId("r1").build()));
+
+		assertThat(router.queryRoutes("DXB", "r1")).extracting(ResultCollection::template).containsExactly(mongoTemplate);
+		assertThat(router.queryRoutes("DXB", "r2")).extracting(ResultCollection::template).containsExactly(readTemplate);
+	}
+
+	@Test
+	void tenantIndexesAreCreatedOnceAndRetriedAfterAFailure() {
+		IndexOperations indexOps = mock(IndexOperations.class);
+		when(mongoTemplate.indexOps("testMethodResults_acme")).thenReturn(indexOps);
+		when(indexOps.createIndex(any(IndexDefinition.class)))
+				.thenThrow(new DataAccessResourceFailureException("primary stepped down"))
+				.thenReturn("created");
+		TenantRouter router = router("DXB:acme", "collection", true);
+
+		router.route("DXB");
+		int afterFailure = createIndexCalls(indexOps);
+		router.route("DXB");
+		int afterSuccess = createIndexCalls(indexOps);
+		router.route("DXB");
+
+		assertThat(afterFailure).isEqualTo(1);
+		assertThat(afterSuccess).isGreaterThan(afterFailure + 1);
+		assertThat(createIndexCalls(indexOps)).isEqualTo(afterSuccess);
+	}
+
+	@Test
+	void routesAreParsedIntoLowerCaseTenantsByIata() {
+		assertThat(TenantRouter.parseRoutes(" DXB:Acme , ,LHR:globex_2")).isEqualTo(Map.of("DXB", "acme", "LHR", "globex_2"));
+		assertThat(TenantRouter.parseRoutes("")).isEmpty();
+	}
+
+	@Test
+	void malformedRoutesAreRejected() {
+		for (String routes : List.of("DXB", "DXB:acme:eu", "DXB:", "DXB:../acme", "DXB:ac me")) {
+			assertThatThrownBy(() -> TenantRouter.parseRoutes(routes))
+					.as(routes)
+					.isInstanceOf(IllegalArgumentException.class)
+					.hasMessageContaining("expected IATA:tenant");
+		}
+		assertThatThrownBy(() -> router("DXB:acme", "schema", false))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("qa.tenancy.isolation");
+	}
+
+	private TenantRouter router(String routes, String isolation, boolean autoIndexCreation) {
+		return new TenantRouter(mongoClient, mongoTemplate, readTemplate, readSettings, recentWrites, routes, isolation, autoIndexCreation);
+	}
+
+	private static int createIndexCalls(IndexOperations indexOps) {
+		return (int) Mockito.mockingDetails(indexOps).getInvocations().stream()
+				.filter(invocation -> invocation.getMethod().getName().equals("createIndex"))
+				.count();
+	}
+
+	private static MongoDatabase database(String name) {
+		MongoDatabase database = mock(MongoDatabase.class);
+		when(database.getName()).thenReturn(name);
+		return database;
+	}
+}
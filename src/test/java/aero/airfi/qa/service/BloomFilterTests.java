@@ -0,0 +1,36 @@
+package aero.airfi.qa.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTests {
+
+	@Test
+	void emptyFilterContainsNothing() {
+		BloomFilter filter = new BloomFilter(1000, 0.01);
+
+		assertThat(IntStream.range(0, 1000).filter(i -> filter.mightContain("key-" + i))).isEmpty();
+	}
+
+	@Test
+	void everyKeyPutIsContained() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		IntStream.range(0, 10_000).forEach(i -> filter.put("DXB\nd:" + i));
+
+		assertThat(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("DXB\nd:" + i))).isTrue();
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTheConfiguredOne() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		IntStream.range(0, 10_000).forEach(i -> filter.put("DXB\nd:" + i));
+
+		long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("LHR\nd:" + i)).count();
+
+		assertThat(falsePositives).isLessThan(2_000);
+	}
+
+}
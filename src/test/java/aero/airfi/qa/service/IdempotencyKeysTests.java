@@ -0,0 +1,123 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.TenantRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.mock;
+
+class IdempotencyKeysTests {
+
+	private static final Instant START = Instant.parse("2024-05-01T10:15:30Z");
+
+	@Test
+	void clientKeyIsTrimmedAndPrefixed() {
+		assertThat(IdempotencyKeys.clientKey(" abc-1 ")).isEqualTo("c:abc-1");
+		assertThat(IdempotencyKeys.clientKey(null)).isNull();
+		assertThat(IdempotencyKeys.clientKey("  ")).isNull();
+	}
+
+	@Test
+	void clientKeyLongerThanTheLimitIsRejected() {
+		assertThatIllegalArgumentException().isThrownBy(() -> IdempotencyKeys.clientKey("k".repeat(IdempotencyKeys.MAX_KEY_LENGTH + 1)));
+	}
+
+	@Test
+	void derivedKeyIsStableForTheSameExecution() {
+		IdempotencyKeys keys = idempotencyKeys(true, true, 1000);
+		TestMethodResult first = result(START);
+		TestMethodResult retry = result(START);
+
+		keys.assign(first);
+		keys.assign(retry);
+
+		assertThat(first.getIdempotencyKey()).matches("d:[0-9a-f]{32}").isEqualTo(retry.getIdempotencyKey());
+	}
+
+	@Test
+	void rerunAtAnotherTimeHasAnotherKey() {
+		IdempotencyKeys keys = idempotencyKeys(true, true, 1000);
+		TestMethodResult first = result(START);
+		TestMethodResult rerun = result(START.plusSeconds(1));
+
+		keys.assign(first);
+		keys.assign(rerun);
+
+		assertThat(rerun.getIdempotencyKey()).isNotEqualTo(first.getIdempotencyKey());
+	}
+
+	@Test
+	void resultWithoutStartTimeGetsNoKey() {
+		TestMethodResult result = result(null);
+
+		idempotencyKeys(true, true, 1000).assign(result);
+
+		assertThat(result.getIdempotencyKey()).isNull();
+	}
+
+	@Test
+	void clientKeyIsKept() {
+		TestMethodResult result = result(START);
+		result.setIdempotencyKey("c:abc-1");
+
+		idempotencyKeys(true, true, 1000).assign(result);
+
+		assertThat(result.getIdempotencyKey()).isEqualTo("c:abc-1");
+	}
+
+	@Test
+	void keysAreOnlyDerivedWhenEnabled() {
+		TestMethodResult notDerived = result(START);
+		idempotencyKeys(true, false, 1000).assign(notDerived);
+		TestMethodResult disabled = result(START);
+		disabled.setIdempotencyKey("c:abc-1");
+		idempotencyKeys(false, true, 1000).assign(disabled);
+
+		assertThat(notDerived.getIdempotencyKey()).isNull();
+		assertThat(disabled.getIdempotencyKey()).isNull();
+	}
+
+	@Test
+	void rememberedKeyMightExistPerIata() {
+		IdempotencyKeys keys = idempotencyKeys(true, true, 1000);
+
+		keys.remember("DXB", "c:abc-1");
+
+		assertThat(keys.mightExist("DXB", "c:abc-1")).isTrue();
+		assertThat(keys.mightExist("LHR", "c:abc-1")).isFalse();
+	}
+
+	@Test
+	void filterIsReplacedOnceItHoldsTheExpectedKeys() {
+		IdempotencyKeys keys = idempotencyKeys(true, true, 100);
+		IntStream.range(0, 100).forEach(i -> keys.remember("DXB", "c:" + i));
+		assertThat(keys.mightExist("DXB", "c:0")).isTrue();
+
+		keys.remember("DXB", "c:100");
+
+		assertThat(keys.mightExist("DXB", "c:100")).isTrue();
+		assertThat(IntStream.range(0, 100).filter(i -> keys.mightExist("DXB", "c:" + i)).count()).isLessThan(10);
+	}
+
+	private static IdempotencyKeys idempotencyKeys(boolean enabled, boolean deriveKeys, long expectedKeys) {
+		return new IdempotencyKeys(mock(TenantRouter.class), new SimpleMeterRegistry(), enabled, deriveKeys, expectedKeys, 0.01, 0);
+	}
+
+	private static TestMethodResult result(Instant startTime) {
+		return TestMethodResult.builder()
+				.iata("DXB")
+				.runId("run-1")
+				.className("a.A")
+				.methodName("m")
+				.status("PASS")
+				.startTime(startTime)
+				.build();
+	}
+
+}
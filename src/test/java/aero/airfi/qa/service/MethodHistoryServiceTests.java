@@ -0,0 +1,55 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.model.MethodHistory;
+import aero.airfi.qa.model.TestMethodResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class MethodHistoryServiceTests {
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final MethodHistoryService methodHistoryService = new MethodHistoryService(mongoTemplate, true, 50);
+
+	@Test
+	void removedResultIsPulledFromTheRingByItsId() {
+		methodHistoryService.onResultRemoved(new TestResultRemovedEvent(result("r1")));
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+		verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(MethodHistory.class));
+		assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("_id", MethodHistory.key("DXB", "a.A", "m")));
+		assertThat(((Update) update.getValue()).getUpdateObject().get("$pull", Document.class).get("entries", Query.class).getQueryObject())
+				.isEqualTo(new Document("resultId", "r1"));
+	}
+
+	@Test
+	void resultWithoutIdIsNotPulled() {
+		methodHistoryService.onResultRemoved(new TestResultRemovedEvent(result(null)));
+
+		verifyNoInteractions(mongoTemplate);
+	}
+
+	private static TestMethodResult result(String id) {
+		return TestMethodResult.builder()
+				.id(id)
+				.iata("DXB")
+				.runId("run-1")
+				.className("a.A")
+				.methodName("m")
+				.status("PASS")
+				.durationMs(10)
+				.build();
+	}
+
+}
@@ -0,0 +1,89 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.model.FailureDetail;
+import aero.airfi.qa.model.PayloadBlob;
+import aero.airfi.qa.model.TestMethodResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PayloadStoreTests {
+
+	private static final String LOG_LINE = "x".repeat(64);
+	private static final String STACK_TRACE = "java.lang.IllegalStateException: boom\n\tat com.airfi.tests.LoginTest.testLogin(LoginTest.java:42)";
+
+	private final MongoOperations operations = mock(MongoOperations.class);
+	private final BulkOperations ops = mock(BulkOperations.class);
+	private final PayloadStore payloadStore = new PayloadStore(mock(MongoTemplate.class), "external", 32, 6);
+
+	@Test
+	void resultsAreLeftUnchangedWhenTheBlobWriteFails() {
+		when(operations.bulkOps(BulkOperations.BulkMode.UNORDERED, PayloadBlob.class)).thenReturn(ops);
+		when(ops.execute()).thenThrow(new DataAccessResourceFailureException("primary stepped down"));
+		TestMethodResult result = result();
+
+		assertThatThrownBy(() -> payloadStore.offload(List.of(result), operations))
+				.isInstanceOf(DataAccessResourceFailureException.class);
+
+		assertThat(result.getLogs()).containsExactly(LOG_LINE);
+		assertThat(result.getLogsRef()).isNull();
+		assertThat(result.getFailures().get(0).getStackTrace()).isEqualTo(STACK_TRACE);
+		assertThat(result.getFailures().get(0).getStackTraceRef()).isNull();
+	}
+
+	@Test
+	void retryAfterAFailedBlobWriteWritesTheBlobsAgain() {
+		when(operations.bulkOps(BulkOperations.BulkMode.UNORDERED, PayloadBlob.class)).thenReturn(ops);
+		when(ops.execute())
+				.thenThrow(new DataAccessResourceFailureException("primary stepped down"))
+				.thenReturn(null);
+		TestMethodResult result = result();
+
+		assertThatThrownBy(() -> payloadStore.offload(List.of(result), operations))
+				.isInstanceOf(DataAccessResourceFailureException.class);
+		payloadStore.offload(List.of(result), operations);
+
+		// the same logs and stack trace are upserted on both attempts
+		verify(ops, times(4)).upsert(any(Query.class), any(Update.class));
+		verify(ops, times(2)).execute();
+		assertThat(result.getLogs()).isNull();
+		assertThat(result.getLogsRef()).isNotNull();
+		assertThat(result.getFailures().get(0).getStackTrace()).isNull();
+		assertThat(result.getFailures().get(0).getStackTraceRef()).isNotNull();
+	}
+
+	@Test
+	void smallPayloadsStayInline() {
+		TestMethodResult result = TestMethodResult.builder().runId("r1").iata("AF").logs(List.of("short")).build();
+
+		payloadStore.offload(List.of(result), operations);
+
+		verify(operations, times(0)).bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(PayloadBlob.class));
+		assertThat(result.getLogs()).containsExactly("short");
+	}
+
+	private static TestMethodResult result() {
+		return TestMethodResult.builder()
+				.runId("r1")
+				.iata("AF")
+				.logs(List.of(LOG_LINE))
+				.failures(List.of(FailureDetail.builder().errorMessage("boom").stackTrace(STACK_TRACE).build()))
+				.build();
+	}
+
+}
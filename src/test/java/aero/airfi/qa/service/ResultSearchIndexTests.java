@@ -0,0 +1,239 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.model.FailureDetail;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultCollection;
+import aero.airfi.qa.repository.TenantRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResultSearchIndexTests {
+
+	private static final String IATA = "DXB";
+
+	@TempDir
+	Path indexDir;
+
+	private final TenantRouter tenantRouter = mock(TenantRouter.class);
+	private final PayloadStore payloadStore = mock(PayloadStore.class);
+	private final FailureSignatureService failureSignatureService = mock(FailureSignatureService.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AtomicBoolean blockNextHydrate = new AtomicBoolean();
+	private final CountDownLatch hydrating = new CountDownLatch(1);
+	private final CountDownLatch resume = new CountDownLatch(1);
+	private ResultSearchIndex index;
+
+	@AfterEach
+	void stopIndex() {
+		resume.countDown();
+		if (index != null) {
+			index.stop();
+		}
+	}
+
+	@Test
+	void camelCaseWordsMatchTheirParts() throws InterruptedException {
+		open(1000, 100);
+		TestMethodResult result = failed("r1", "Login", "java.net.SocketTimeoutException: Read timed out");
+
+		store(result);
+		awaitTotal("SocketTimeoutException", 1);
+
+		assertThat(ids(search("TimeoutException"))).containsExactly(result.getId());
+		assertThat(ids(search("socket timeout"))).containsExactly(result.getId());
+		assertThat(search("SocketException").total()).isZero();
+	}
+
+	@Test
+	void punctuatedWordsMatchAsAPhrase() throws InterruptedException {
+		open(1000, 100);
+		TestMethodResult seatMap = failed("r1", "Seats", "Element not found on the seat-map page");
+		TestMethodResult seatAndMap = failed("r1", "Seats", "No seat selected, the map did not load");
+
+		store(seatMap, seatAndMap);
+		awaitTotal("seat", 2);
+
+		assertThat(ids(search("seat-map"))).containsExactly(seatMap.getId());
+		assertThat(ids(search("seat map"))).containsExactlyInAnyOrder(seatMap.getId(), seatAndMap.getId());
+	}
+
+	@Test
+	void filtersNarrowTheMatchesAndTheirFacets() throws InterruptedException {
+		open(1000, 100);
+		TestMethodResult a = failed("r1", "Login", "Gateway timeout");
+		TestMethodResult b = failed("r1", "Checkout", "Gateway timeout");
+		TestMethodResult c = failed("r2", "Login", "Gateway timeout");
+		TestMethodResult d = failed("r2", "Login", "Gateway timeout").toBuilder().status("SKIP").build();
+		TestMethodResult otherIata = failed("r1", "Login", "Gateway timeout").toBuilder().iata("LHR").build();
+
+		store(a, b, c, d, otherIata);
+		awaitTotal("gateway", 4);
+
+		ResultSearchIndex.SearchPage all = search("gateway", null, null, null);
+		assertThat(all.facets().get(ResultSearchIndex.STATUS)).containsExactlyInAnyOrder(
+				new ResultSearchIndex.FacetCount("FAIL", 3), new ResultSearchIndex.FacetCount("SKIP", 1));
+		assertThat(all.facets().get(ResultSearchIndex.FEATURE)).containsExactlyInAnyOrder(
+				new ResultSearchIndex.FacetCount("Login", 3), new ResultSearchIndex.FacetCount("Checkout", 1));
+		assertThat(all.facets().get(ResultSearchIndex.RUN_ID)).containsExactlyInAnyOrder(
+				new ResultSearchIndex.FacetCount("r1", 2), new ResultSearchIndex.FacetCount("r2", 2));
+
+		ResultSearchIndex.SearchPage failed = search("gateway", " fail ", null, null);
+		assertThat(ids(failed)).containsExactlyInAnyOrder(a.getId(), b.getId(), c.getId());
+		assertThat(failed.facets().get(ResultSearchIndex.STATUS)).containsExactly(new ResultSearchIndex.FacetCount("FAIL", 3));
+
+		assertThat(ids(search("gateway", null, "Login", Set.of("r2")))).containsExactlyInAnyOrder(c.getId(), d.getId());
+		assertThat(search("gateway", null, null, Set.of()).total()).isZero();
+	}
+
+	@Test
+	void pagesAreServedWithinTheWindow() throws InterruptedException {
+		open(5, 100);
+		TestMethodResult[] results = new TestMethodResult[7];
+		for (int i = 0; i < results.length; i++) {
+			results[i] = failed("r1", "Login", "Gateway timeout").toBuilder().startTime(Instant.ofEpochSecond(i * 60L)).build();
+		}
+
+		store(results);
+		awaitTotal("gateway", 7);
+
+		ResultSearchIndex.SearchPage second = index.search(IATA, "gateway", null, null, null, true, 1, 2, 10);
+		assertThat(second.total()).isEqualTo(7);
+		assertThat(ids(second)).containsExactly(results[4].getId(), results[3].getId());
+		ResultSearchIndex.SearchPage lastInWindow = index.search(IATA, "gateway", null, null, null, true, 2, 2, 10);
+		assertThat(ids(lastInWindow)).containsExactly(results[2].getId());
+	}
+
+	@Test
+	void pagesStartingPastTheWindowAreRejected() throws InterruptedException {
+		open(5, 100);
+		store(failed("r1", "Login", "Gateway timeout"));
+		awaitTotal("gateway", 1);
+
+		assertThatThrownBy(() -> index.search(IATA, "gateway", null, null, null, false, 3, 2, 10))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Only the first 5 matches");
+		// page * size overflows int and would wrap around to a negative offset
+		assertThatThrownBy(() -> index.search(IATA, "gateway", null, null, null, false, Integer.MAX_VALUE, 2, 10))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void resultRemovedWhileItsStoreIsQueuedStaysRemoved() throws InterruptedException {
+		open(1000, 100);
+		blockNextHydrate.set(true);
+		store(failed("r1", "Login", "Gateway timeout"));
+		assertThat(hydrating.await(5, TimeUnit.SECONDS)).isTrue();
+
+		TestMethodResult removed = failed("r1", "Login", "Gateway timeout");
+		store(removed);
+		index.onResultRemoved(new TestResultRemovedEvent(removed));
+		TestMethodResult marker = failed("r1", "Login", "Marker");
+		store(marker);
+		resume.countDown();
+		awaitTotal("marker", 1);
+
+		assertThat(search("gateway").total()).isEqualTo(1);
+		assertThat(ids(search("gateway"))).doesNotContain(removed.getId());
+	}
+
+	@Test
+	void resultsOverflowingTheQueueAreReadBackFromMongo() throws InterruptedException {
+		open(1000, 1);
+		ResultCollection route = mock(ResultCollection.class);
+		when(tenantRouter.all()).thenReturn(List.of(route));
+		TestMethodResult overflowed = failed("r1", "Login", "Gateway timeout");
+		when(route.stream(any(Query.class))).thenAnswer(invocation -> Stream.of(overflowed));
+
+		blockNextHydrate.set(true);
+		store(failed("r1", "Login", "Marker"));
+		assertThat(hydrating.await(5, TimeUnit.SECONDS)).isTrue();
+		store(overflowed);
+		resume.countDown();
+		awaitTotal("gateway", 1);
+
+		assertThat(ids(search("gateway"))).containsExactly(overflowed.getId());
+		assertThat(meterRegistry.counter("qa.search.overflowed").count()).isEqualTo(1);
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(route).stream(query.capture());
+		assertThat(query.getValue().getQueryObject().get("_id")).isEqualTo(new Document("$gte", new ObjectId(overflowed.getId())));
+	}
+
+	private void open(int maxWindow, int queueSize) {
+		when(payloadStore.hydrate(anyList())).thenAnswer(invocation -> {
+			if (blockNextHydrate.compareAndSet(true, false)) {
+				hydrating.countDown();
+				resume.await(5, TimeUnit.SECONDS);
+			}
+			return invocation.getArgument(0);
+		});
+		when(failureSignatureService.restoreStackTraces(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+		index = new ResultSearchIndex(tenantRouter, payloadStore, failureSignatureService, meterRegistry,
+				true, indexDir.toString(), maxWindow, queueSize, false);
+		index.start();
+	}
+
+	private void store(TestMethodResult... results) {
+		index.onResultsStored(new TestResultsStoredEvent(List.of(results)));
+	}
+
+	private void awaitTotal(String text, long total) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (System.nanoTime() < deadline) {
+			index.refresh();
+			if (search(text).total() == total) {
+				return;
+			}
+			Thread.sleep(20);
+		}
+		assertThat(search(text).total()).as("matches of '%s'", text).isEqualTo(total);
+	}
+
+	private ResultSearchIndex.SearchPage search(String text) {
+		return search(text, null, null, null);
+	}
+
+	private ResultSearchIndex.SearchPage search(String text, String status, String feature, Set<String> runIds) {
+		return index.search(IATA, text, status, feature, runIds, false, 0, 10, 10);
+	}
+
+	private static List<String> ids(ResultSearchIndex.SearchPage page) {
+		return page.hits().stream().map(ResultSearchIndex.Hit::id).toList();
+	}
+
+	private static TestMethodResult failed(String runId, String featureName, String errorMessage) {
+		return TestMethodResult.builder()
+				.id(new ObjectId().toHexString())
+				.iata(IATA)
+				.runId(runId)
+				.featureName(featureName)
+				.className("com.airfi.tests.LoginTest")
+				.methodName("testLogin")
+				.status("FAIL")
+				.startTime(Instant.parse("2026-01-01T00:00:00Z"))
+				.failures(List.of(FailureDetail.builder().errorMessage(errorMessage).build()))
+				.build();
+	}
+}
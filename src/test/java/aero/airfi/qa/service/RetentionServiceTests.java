@@ -0,0 +1,108 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.model.RunCatalogEntry;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultCollection;
+import aero.airfi.qa.repository.TenantRouter;
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RetentionServiceTests {
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final RunArchive runArchive = mock(RunArchive.class);
+	private final TenantRouter tenantRouter = mock(TenantRouter.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void perIataPoliciesOverrideTheDefault() {
+		RetentionService retention = retention(7, " DXB:30, LHR : 90 ,BOM:-5");
+
+		assertThat(retention.retentionDays("DXB")).isEqualTo(30);
+		assertThat(retention.retentionDays("LHR")).isEqualTo(90);
+		assertThat(retention.retentionDays("BOM")).isZero();
+		assertThat(retention.retentionDays("CDG")).isEqualTo(7);
+	}
+
+	@Test
+	void malformedPoliciesAreRejected() {
+		assertThatThrownBy(() -> retention(0, "DXB:30,LHR"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("'LHR', expected IATA:days");
+		assertThatThrownBy(() -> retention(0, "DXB:thirty"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void passWithoutAnyPolicyTouchesNothing() {
+		retention(0, "DXB:0").applyRetention();
+
+		verifyNoInteractions(mongoTemplate, runArchive, tenantRouter);
+	}
+
+	@Test
+	void passWithOnlyOverridesArchivesTheRunsOfThoseIatas() {
+		when(mongoTemplate.find(any(Query.class), eq(RunCatalogEntry.class)))
+				.thenReturn(List.of(RunCatalogEntry.builder().iata("DXB").runId("r1").build()));
+		when(runArchive.archive("DXB", "r1")).thenReturn(List.of());
+
+		retention(0, "DXB:30,LHR:0").applyRetention();
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).find(query.capture(), eq(RunCatalogEntry.class));
+		assertThat(query.getValue().getQueryObject().get("iata")).isEqualTo("DXB");
+		assertThat(query.getValue().getQueryObject().get("archivedAt")).isEqualTo(new Document("$exists", false));
+		verify(mongoTemplate, never()).findDistinct(any(Query.class), anyString(), eq(RunCatalogEntry.class), eq(String.class));
+		verify(runArchive).archive("DXB", "r1");
+	}
+
+	@Test
+	void archivedResultsAreDeletedInBatchesFromEveryRouteBeforeTheRunIsMarked() {
+		MongoTemplate tenant = mock(MongoTemplate.class);
+		MongoTemplate shared = mock(MongoTemplate.class);
+		when(tenantRouter.readRoutes("DXB")).thenReturn(List.of(new ResultCollection(tenant, "testMethodResults_acme"), new ResultCollection(shared, "testMethodResults")));
+		when(tenant.remove(any(Query.class), eq(TestMethodResult.class), eq("testMethodResults_acme"))).thenReturn(DeleteResult.acknowledged(2), DeleteResult.acknowledged(1));
+		when(shared.remove(any(Query.class), eq(TestMethodResult.class), eq("testMethodResults"))).thenReturn(DeleteResult.acknowledged(0));
+		when(runArchive.archive("DXB", "r1")).thenReturn(List.of("a", "b", "c"));
+
+		retention(30, "").archiveRun("DXB", "r1");
+
+		ArgumentCaptor<Query> deletes = ArgumentCaptor.forClass(Query.class);
+		verify(tenant, times(2)).remove(deletes.capture(), eq(TestMethodResult.class), eq("testMethodResults_acme"));
+		assertThat(deletes.getAllValues()).extracting(delete -> delete.getQueryObject().get("_id"))
+				.containsExactly(new Document("$in", List.of("a", "b")), new Document("$in", List.of("c")));
+		verify(shared, times(2)).remove(any(Query.class), eq(TestMethodResult.class), eq("testMethodResults"));
+		assertThat(meterRegistry.counter("qa.retention.results.deleted").count()).isEqualTo(3);
+		assertThat(meterRegistry.counter("qa.retention.runs.archived").count()).isEqualTo(1);
+
+		// results ingested while archiving keep the run unmarked, as its reads must still cover the hot collection
+		ArgumentCaptor<Query> mark = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).updateFirst(mark.capture(), any(Update.class), eq(RunCatalogEntry.class));
+		assertThat(mark.getValue().getQueryObject().get("lastSeen")).isInstanceOf(Document.class);
+		assertThat(((Document) mark.getValue().getQueryObject().get("lastSeen")).keySet()).containsExactly("$lt");
+	}
+
+	private RetentionService retention(int defaultDays, String daysByIata) {
+		return new RetentionService(mongoTemplate, runArchive, tenantRouter, meterRegistry, defaultDays, daysByIata, 50, 2, 0, false);
+	}
+}
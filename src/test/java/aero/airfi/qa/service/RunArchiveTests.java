@@ -0,0 +1,201 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.model.ArchivedRun;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultCollection;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import aero.airfi.qa.repository.TenantRouter;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RunArchiveTests {
+
+	private static final Instant START = Instant.parse("2026-01-01T10:00:00Z");
+
+	@TempDir
+	Path archiveDir;
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final TenantRouter tenantRouter = mock(TenantRouter.class);
+	private RunArchive runArchive;
+
+	@BeforeEach
+	void createArchive() {
+		MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+		MongoMappingContext mappingContext = new MongoMappingContext();
+		mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+		MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+		converter.setCustomConversions(conversions);
+		converter.afterPropertiesSet();
+		when(mongoTemplate.getConverter()).thenReturn(converter);
+		runArchive = new RunArchive(mongoTemplate, tenantRouter, archiveDir.toString(), 100);
+	}
+
+	@Test
+	void segmentHoldsTheHotResultsOfEveryRouteInMethodOrder() throws Exception {
+		Document login = result("a.LoginTest", "testLogin", "PASS");
+		Document logout = result("a.LoginTest", "testLogout", "FAIL");
+		Document checkout = result("b.CheckoutTest", "testPay", "PASS");
+		routes(List.of(login, checkout), List.of(logout));
+
+		List<Object> hotIds = runArchive.archive("DXB", "r1");
+
+		assertThat(hotIds).containsExactlyInAnyOrder(login.get("_id"), logout.get("_id"), checkout.get("_id"));
+		ArchivedRun archived = saved(1);
+		assertThat(archived.getId()).isEqualTo("DXB:r1");
+		assertThat(archived.getSegment()).isEqualTo("DXB/r1.ndjson.gz");
+		assertThat(archived.getResults()).isEqualTo(3);
+		Path segment = archiveDir.resolve(archived.getSegment());
+		assertThat(archived.getBytes()).isEqualTo(Files.size(segment));
+		assertThat(archived.getSha256()).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(segment))));
+		try (Stream<TestMethodResult> results = runArchive.streamRun(archived, query(null), ResultView.FULL)) {
+			assertThat(results.toList())
+					.extracting(TestMethodResult::getId, TestMethodResult::getClassName, TestMethodResult::getMethodName, TestMethodResult::getStartTime)
+					.containsExactly(
+							tuple(login.getObjectId("_id").toHexString(), "a.LoginTest", "testLogin", START),
+							tuple(logout.getObjectId("_id").toHexString(), "a.LoginTest", "testLogout", START),
+							tuple(checkout.getObjectId("_id").toHexString(), "b.CheckoutTest", "testPay", START));
+		}
+	}
+
+	@Test
+	void readsFilterAndProjectEachArchivedResult() {
+		routes(List.of(result("a.LoginTest", "testLogin", "PASS"), result("a.LoginTest", "testLogout", "FAIL")));
+		runArchive.archive("DXB", "r1");
+
+		try (Stream<Document> documents = RunArchive.readRun(archiveDir.resolve(saved(1).getSegment()), query("FAIL"), ResultView.of(null, "status,logs"))) {
+			List<Document> failed = documents.toList();
+			assertThat(failed).hasSize(1);
+			assertThat(failed.get(0).keySet()).containsExactlyInAnyOrder("_id", "status", "logsRef");
+			assertThat(failed.get(0).getString("status")).isEqualTo("FAIL");
+		}
+	}
+
+	@Test
+	void reArchivingMergesTheRemainingHotResultsIntoTheSegmentOnce() {
+		Document login = result("a.LoginTest", "testLogin", "PASS");
+		Document logout = result("a.LoginTest", "testLogout", "FAIL");
+		Document checkout = result("b.CheckoutTest", "testPay", "PASS");
+		routes(List.of(login, logout, checkout));
+		runArchive.archive("DXB", "r1");
+		ArchivedRun first = saved(1);
+
+		// the delete was interrupted after the first result; a late result arrived since
+		Document late = result("a.LoginTest", "testRefresh", "PASS");
+		when(mongoTemplate.findById("DXB:r1", ArchivedRun.class)).thenReturn(first);
+		routes(List.of(logout, late, checkout));
+		List<Object> hotIds = runArchive.archive("DXB", "r1");
+
+		assertThat(hotIds).containsExactlyInAnyOrder(logout.get("_id"), late.get("_id"), checkout.get("_id"));
+		ArchivedRun second = saved(2);
+		assertThat(second.getSegment()).isEqualTo(first.getSegment());
+		assertThat(second.getResults()).isEqualTo(4);
+		try (Stream<TestMethodResult> results = runArchive.streamRun(second, query(null), ResultView.SUMMARY)) {
+			assertThat(results.map(TestMethodResult::getMethodName).toList())
+					.containsExactly("testLogin", "testLogout", "testRefresh", "testPay");
+		}
+	}
+
+	@Test
+	void segmentNamesCannotLeaveTheArchiveDirectory() {
+		routes(List.of(result("a.LoginTest", "testLogin", "PASS")));
+
+		runArchive.archive("DXB", "../r1");
+
+		assertThat(saved(1).getSegment()).isEqualTo("DXB/%2E%2E%2Fr1.ndjson.gz");
+	}
+
+	@Test
+	void mergeKeepsMethodOrderAndPrefersEarlierSourcesOnTies() {
+		Document cold = result("a.LoginTest", "testLogin", "PASS");
+		Document hot = result("a.LoginTest", "testLogin", "FAIL");
+		Document other = result("b.CheckoutTest", "testPay", "PASS");
+
+		Iterator<Document> merged = RunArchive.mergeByMethod(List.of(List.of(cold, other).iterator(), List.of(hot).iterator()));
+
+		assertThat(merged).toIterable().containsExactly(cold, hot, other);
+	}
+
+	/**
+	 * Serves each list of documents, already in method order, from a route cursor of its own.
+	 */
+	@SafeVarargs
+	@SuppressWarnings("unchecked")
+	private void routes(List<Document>... documents) {
+		List<ResultCollection> routes = Stream.of(documents).map(route -> {
+			MongoCollection<Document> collection = mock(MongoCollection.class);
+			FindIterable<Document> find = mock(FindIterable.class);
+			when(collection.find(any(Bson.class))).thenReturn(find);
+			when(find.sort(any())).thenReturn(find);
+			when(find.batchSize(anyInt())).thenReturn(find);
+			when(find.iterator()).thenAnswer(invocation -> cursor(route));
+			ResultCollection resultCollection = mock(ResultCollection.class);
+			when(resultCollection.collection()).thenReturn(collection);
+			return resultCollection;
+		}).toList();
+		when(tenantRouter.readRoutes("DXB")).thenReturn(routes);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static MongoCursor<Document> cursor(List<Document> documents) {
+		Iterator<Document> iterator = documents.stream().map(document -> new Document(document)).toList().iterator();
+		MongoCursor<Document> cursor = mock(MongoCursor.class);
+		when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+		when(cursor.next()).thenAnswer(invocation -> iterator.next());
+		return cursor;
+	}
+
+	private ArchivedRun saved(int times) {
+		ArgumentCaptor<ArchivedRun> archived = ArgumentCaptor.forClass(ArchivedRun.class);
+		verify(mongoTemplate, times(times)).save(archived.capture());
+		return archived.getValue();
+	}
+
+	private static RunQuery query(String status) {
+		return RunQuery.builder().iata("DXB").runId("r1").status(status).build();
+	}
+
+	private static Document result(String className, String methodName, String status) {
+		return new Document("_id", new ObjectId())
+				.append("runId", "r1")
+				.append("iata", "DXB")
+				.append("className", className)
+				.append("methodName", methodName)
+				.append("status", status)
+				.append("startTime", Date.from(START))
+				.append("logsRef", new Document("blobId", "blob-1").append("length", 64L));
+	}
+}
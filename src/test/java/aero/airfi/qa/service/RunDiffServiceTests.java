@@ -0,0 +1,163 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.exception.ResourceNotFoundException;
+import aero.airfi.qa.model.ArchivedRun;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.TestMethodResultRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RunDiffServiceTests {
+
+	private final TestMethodResultRepository repository = mock(TestMethodResultRepository.class);
+	private final RunArchive runArchive = mock(RunArchive.class);
+	private final RunDiffService runDiffService = new RunDiffService(repository, runArchive, 1.5, 1000, 1000);
+
+	@Test
+	void mergeJoinClassifiesEveryMethod() {
+		hot("cand",
+				result("1", "a.A", "m1", "FAIL", 100),
+				result("2", "a.B", "m2", "PASS", 100),
+				result("3", "a.C", "m3", "PASS", 100),
+				result("5", "a.E", "m5", "PASS", 3000));
+		hot("base",
+				result("11", "a.A", "m1", "PASS", 100),
+				result("12", "a.B", "m2", "FAIL", 100),
+				result("14", "a.D", "m4", "PASS", 100),
+				result("15", "a.E", "m5", "PASS", 1000));
+
+		RunDiffService.RunDiff diff = runDiffService.diff("DXB", "cand", "base");
+
+		assertThat(diff.methods()).isEqualTo(4);
+		assertThat(diff.baselineMethods()).isEqualTo(4);
+		assertThat(diff.newlyFailing().getChanges()).extracting(change -> change.candidate().methodName()).containsExactly("m1");
+		assertThat(diff.newlyPassing().getChanges()).extracting(change -> change.candidate().methodName()).containsExactly("m2");
+		assertThat(diff.added().getChanges()).singleElement().satisfies(change -> {
+			assertThat(change.candidate().methodName()).isEqualTo("m3");
+			assertThat(change.baseline()).isNull();
+		});
+		assertThat(diff.removed().getChanges()).singleElement().satisfies(change -> {
+			assertThat(change.baseline().methodName()).isEqualTo("m4");
+			assertThat(change.candidate()).isNull();
+		});
+		assertThat(diff.slower().getChanges()).extracting(change -> change.candidate().methodName()).containsExactly("m5");
+	}
+
+	@Test
+	void repeatedExecutionsFoldIntoOneOutcome() {
+		hot("cand",
+				result("1", "a.A", "m1", "PASS", 100),
+				result("2", "a.A", "m1", "fail", 200),
+				result("3", "a.A", "m1", "PASS", 300),
+				result("4", "a.B", "m2", "SKIP", 100),
+				result("5", "a.B", "m2", "PASS", 100));
+		hot("base",
+				result("11", "a.A", "m1", "PASS", 600),
+				result("12", "a.B", "m2", "FAIL", 100));
+
+		RunDiffService.RunDiff diff = runDiffService.diff("DXB", "cand", "base");
+
+		assertThat(diff.methods()).isEqualTo(2);
+		assertThat(diff.newlyFailing().getChanges()).singleElement().satisfies(change -> {
+			assertThat(change.candidate().status()).isEqualTo("FAIL");
+			assertThat(change.candidate().executions()).isEqualTo(3);
+			assertThat(change.candidate().durationMs()).isEqualTo(600);
+		});
+		assertThat(diff.newlyPassing().getChanges()).singleElement().satisfies(change -> {
+			assertThat(change.candidate().methodName()).isEqualTo("m2");
+			assertThat(change.candidate().status()).isEqualTo("PASS");
+		});
+		assertThat(diff.slower().getCount()).isZero();
+	}
+
+	@Test
+	void listsStopAtMaxEntriesButCountEveryChange() {
+		RunDiffService limited = new RunDiffService(repository, runArchive, 1.5, 1000, 1);
+		hot("cand", result("1", "a.A", "m1", "PASS", 100), result("2", "a.B", "m2", "PASS", 100), result("3", "a.C", "m3", "PASS", 100));
+		hot("base", result("13", "a.C", "m3", "PASS", 100));
+
+		RunDiffService.RunDiff diff = limited.diff("DXB", "cand", "base");
+
+		assertThat(diff.added().getCount()).isEqualTo(2);
+		assertThat(diff.added().getChanges()).extracting(change -> change.candidate().methodName()).containsExactly("m1");
+		assertThat(diff.added().isTruncated()).isTrue();
+	}
+
+	@Test
+	void archivedBaselineIsMergedWithItsHotResults() {
+		hot("cand", result("1", "a.A", "m1", "PASS", 100), result("2", "a.B", "m2", "FAIL", 100), result("3", "a.C", "m3", "PASS", 100));
+		// results 11 and 13 were archived but not yet deleted
+		ArchivedRun archived = archived("base", result("11", "a.A", "m1", "FAIL", 100), result("12", "a.B", "m2", "PASS", 100), result("13", "a.C", "m3", "PASS", 100));
+		hot("base", result("11", "a.A", "m1", "FAIL", 100), result("14", "a.B", "m2", "PASS", 50), result("13", "a.C", "m3", "PASS", 100));
+
+		RunDiffService.RunDiff diff = runDiffService.diff("DXB", "cand", "base");
+
+		assertThat(diff.baselineMethods()).isEqualTo(3);
+		assertThat(diff.newlyPassing().getChanges()).extracting(change -> change.candidate().methodName()).containsExactly("m1");
+		assertThat(diff.newlyFailing().getChanges()).singleElement().satisfies(change -> {
+			assertThat(change.baseline().methodName()).isEqualTo("m2");
+			assertThat(change.baseline().executions()).isEqualTo(2);
+			assertThat(change.baseline().durationMs()).isEqualTo(150);
+		});
+		assertThat(diff.slower().getCount()).isZero();
+		assertThat(diff.added().getCount()).isZero();
+		assertThat(diff.removed().getCount()).isZero();
+	}
+
+	@Test
+	void fullyArchivedBaselineIsReadFromItsSegmentOnly() {
+		hot("cand", result("1", "a.A", "m1", "PASS", 100), result("2", "a.B", "m2", "FAIL", 100));
+		archived("base", result("11", "a.A", "m1", "FAIL", 100), result("12", "a.B", "m2", "PASS", 100));
+		when(runArchive.hotResultsDeleted("DXB", "base")).thenReturn(true);
+
+		RunDiffService.RunDiff diff = runDiffService.diff("DXB", "cand", "base");
+
+		assertThat(diff.newlyPassing().getCount()).isEqualTo(1);
+		assertThat(diff.newlyFailing().getCount()).isEqualTo(1);
+		verify(repository, never()).streamRunByMethod("DXB", "base");
+	}
+
+	@Test
+	void unknownBaselineIsNotFound() {
+		hot("cand", result("1", "a.A", "m1", "PASS", 100));
+		hot("base");
+
+		assertThatThrownBy(() -> runDiffService.diff("DXB", "cand", "base"))
+				.isInstanceOf(ResourceNotFoundException.class)
+				.hasMessageContaining("Baseline run id not found");
+	}
+
+	private void hot(String runId, TestMethodResult... results) {
+		when(repository.streamRunByMethod("DXB", runId)).thenAnswer(invocation -> Stream.of(results));
+	}
+
+	static TestMethodResult result(String id, String className, String methodName, String status, long durationMs) {
+		return TestMethodResult.builder()
+				.id(id)
+				.iata("DXB")
+				.className(className)
+				.methodName(methodName)
+				.featureName("Login")
+				.status(status)
+				.durationMs(durationMs)
+				.build();
+	}
+
+	private ArchivedRun archived(String runId, TestMethodResult... segment) {
+		ArchivedRun archived = ArchivedRun.builder().iata("DXB").runId(runId).segment("DXB/" + runId + ".ndjson.gz").build();
+		when(runArchive.find("DXB", runId)).thenReturn(archived);
+		when(runArchive.streamRun(eq(archived), any(), any())).thenAnswer(invocation -> Stream.of(segment));
+		return archived;
+	}
+
+}
@@ -0,0 +1,94 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.service.RunEventBroadcaster.RunEvent;
+import aero.airfi.qa.service.RunEventBroadcaster.RunEventLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunEventLogTests {
+
+	private final RunEventLog runLog = new RunEventLog("r1", 3);
+
+	@Test
+	void newSubscriberStartsAfterTheLatestEvent() {
+		append(2);
+
+		assertThat(runLog.resumeAfter(null)).isEqualTo(2);
+		assertThat(runLog.resumeAfter(" ")).isEqualTo(2);
+	}
+
+	@Test
+	void reconnectResumesAfterABufferedEvent() throws InterruptedException {
+		append(5);
+
+		assertThat(runLog.resumeAfter("r1-2")).isEqualTo(2);
+		assertThat(runLog.after(2, 0)).extracting(RunEvent::sequence).containsExactly(3L, 4L, 5L);
+	}
+
+	@Test
+	void reconnectAfterAnOverwrittenOrUnknownEventResets() {
+		append(5);
+
+		assertThat(runLog.resumeAfter("r1-1")).isEqualTo(-1);
+		assertThat(runLog.resumeAfter("r1-6")).isEqualTo(-1);
+		assertThat(runLog.resumeAfter("r0-4")).isEqualTo(-1);
+		assertThat(runLog.resumeAfter("r1-x")).isEqualTo(-1);
+		assertThat(runLog.resumeAfter("4")).isEqualTo(-1);
+	}
+
+	@Test
+	void subscriberAWholeRingBehindIsEvicted() throws InterruptedException {
+		append(2);
+		long cursor = runLog.resumeAfter(null);
+
+		append(3);
+		assertThat(runLog.after(cursor, 0)).hasSize(3);
+
+		append(1);
+
+		assertThat(runLog.after(cursor, 0)).isNull();
+		assertThat(runLog.isClosed()).isFalse();
+	}
+
+	@Test
+	void waitEndsEmptyWithoutNewEvents() throws InterruptedException {
+		append(1);
+
+		assertThat(runLog.after(1, 10)).isEmpty();
+	}
+
+	@Test
+	void waitEndsWithTheAppendedEvent() throws InterruptedException {
+		Thread.ofPlatform().start(() -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			runLog.append(RunEventBroadcaster.REMOVED, new RunEventBroadcaster.RemovedEvent("id-1"));
+		});
+
+		List<RunEvent> batch = runLog.after(0, 10_000);
+
+		assertThat(batch).containsExactly(new RunEvent(1, RunEventBroadcaster.REMOVED, new RunEventBroadcaster.RemovedEvent("id-1")));
+	}
+
+	@Test
+	void closedLogEndsTheStream() throws InterruptedException {
+		append(1);
+
+		runLog.close();
+
+		assertThat(runLog.after(0, 10_000)).isNull();
+		assertThat(runLog.isClosed()).isTrue();
+	}
+
+	private void append(int count) {
+		IntStream.range(0, count).forEach(i -> runLog.append(RunEventBroadcaster.RESULT, "event-" + i));
+	}
+
+}
@@ -0,0 +1,100 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.model.FailureDetail;
+import aero.airfi.qa.model.RunSummary;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RunExporterTests {
+
+	private static final RunSummary SUMMARY = RunSummary.builder()
+			.iata("DXB")
+			.runId("run-1")
+			.total(2)
+			.statusCounts(Map.of("PASS", 1L, "FAIL", 1L))
+			.totalDurationMs(1500)
+			.build();
+
+	private final TestMethodResultService testMethodResultService = mock(TestMethodResultService.class);
+	private final RunExporter runExporter = new RunExporter(testMethodResultService, mock(RunSummaryService.class), new ObjectMapper());
+
+	@Test
+	void csvQuotesValuesWithSeparatorsQuotesAndLineBreaks() throws IOException {
+		TestMethodResult failed = result("r2", "FAIL", List.of(
+				failure("expected \"12A\", got 12B", null),
+				failure("line one\nline two", null)));
+		failed.setFeatureName("Seat map, economy");
+
+		String csv = export(RunExporter.Format.CSV, result("r1", "PASS", null), failed);
+
+		String[] rows = csv.split("\r\n", -1);
+		assertThat(rows[0]).startsWith("id,runId,iata,suiteType,featureName,").endsWith(",failures,errorMessage");
+		assertThat(rows[1]).isEqualTo("r1,run-1,DXB,,,a.SeatMapTest,book,PASS,,,,1000,,,,,,,0,");
+		assertThat(csv).contains("r2,run-1,DXB,,\"Seat map, economy\",a.SeatMapTest,book,FAIL,,,,500,,,,,,,2,"
+				+ "\"expected \"\"12A\"\", got 12B | line one\nline two\"\r\n");
+	}
+
+	@Test
+	void junitEscapesMarkupAndDropsCharactersXmlCannotCarry() throws Exception {
+		TestMethodResult failed = result("r2", "FAIL", List.of(failure("expected <b> & \"c\"\u001b[31m", "at a.SeatMapTest.book(SeatMapTest.java:42)")));
+		failed.setLogs(List.of("\u001b[32mbooking </testcase> done"));
+
+		String xml = export(RunExporter.Format.JUNIT, result("r1", "PASS", null), failed);
+
+		org.w3c.dom.Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+				.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+		Element suite = (Element) document.getElementsByTagName("testsuite").item(0);
+		assertThat(suite.getAttribute("tests")).isEqualTo("2");
+		assertThat(suite.getAttribute("failures")).isEqualTo("1");
+		assertThat(suite.getAttribute("time")).isEqualTo("1.500");
+		assertThat(document.getElementsByTagName("testcase").getLength()).isEqualTo(2);
+		Element failure = (Element) document.getElementsByTagName("failure").item(0);
+		assertThat(failure.getAttribute("message")).isEqualTo("expected <b> & \"c\"[31m");
+		assertThat(failure.getTextContent()).isEqualTo("expected <b> & \"c\"[31m\nat a.SeatMapTest.book(SeatMapTest.java:42)");
+		assertThat(document.getElementsByTagName("system-out").item(0).getTextContent()).isEqualTo("[32mbooking </testcase> done");
+	}
+
+	private String export(RunExporter.Format format, TestMethodResult... results) throws IOException {
+		when(testMethodResultService.streamTestResults(any(RunQuery.class), eq(ResultView.FULL))).thenReturn(Stream.of(results));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		runExporter.export(SUMMARY, format, out);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	private static FailureDetail failure(String errorMessage, String stackTrace) {
+		return FailureDetail.builder().errorMessage(errorMessage).stackTrace(stackTrace).build();
+	}
+
+	private static TestMethodResult result(String id, String status, List<FailureDetail> failures) {
+		return TestMethodResult.builder()
+				.id(id)
+				.iata("DXB")
+				.runId("run-1")
+				.className("a.SeatMapTest")
+				.methodName("book")
+				.status(status)
+				.durationMs("PASS".equals(status) ? 1000 : 500)
+				.failures(failures)
+				.build();
+	}
+
+}
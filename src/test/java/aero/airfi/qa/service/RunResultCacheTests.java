@@ -0,0 +1,81 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunResultCacheTests {
+
+	private final RunResultCache cache = new RunResultCache(new SimpleMeterRegistry(), true, 64, 60);
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@Test
+	void storeInvalidatesOnlyTheMatchingQueriesOfItsRun() {
+		RunQuery run = query("r1", null);
+		RunQuery failed = query("r1", "FAIL");
+		RunQuery otherRun = query("r2", null);
+		load(run);
+		load(failed);
+		load(otherRun);
+
+		cache.onResultsStored(new TestResultsStoredEvent(List.of(result("r1", "PASS"))));
+
+		load(run);
+		load(failed);
+		load(otherRun);
+		assertThat(loads).hasValue(4);
+	}
+
+	@Test
+	void removalInvalidatesTheQueriesOfItsRun() {
+		RunQuery run = query("r1", null);
+		load(run);
+
+		cache.onResultRemoved(new TestResultRemovedEvent(result("r1", "FAIL")));
+
+		load(run);
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void queryCachedAgainAfterAnInvalidationIsInvalidatedByTheNextStore() {
+		RunQuery run = query("r1", null);
+		load(run);
+		cache.onResultsStored(new TestResultsStoredEvent(List.of(result("r1", "PASS"))));
+		load(run);
+
+		cache.onResultsStored(new TestResultsStoredEvent(List.of(result("r1", "PASS"))));
+
+		load(run);
+		assertThat(loads).hasValue(3);
+	}
+
+	private void load(RunQuery runQuery) {
+		cache.get(runQuery, ResultView.SUMMARY, () -> {
+			loads.incrementAndGet();
+			return List.of(result(runQuery.getRunId(), "PASS"));
+		});
+	}
+
+	private static RunQuery query(String runId, String status) {
+		return RunQuery.builder().iata("DXB").runId(runId).status(status).build();
+	}
+
+	private static TestMethodResult result(String runId, String status) {
+		return TestMethodResult.builder()
+				.iata("DXB")
+				.runId(runId)
+				.className("a.A")
+				.methodName("m")
+				.status(status)
+				.build();
+	}
+
+}
@@ -0,0 +1,77 @@
+package aero.airfi.qa.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StackTraceNormalizerTests {
+
+	private static final String TRACE = """
+			Exception in thread "main" java.lang.IllegalStateException: seat 12A taken by booking 0x7f3a2c
+				at java.base/java.util.concurrent.FutureTask.run(FutureTask.java:317)
+				at aero.airfi.qa.SeatMapTest.lambda$book$3(SeatMapTest.java:42)
+				at aero.airfi.qa.SeatMapTest$$Lambda$123/0x0000000800c0b000.accept(Unknown Source)
+				at jdk.proxy2.$Proxy45.book(Unknown Source)
+				at aero.airfi.qa.BookingService$$SpringCGLIB$$0.book(<generated>)
+			Caused by: java.net.SocketTimeoutException: Read timed out after 5000 ms
+			second line of the message
+				at java.base/sun.nio.ch.NioSocketImpl.timedRead(NioSocketImpl.java:288)
+				... 4 more
+			""";
+
+	// the same failure from another build: other messages, line numbers, lambda and proxy names and log decoration
+	private static final String SAME_FAILURE = """
+			java.lang.IllegalStateException: seat 3C taken by booking 0x11bb09
+				at java.base/java.util.concurrent.FutureTask.run(FutureTask.java:264)
+				at aero.airfi.qa.SeatMapTest.lambda$book$7(SeatMapTest.java:45) ~[seatmap-tests.jar:1.4.0]
+				at aero.airfi.qa.SeatMapTest$$Lambda/0x00007f0e8c0a2d10.accept(Unknown Source)
+				at jdk.proxy3.$Proxy12.book(Unknown Source)
+				at aero.airfi.qa.BookingService$$SpringCGLIB$$1.book(<generated>)
+			Caused by: java.net.SocketTimeoutException: Read timed out after 10000 ms
+				at java.base/sun.nio.ch.NioSocketImpl.timedRead(NioSocketImpl.java:291)
+				... 2 more
+			""";
+
+	@Test
+	void normalizeKeepsExceptionTypesAndFramesOnly() {
+		assertThat(StackTraceNormalizer.normalize(TRACE)).isEqualTo("""
+				java.lang.IllegalStateException
+				at java.util.concurrent.FutureTask.run(FutureTask.java)
+				at aero.airfi.qa.SeatMapTest.lambda$book(SeatMapTest.java)
+				at aero.airfi.qa.SeatMapTest$$Lambda.accept(Unknown Source)
+				at jdk.proxy.$Proxy.book(Unknown Source)
+				at aero.airfi.qa.BookingService$$SpringCGLIB.book(<generated>)
+				Caused by: java.net.SocketTimeoutException
+				at sun.nio.ch.NioSocketImpl.timedRead(NioSocketImpl.java)
+				""");
+	}
+
+	@Test
+	void sameFailureFromAnotherBuildHasTheSameSignature() {
+		assertThat(StackTraceNormalizer.fingerprint(SAME_FAILURE)).isEqualTo(StackTraceNormalizer.fingerprint(TRACE));
+	}
+
+	@Test
+	void differentFrameHasAnotherSignature() {
+		String otherFailure = TRACE.replace("SeatMapTest.lambda$book$3", "SeatMapTest.lambda$cancel$3");
+
+		assertThat(StackTraceNormalizer.fingerprint(otherFailure).signatureId())
+				.isNotEqualTo(StackTraceNormalizer.fingerprint(TRACE).signatureId());
+	}
+
+	@Test
+	void fingerprintNamesTheOutermostExceptionAndTopFrame() {
+		StackTraceNormalizer.Fingerprint fingerprint = StackTraceNormalizer.fingerprint(TRACE);
+
+		assertThat(fingerprint.signatureId()).hasSize(32).matches("[0-9a-f]+");
+		assertThat(fingerprint.exceptionType()).isEqualTo("java.lang.IllegalStateException");
+		assertThat(fingerprint.topFrame()).isEqualTo("java.util.concurrent.FutureTask.run(FutureTask.java)");
+	}
+
+	@Test
+	void blankTraceHasNoFingerprint() {
+		assertThat(StackTraceNormalizer.fingerprint(null)).isNull();
+		assertThat(StackTraceNormalizer.fingerprint(" \n ")).isNull();
+	}
+
+}
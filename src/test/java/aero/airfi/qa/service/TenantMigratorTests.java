@@ -0,0 +1,207 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.repository.ResultCollection;
+import aero.airfi.qa.repository.TenantRouter;
+import com.mongodb.Function;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoSocketReadException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TenantMigratorTests {
+
+	private final TenantRouter tenantRouter = mock(TenantRouter.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final TenantMigrator migrator = new TenantMigrator(tenantRouter, meterRegistry, true, 2, 0, false);
+	private final FakeCollection shared = new FakeCollection();
+	private final FakeCollection tenant = new FakeCollection();
+
+	@BeforeEach
+	void routeDxbToItsTenant() {
+		ResultCollection sharedRoute = shared.route("testMethodResults");
+		ResultCollection tenantRoute = tenant.route("testMethodResults_acme");
+		when(tenantRouter.shared()).thenReturn(sharedRoute);
+		when(tenantRouter.route("DXB")).thenReturn(tenantRoute);
+	}
+
+	@Test
+	void migrationInterruptedAfterACopyResumesWithoutDuplicates() {
+		for (int i = 0; i < 5; i++) {
+			shared.documents.add(new Document("_id", "id" + i).append("iata", "DXB"));
+		}
+		shared.failNextDelete = true;
+
+		// the first batch is copied, then the connection drops before it is deleted from the shared collection
+		assertThat(migrator.migrate("DXB")).isZero();
+		assertThat(ids(shared.documents)).containsExactly("id0", "id1", "id2", "id3", "id4");
+		assertThat(ids(tenant.documents)).containsExactly("id0", "id1");
+		verify(tenantRouter, never()).migrationFinished("DXB");
+
+		// the next start copies the batch again, finds it already there and deletes it
+		assertThat(migrator.migrate("DXB")).isEqualTo(5);
+		assertThat(shared.documents).isEmpty();
+		assertThat(ids(tenant.documents)).containsExactlyInAnyOrder("id0", "id1", "id2", "id3", "id4");
+		assertThat(meterRegistry.counter("qa.tenancy.results.migrated").count()).isEqualTo(5);
+		verify(tenantRouter).migrationFinished("DXB");
+	}
+
+	@Test
+	void resultsThatCannotBeCopiedStayShared() {
+		shared.documents.add(new Document("_id", "id0").append("iata", "DXB"));
+		shared.documents.add(new Document("_id", "id1").append("iata", "DXB"));
+		tenant.rejected.add("id1");
+
+		assertThat(migrator.migrate("DXB")).isEqualTo(1);
+
+		assertThat(ids(shared.documents)).containsExactly("id1");
+		assertThat(ids(tenant.documents)).containsExactly("id0");
+		verify(tenantRouter, never()).migrationFinished("DXB");
+	}
+
+	private static List<Object> ids(Collection<Document> documents) {
+		return documents.stream().map(document -> document.get("_id")).toList();
+	}
+
+	/**
+	 * Just enough of a collection for the migrator: find by iata, skipping ids in a {@code $nin}, or by ids in an
+	 * {@code $in}; unordered inserts that fail on duplicate or rejected ids after inserting the rest; deletes by ids.
+	 */
+	private static final class FakeCollection {
+
+		final List<Document> documents = new ArrayList<>();
+		final Set<Object> rejected = new HashSet<>();
+		boolean failNextDelete;
+
+		@SuppressWarnings("unchecked")
+		ResultCollection route(String name) {
+			MongoCollection<Document> collection = mock(MongoCollection.class);
+			when(collection.find(any(Bson.class))).thenAnswer(invocation -> find(invocation.getArgument(0)));
+			when(collection.insertMany(any(List.class), any(InsertManyOptions.class))).thenAnswer(invocation -> insert(invocation.getArgument(0)));
+			when(collection.deleteMany(any(Bson.class))).thenAnswer(invocation -> delete(invocation.getArgument(0)));
+			MongoTemplate template = mock(MongoTemplate.class);
+			MongoDatabase database = mock(MongoDatabase.class);
+			when(database.getName()).thenReturn("qa");
+			when(template.getDb()).thenReturn(database);
+			when(template.getCollection(name)).thenReturn(collection);
+			return new ResultCollection(template, name);
+		}
+
+		@SuppressWarnings("unchecked")
+		private FindIterable<Document> find(Bson filter) {
+			BsonDocument query = filter.toBsonDocument(Document.class, MongoClientSettings.getDefaultCodecRegistry());
+			Set<Object> in = values(query, "$in");
+			Set<Object> notIn = values(query, "$nin");
+			List<Document> found = new ArrayList<>(documents.stream()
+					.filter(document -> in == null || in.contains(document.get("_id")))
+					.filter(document -> notIn == null || !notIn.contains(document.get("_id")))
+					.toList());
+			FindIterable<Document> find = mock(FindIterable.class);
+			when(find.limit(anyInt())).thenAnswer(invocation -> {
+				int limit = invocation.getArgument(0);
+				found.subList(Math.min(limit, found.size()), found.size()).clear();
+				return find;
+			});
+			when(find.projection(any())).thenReturn(find);
+			when(find.into(any(Collection.class))).thenAnswer(invocation -> {
+				Collection<Document> target = invocation.getArgument(0);
+				target.addAll(found);
+				return target;
+			});
+			when(find.map(any())).thenAnswer(invocation -> {
+				Function<Document, Object> mapper = invocation.getArgument(0);
+				MongoIterable<Object> mapped = mock(MongoIterable.class);
+				when(mapped.into(any(Collection.class))).thenAnswer(into -> {
+					Collection<Object> target = into.getArgument(0);
+					found.forEach(document -> target.add(mapper.apply(document)));
+					return target;
+				});
+				return mapped;
+			});
+			return find;
+		}
+
+		private Object insert(List<Document> batch) {
+			Set<Object> present = documents.stream().map(document -> document.get("_id")).collect(Collectors.toSet());
+			List<BulkWriteError> errors = new ArrayList<>();
+			for (int i = 0; i < batch.size(); i++) {
+				Object id = batch.get(i).get("_id");
+				if (present.contains(id) || rejected.contains(id)) {
+					errors.add(new BulkWriteError(present.contains(id) ? 11000 : 121, "rejected", new BsonDocument(), i));
+				} else {
+					documents.add(batch.get(i));
+				}
+			}
+			if (!errors.isEmpty()) {
+				throw new MongoBulkWriteException(BulkWriteResult.unacknowledged(), errors, null, new ServerAddress(), Set.of());
+			}
+			return null;
+		}
+
+		private DeleteResult delete(Bson filter) {
+			if (failNextDelete) {
+				failNextDelete = false;
+				throw new MongoSocketReadException("connection reset", new ServerAddress());
+			}
+			Set<Object> ids = values(filter.toBsonDocument(Document.class, MongoClientSettings.getDefaultCodecRegistry()), "$in");
+			int before = documents.size();
+			documents.removeIf(document -> ids.contains(document.get("_id")));
+			return DeleteResult.acknowledged(before - documents.size());
+		}
+
+		/**
+		 * The string ids of an {@code _id} operator anywhere in the query, or null when it has none.
+		 */
+		private static Set<Object> values(BsonValue query, String operator) {
+			if (query instanceof BsonDocument document) {
+				for (var entry : document.entrySet()) {
+					if (entry.getKey().equals(operator)) {
+						return entry.getValue().asArray().stream().map(value -> (Object) value.asString().getValue()).collect(Collectors.toSet());
+					}
+					Set<Object> nested = values(entry.getValue(), operator);
+					if (nested != null) {
+						return nested;
+					}
+				}
+			} else if (query != null && query.isArray()) {
+				for (BsonValue value : query.asArray()) {
+					Set<Object> nested = values(value, operator);
+					if (nested != null) {
+						return nested;
+					}
+				}
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,195 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.dto.BatchItemResult;
+import aero.airfi.qa.model.ArchivedRun;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.RecentWrites;
+import aero.airfi.qa.repository.ResultCollection;
+import aero.airfi.qa.repository.ResultView;
+import aero.airfi.qa.repository.RunQuery;
+import aero.airfi.qa.repository.TenantRouter;
+import aero.airfi.qa.repository.TestMethodResultRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TestMethodResultServiceTests {
+
+	private static final RunQuery RUN = RunQuery.builder().iata("DXB").runId("run-1").build();
+
+	private final TenantRouter tenantRouter = mock(TenantRouter.class);
+	private final MongoTemplate store = mock(MongoTemplate.class);
+	private final BulkOperations bulk = mock(BulkOperations.class);
+	private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+	private final TestMethodResultRepository repository = mock(TestMethodResultRepository.class);
+	private final RunResultCache runResultCache = mock(RunResultCache.class);
+	private final RunArchive runArchive = mock(RunArchive.class);
+	private final IdempotencyKeys idempotencyKeys = new IdempotencyKeys(tenantRouter, new SimpleMeterRegistry(), true, true, 1000, 0.01, 0);
+	private final TestMethodResultService service = new TestMethodResultService(repository, store,
+			mock(RunCatalogService.class), eventPublisher, runResultCache, mock(PayloadStore.class),
+			mock(FailureSignatureService.class), runArchive, idempotencyKeys, tenantRouter, mock(RecentWrites.class), 500);
+
+	@BeforeEach
+	void routeToOneCollection() {
+		ResultCollection route = new ResultCollection(store, "testMethodResults");
+		when(tenantRouter.route(eq("DXB"), any())).thenReturn(route);
+		when(tenantRouter.readRoutes("DXB")).thenReturn(List.of(route));
+		when(store.bulkOps(BulkOperations.BulkMode.UNORDERED, TestMethodResult.class, "testMethodResults")).thenReturn(bulk);
+		when(bulk.insert(anyList())).thenReturn(bulk);
+	}
+
+	@Test
+	void mapInBatchesMapsWholeBatchesInOrder() {
+		List<List<Integer>> batches = new ArrayList<>();
+
+		List<Integer> mapped = TestMethodResultService.mapInBatches(IntStream.range(0, 7).boxed(), 3, batch -> {
+			batches.add(batch);
+			return batch.stream().map(i -> i * 10).toList();
+		}).toList();
+
+		assertThat(mapped).containsExactly(0, 10, 20, 30, 40, 50, 60);
+		assertThat(batches).containsExactly(List.of(0, 1, 2), List.of(3, 4, 5), List.of(6));
+	}
+
+	@Test
+	void mapInBatchesPullsOneBatchAtATime() {
+		List<Integer> pulled = new ArrayList<>();
+
+		try (Stream<Integer> mapped = TestMethodResultService.mapInBatches(IntStream.range(0, 100).boxed().peek(pulled::add), 10, batch -> batch)) {
+			assertThat(mapped.limit(12).toList()).hasSize(12);
+		}
+
+		assertThat(pulled).hasSize(20);
+	}
+
+	@Test
+	void closingTheMappedStreamClosesTheSource() {
+		AtomicBoolean closed = new AtomicBoolean();
+
+		TestMethodResultService.mapInBatches(Stream.of(1, 2).onClose(() -> closed.set(true)), 10, batch -> batch).close();
+
+		assertThat(closed).isTrue();
+	}
+
+	@Test
+	void storedAndRepeatedKeysAreAnsweredWithTheEarlierId() {
+		idempotencyKeys.remember("DXB", "c:k0");
+		when(store.find(any(Query.class), eq(TestMethodResult.class), eq("testMethodResults"))).thenReturn(List.of(result("old-0", "c:k0")));
+		TestMethodResult stored = result("n1", "c:k1");
+
+		List<BatchItemResult> results = service.createTestResults(List.of(result("n0", "c:k0"), stored, result("n2", "c:k1")));
+
+		assertThat(results).extracting(BatchItemResult::getId, BatchItemResult::isDuplicate, BatchItemResult::getError).containsExactly(
+				tuple("old-0", true, null), tuple("n1", false, null), tuple("n1", true, null));
+		verify(bulk).insert(List.of(stored));
+		assertThat(idempotencyKeys.mightExist("DXB", "c:k1")).isTrue();
+	}
+
+	@Test
+	void keyStoredConcurrentlyIsResolvedToTheStoredResult() {
+		TestMethodResult stored = result("n2", "c:k2");
+		when(bulk.execute()).thenThrow(bulkFailure(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0),
+				new BulkWriteError(121, "Document failed validation", new BsonDocument(), 2)));
+		when(store.find(any(Query.class), eq(TestMethodResult.class), eq("testMethodResults"))).thenReturn(List.of(result("old-0", "c:k0")));
+
+		List<BatchItemResult> results = service.createTestResults(List.of(result("n0", "c:k0"), result("n1", "c:k0"), stored, result("n3", null)));
+
+		assertThat(results).extracting(BatchItemResult::getId, BatchItemResult::isDuplicate, BatchItemResult::getError).containsExactly(
+				tuple("old-0", true, null), tuple("old-0", true, null), tuple("n2", false, null), tuple(null, false, "Document failed validation"));
+		ArgumentCaptor<TestResultsStoredEvent> event = ArgumentCaptor.forClass(TestResultsStoredEvent.class);
+		verify(eventPublisher).publishEvent(event.capture());
+		assertThat(event.getValue().getResults()).containsExactly(stored);
+	}
+
+	@Test
+	void archivedRunIsMergedWithItsRemainingHotResults() {
+		ArchivedRun archived = archived();
+		when(runArchive.hotResultsDeleted("DXB", "run-1")).thenReturn(false);
+		TestMethodResult hotCopy = result("r1", null).toBuilder().status("FAIL").build();
+		when(repository.findRun(RUN, ResultView.SUMMARY)).thenReturn(List.of(hotCopy, result("r3", null)));
+		when(repository.streamRun(RUN, ResultView.SUMMARY)).thenAnswer(invocation -> Stream.of(hotCopy, result("r3", null)));
+		when(runArchive.streamRun(archived, RUN, ResultView.SUMMARY)).thenAnswer(invocation -> Stream.of(result("r0", null), result("r1", null)));
+
+		List<TestMethodResult> listed = service.getTestResults(RUN, ResultView.SUMMARY);
+		List<TestMethodResult> streamed;
+		try (Stream<TestMethodResult> results = service.streamTestResults(RUN, ResultView.SUMMARY)) {
+			streamed = results.toList();
+		}
+
+		// the hot copy of a result whose delete had not finished wins over its archived copy
+		assertThat(listed).extracting(TestMethodResult::getId, TestMethodResult::getStatus)
+				.containsExactly(tuple("r0", "PASS"), tuple("r1", "FAIL"), tuple("r3", "PASS"));
+		assertThat(streamed).extracting(TestMethodResult::getId, TestMethodResult::getStatus)
+				.containsExactlyInAnyOrder(tuple("r0", "PASS"), tuple("r1", "FAIL"), tuple("r3", "PASS"));
+	}
+
+	@Test
+	void fullyArchivedRunIsReadFromItsSegmentOnly() {
+		ArchivedRun archived = archived();
+		when(runArchive.hotResultsDeleted("DXB", "run-1")).thenReturn(true);
+		when(runArchive.streamRun(archived, RUN, ResultView.SUMMARY)).thenAnswer(invocation -> Stream.of(result("r0", null), result("r1", null)));
+
+		assertThat(service.getTestResults(RUN, ResultView.SUMMARY)).extracting(TestMethodResult::getId).containsExactly("r0", "r1");
+		try (Stream<TestMethodResult> results = service.streamTestResults(RUN, ResultView.SUMMARY)) {
+			assertThat(results.map(TestMethodResult::getId).toList()).containsExactly("r0", "r1");
+		}
+
+		verify(repository, never()).findRun(any(), any());
+		verify(repository, never()).streamRun(any(), any());
+	}
+
+	@SuppressWarnings("unchecked")
+	private ArchivedRun archived() {
+		ArchivedRun archived = ArchivedRun.builder().id("DXB:run-1").iata("DXB").runId("run-1").segment("DXB/run-1.ndjson.gz").build();
+		when(runArchive.find("DXB", "run-1")).thenReturn(archived);
+		when(runResultCache.get(any(), any(), any())).thenAnswer(invocation -> ((Supplier<List<TestMethodResult>>) invocation.getArgument(2)).get());
+		return archived;
+	}
+
+	private static BulkOperationException bulkFailure(BulkWriteError... errors) {
+		return new BulkOperationException("Bulk write failed", new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+				List.of(errors), null, new ServerAddress(), Set.of()));
+	}
+
+	private static TestMethodResult result(String id, String idempotencyKey) {
+		return TestMethodResult.builder()
+				.id(id)
+				.iata("DXB")
+				.runId("run-1")
+				.className("a.A")
+				.methodName("m")
+				.status("PASS")
+				.idempotencyKey(idempotencyKey)
+				.build();
+	}
+
+}
@@ -0,0 +1,204 @@
+package aero.airfi.qa.service;
+
+import aero.airfi.qa.dto.BatchItemResult;
+import aero.airfi.qa.exception.IngestQueueFullException;
+import aero.airfi.qa.model.TestMethodResult;
+import aero.airfi.qa.repository.TenantRouter;
+import com.mongodb.MongoSocketReadException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WriteBehindIngestorTests {
+
+	private final TestMethodResultService testMethodResultService = mock(TestMethodResultService.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final IdempotencyKeys idempotencyKeys = new IdempotencyKeys(mock(TenantRouter.class), meterRegistry, true, true, 1000, 0.01, 0);
+	private final CountDownLatch flushing = new CountDownLatch(1);
+	private final CountDownLatch resume = new CountDownLatch(1);
+	private final List<List<String>> flushedBatches = new CopyOnWriteArrayList<>();
+	private WriteBehindIngestor ingestor;
+
+	@BeforeEach
+	void storeEverything() {
+		when(testMethodResultService.findDuplicates(anyList())).thenAnswer(invocation -> new HashMap<>());
+		when(testMethodResultService.createTestResults(anyList(), eq(WriteConcern.ACKNOWLEDGED))).thenAnswer(invocation -> stored(invocation.getArgument(0)));
+	}
+
+	@AfterEach
+	void stopIngestor() {
+		resume.countDown();
+		if (ingestor != null) {
+			ingestor.stop();
+		}
+	}
+
+	@Test
+	void resultsAreRejectedOnceTheQueueAndTheBatchInFlightFillTheCapacity() throws InterruptedException {
+		blockFlush();
+		ingestor = start(3, 0);
+
+		ingestor.enqueue(List.of(result("a", null), result("b", null)));
+		assertThat(flushing.await(5, TimeUnit.SECONDS)).isTrue();
+		ingestor.enqueue(List.of(result("c", null)));
+
+		assertThatThrownBy(() -> ingestor.enqueue(List.of(result("d", null))))
+				.isInstanceOf(IngestQueueFullException.class);
+		assertThat(meterRegistry.counter("qa.ingest.rejected").count()).isEqualTo(1);
+
+		resume.countDown();
+		verify(testMethodResultService, timeout(5000).times(2)).createTestResults(anyList(), eq(WriteConcern.ACKNOWLEDGED));
+		awaitFlushed(3);
+		assertThat(ingestor.enqueue(List.of(result("d", null)))).extracting(BatchItemResult::getId).hasSize(1);
+	}
+
+	@Test
+	void stopWritesEverythingStillQueued() {
+		ingestor = start(100, 0);
+
+		ingestor.enqueue(IntStream.range(0, 5).mapToObj(i -> result("r" + i, null)).toList());
+		ingestor.stop();
+
+		assertThat(meterRegistry.counter("qa.ingest.flushed").count()).isEqualTo(5);
+		assertThat(meterRegistry.get("qa.ingest.queue.depth").gauge().value()).isZero();
+		assertThatThrownBy(() -> ingestor.enqueue(List.of(result("late", null))))
+				.isInstanceOf(IngestQueueFullException.class)
+				.hasMessageContaining("not accepting");
+	}
+
+	@Test
+	void failedFlushIsRetriedAndTimedAsAFailure() {
+		when(testMethodResultService.createTestResults(anyList(), eq(WriteConcern.ACKNOWLEDGED)))
+				.thenThrow(new MongoSocketReadException("connection reset", new ServerAddress()))
+				.thenAnswer(invocation -> stored(invocation.getArgument(0)));
+		ingestor = start(100, 1);
+
+		ingestor.enqueue(List.of(result("a", null), result("b", null)));
+
+		verify(testMethodResultService, timeout(5000).times(2)).createTestResults(anyList(), eq(WriteConcern.ACKNOWLEDGED));
+		awaitFlushed(2);
+		assertThat(meterRegistry.get("qa.ingest.flush").tag("outcome", "failure").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("qa.ingest.flush").tag("outcome", "success").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.counter("qa.ingest.dropped").count()).isZero();
+	}
+
+	@Test
+	void batchIsDroppedAfterTheLastRetry() {
+		when(testMethodResultService.createTestResults(anyList(), eq(WriteConcern.ACKNOWLEDGED)))
+				.thenThrow(new MongoSocketReadException("connection reset", new ServerAddress()));
+		ingestor = start(100, 0);
+
+		ingestor.enqueue(List.of(result("a", null), result("b", null)));
+		ingestor.stop();
+
+		assertThat(meterRegistry.counter("qa.ingest.dropped").count()).isEqualTo(2);
+		assertThat(meterRegistry.counter("qa.ingest.flushed").count()).isZero();
+		assertThat(meterRegistry.get("qa.ingest.queue.remaining").gauge().value()).isEqualTo(100);
+	}
+
+	@Test
+	void duplicatesAndRejectedItemsAreNotCountedAsFlushed() {
+		when(testMethodResultService.createTestResults(anyList(), eq(WriteConcern.ACKNOWLEDGED))).thenReturn(List.of(
+				BatchItemResult.builder().index(0).id("a").build(),
+				BatchItemResult.builder().index(1).id("stored-earlier").duplicate(true).build(),
+				BatchItemResult.builder().index(2).error("Document failed validation").build()));
+		ingestor = start(100, 0);
+
+		ingestor.enqueue(List.of(result("a", null), result("b", null), result("c", null)));
+		ingestor.stop();
+
+		assertThat(meterRegistry.counter("qa.ingest.flushed").count()).isEqualTo(1);
+		assertThat(meterRegistry.counter("qa.ingest.dropped").count()).isEqualTo(1);
+	}
+
+	@Test
+	void retriesOfQueuedResultsAreAnsweredWithTheQueuedId() throws InterruptedException {
+		blockFlush();
+		ingestor = start(100, 0);
+		ingestor.enqueue(List.of(result("blocker", null)));
+		assertThat(flushing.await(5, TimeUnit.SECONDS)).isTrue();
+
+		List<BatchItemResult> first = ingestor.enqueue(List.of(result(null, "c:k1"), result(null, "c:k1")));
+		List<BatchItemResult> retry = ingestor.enqueue(List.of(result(null, "c:k1"), result(null, "c:k2")));
+
+		String queuedId = first.get(0).getId();
+		assertThat(first).extracting(BatchItemResult::getId, BatchItemResult::isDuplicate)
+				.containsExactly(tuple(queuedId, false), tuple(queuedId, true));
+		assertThat(retry).extracting(BatchItemResult::getId, BatchItemResult::isDuplicate)
+				.containsExactly(tuple(queuedId, true), tuple(retry.get(1).getId(), false));
+
+		resume.countDown();
+		ingestor.stop();
+		assertThat(flushedBatches).containsExactly(List.of("blocker"), List.of(queuedId, retry.get(1).getId()));
+	}
+
+	private WriteBehindIngestor start(int queueCapacity, int maxRetries) {
+		WriteBehindIngestor started = new WriteBehindIngestor(testMethodResultService, idempotencyKeys, meterRegistry,
+				"async", queueCapacity, 100, 50, 10, "ACKNOWLEDGED", maxRetries, 5000, false);
+		started.start();
+		return started;
+	}
+
+	/**
+	 * Holds the first flush until {@link #resume} is counted down.
+	 */
+	private void blockFlush() {
+		when(testMethodResultService.createTestResults(anyList(), eq(WriteConcern.ACKNOWLEDGED)))
+				.thenAnswer(invocation -> {
+					flushing.countDown();
+					resume.await(5, TimeUnit.SECONDS);
+					return stored(invocation.getArgument(0));
+				})
+				.thenAnswer(invocation -> stored(invocation.getArgument(0)));
+	}
+
+	private void awaitFlushed(double count) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (meterRegistry.counter("qa.ingest.flushed").count() < count && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+		assertThat(meterRegistry.counter("qa.ingest.flushed").count()).isEqualTo(count);
+	}
+
+	/**
+	 * Stores the batch, remembering its ids: the committer reuses its batch list, so recorded invocations show it empty.
+	 */
+	private List<BatchItemResult> stored(List<TestMethodResult> batch) {
+		flushedBatches.add(batch.stream().map(TestMethodResult::getId).toList());
+		return IntStream.range(0, batch.size())
+				.mapToObj(i -> BatchItemResult.builder().index(i).id(batch.get(i).getId()).build())
+				.toList();
+	}
+
+	private static TestMethodResult result(String id, String idempotencyKey) {
+		return TestMethodResult.builder()
+				.id(id)
+				.iata("DXB")
+				.runId("run-1")
+				.className("a.A")
+				.methodName("m")
+				.status("PASS")
+				.idempotencyKey(idempotencyKey)
+				.build();
+	}
+}